@@ -0,0 +1,51 @@
+#!/bin/bash
+#
+# AppCDS training run, executed while building the image (see Dockerfile).
+#
+# Starts the application from the extracted layers in the current directory against the ILP stub
+# serving the training fixtures, replays the load driver's request mix for a few seconds so that the
+# classes behind every endpoint (path planning, validation, JSON and GeoJSON encoding) are loaded,
+# then stops the application. On exit the JVM writes every class it loaded to application.jsa.
+#
+# Usage: cds-training.sh <dir with loadtest classes in classes/ and ILP fixtures in fixtures/>
+
+set -euo pipefail
+
+TRAINING_DIR=$1
+STUB_PORT=8089
+APP_PORT=8080
+TRAINING_SECONDS=${CDS_TRAINING_SECONDS:-20}
+
+classpath="$TRAINING_DIR/classes:application.jar:lib/*"
+
+java -cp "$classpath" uk.ac.ed.inf.pizzadronz.loadtest.IlpStubServer \
+    --fixtures "$TRAINING_DIR/fixtures" --port $STUB_PORT --latency-ms 0 --jitter-ms 0 &
+stub=$!
+trap 'kill $stub 2>/dev/null || true' EXIT
+
+java -XX:ArchiveClassesAtExit=application.jsa -Xlog:cds=error -jar application.jar \
+    --server.port=$APP_PORT \
+    --pizzadronz.ilp.base-url=http://localhost:$STUB_PORT \
+    --pizzadronz.reference-data.snapshot-file=/tmp/cds-training.snapshot &
+app=$!
+
+for _ in $(seq 1 120); do
+    if (exec 3<>/dev/tcp/localhost/$APP_PORT) 2>/dev/null; then
+        break
+    fi
+    sleep 0.5
+done
+
+java -cp "$classpath" uk.ac.ed.inf.pizzadronz.loadtest.LoadDriver \
+    --fixtures "$TRAINING_DIR/fixtures" --target http://localhost:$APP_PORT \
+    --rate 20 --duration-s "$TRAINING_SECONDS" --warmup-s 0 --max-in-flight 16
+
+# SIGTERM shuts the application down normally, which is when the archive is dumped
+kill -TERM $app
+wait $app || true
+rm -f /tmp/cds-training.snapshot
+
+if [ ! -s application.jsa ]; then
+    echo "The training run did not produce application.jsa" >&2
+    exit 1
+fi
@@ -0,0 +1,111 @@
+package uk.ac.ed.inf.pizzadronz.benchmark;
+
+import uk.ac.ed.inf.pizzadronz.constant.SystemConstants;
+import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic geometry and orders shared by the benchmarks. They are laid out around Appleton Tower
+ * at the scale of the real reference data, but are made up, so results are comparable between runs
+ * without depending on the ILP service.
+ */
+final class BenchmarkFixtures {
+
+    static final LngLat APPLETON_TOWER = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @return a regular polygon (closed, i.e. with the first vertex repeated at the end)
+     */
+    static List<LngLat> regularPolygon(int vertexCount, double centreLng, double centreLat, double radius) {
+        List<LngLat> vertices = new ArrayList<>(vertexCount + 1);
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            vertices.add(new LngLat(centreLng + radius * Math.cos(angle), centreLat + radius * Math.sin(angle)));
+        }
+        vertices.add(vertices.get(0));
+        return vertices;
+    }
+
+    /**
+     * @return a star (closed) whose vertices alternate between the outer and the inner radius
+     */
+    static List<LngLat> star(int vertexCount, double centreLng, double centreLat, double outerRadius, double innerRadius) {
+        List<LngLat> vertices = new ArrayList<>(vertexCount + 1);
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            double radius = i % 2 == 0 ? outerRadius : innerRadius;
+            vertices.add(new LngLat(centreLng + radius * Math.cos(angle), centreLat + radius * Math.sin(angle)));
+        }
+        vertices.add(vertices.get(0));
+        return vertices;
+    }
+
+    static Region region(String name, List<LngLat> vertices) {
+        Region region = new Region();
+        region.setName(name);
+        region.setVertices(vertices);
+        return region;
+    }
+
+    static Region rectangle(String name, double minLng, double minLat, double maxLng, double maxLat) {
+        return region(name, List.of(
+                new LngLat(minLng, minLat),
+                new LngLat(maxLng, minLat),
+                new LngLat(maxLng, maxLat),
+                new LngLat(minLng, maxLat),
+                new LngLat(minLng, minLat)));
+    }
+
+    /**
+     * @return a central area of roughly the real one's size, containing Appleton Tower
+     */
+    static Region centralArea() {
+        return rectangle(SystemConstants.CENTRAL_REGION_NAME, -3.192473, 55.942617, -3.184319, 55.946233);
+    }
+
+    static final Pizza[] MENU_1 = {new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400)};
+    static final Pizza[] MENU_2 = {new Pizza("R2: Meat Lover", 1400), new Pizza("R2: Vegan Delight", 1100)};
+
+    /**
+     * @return a catalog of two restaurants, open every day
+     */
+    static List<Restaurant> catalog() {
+        DayOfWeek[] everyDay = DayOfWeek.values();
+        return List.of(
+                new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735), everyDay, MENU_1),
+                new Restaurant("Sora Lella Vegan Restaurant", new LngLat(-3.202541470527649, 55.943284737579376), everyDay, MENU_2));
+    }
+
+    /**
+     * @return an order that passes every rule, with a card expiring next year
+     */
+    static Order validOrder() {
+        return order(new Pizza[]{MENU_1[0], MENU_1[1]}, validCard());
+    }
+
+    static Order order(Pizza[] pizzas, CreditCardInformation card) {
+        int total = SystemConstants.ORDER_CHARGE_IN_PENCE;
+        for (Pizza pizza : pizzas) {
+            total += pizza.priceInPence();
+        }
+        return new Order("1A2B3C4D", LocalDate.now(), total, pizzas, card);
+    }
+
+    static CreditCardInformation validCard() {
+        String expiry = LocalDate.now().plusYears(1).format(DateTimeFormatter.ofPattern("MM/yy"));
+        return new CreditCardInformation("1234567812345670", expiry, "123");
+    }
+}
@@ -0,0 +1,44 @@
+package uk.ac.ed.inf.pizzadronz.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.service.Calculations;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The distance and next position kernels the planner runs for every neighbour of every expanded node.
+ * Inputs are fields, not constants, so the JIT cannot fold the results.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculationsBenchmark {
+
+    private double lng1 = -3.192473;
+    private double lat1 = 55.946233;
+    private double lng2 = -3.186874;
+    private double lat2 = 55.944494;
+    private double angle = 22.5;
+
+    @Benchmark
+    public double euclideanDistance() {
+        return Calculations.calculateEuclideanDistance(lng1, lat1, lng2, lat2);
+    }
+
+    @Benchmark
+    public LngLat nextPosition() {
+        return Calculations.calculateNextPosition(lng1, lat1, angle);
+    }
+}
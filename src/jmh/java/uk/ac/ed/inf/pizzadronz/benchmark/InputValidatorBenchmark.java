@@ -0,0 +1,68 @@
+package uk.ac.ed.inf.pizzadronz.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.OrderValidationResult;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.service.InputValidator;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order validation against a stubbed catalog, so no request goes to the ILP service. Covers an order
+ * passing every rule, one rejected by a local rule (the catalog is never consulted) and one rejected
+ * by a catalog rule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputValidatorBenchmark {
+
+    private List<Restaurant> catalog;
+    private Order validOrder;
+    private Order invalidCardOrder;
+    private Order undefinedPizzaOrder;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkFixtures.catalog();
+        validOrder = BenchmarkFixtures.validOrder();
+        invalidCardOrder = BenchmarkFixtures.order(new Pizza[]{BenchmarkFixtures.MENU_1[0]},
+                new CreditCardInformation("1234567812345678", BenchmarkFixtures.validCard().getCreditCardExpiry(), "123"));
+        undefinedPizzaOrder = BenchmarkFixtures.order(new Pizza[]{new Pizza("R9: Pineapple", 1000)}, BenchmarkFixtures.validCard());
+        if (!InputValidator.validateOrder(validOrder, catalog).isValid()) {
+            throw new IllegalStateException("The valid order fixture does not validate");
+        }
+    }
+
+    @Benchmark
+    public OrderValidationResult validOrder() {
+        return InputValidator.validateOrder(validOrder, catalog);
+    }
+
+    @Benchmark
+    public OrderValidationResult invalidCard() {
+        return InputValidator.validateOrder(invalidCardOrder, catalog);
+    }
+
+    @Benchmark
+    public OrderValidationResult undefinedPizza() {
+        return InputValidator.validateOrder(undefinedPizzaOrder, catalog);
+    }
+}
@@ -0,0 +1,89 @@
+package uk.ac.ed.inf.pizzadronz.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.service.GeoSnapshot;
+import uk.ac.ed.inf.pizzadronz.service.PathCalculator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A* search on fixed routes:
+ * <ul>
+ *     <li>short: a few moves inside the central area, no zones</li>
+ *     <li>long: from outside the central area to Appleton Tower around four small zones</li>
+ *     <li>zoneHeavy: a route inside the central area through a grid of thirty zones with a wall across the direct line</li>
+ * </ul>
+ * each with the planner in every {@link PathCalculator.Mode}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PathCalculatorBenchmark {
+
+    @Param({"short", "long", "zoneHeavy"})
+    public String route;
+
+    @Param({"DIRECT", "HIERARCHICAL"})
+    public PathCalculator.Mode mode;
+
+    private LngLat start;
+    private final LngLat goal = BenchmarkFixtures.APPLETON_TOWER;
+    private GeoSnapshot geometry;
+    private PathCalculator pathCalculator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Region> noFlyZones = new ArrayList<>();
+        switch (route) {
+            case "short" -> start = new LngLat(goal.lng() - 0.002, goal.lat() + 0.001);
+            case "long" -> {
+                start = new LngLat(goal.lng() - 0.012, goal.lat() + 0.004);
+                for (int i = 0; i < 4; i++) {
+                    double lng = goal.lng() - 0.010 + i * 0.0025;
+                    noFlyZones.add(BenchmarkFixtures.rectangle("zone" + i, lng, goal.lat() + 0.0015, lng + 0.001, goal.lat() + 0.0025));
+                }
+            }
+            case "zoneHeavy" -> {
+                start = new LngLat(goal.lng() - 0.004, goal.lat() + 0.0015);
+                for (int row = 0; row < 5; row++) {
+                    for (int column = 0; column < 6; column++) {
+                        double lng = goal.lng() - 0.0047 + column * 0.0008;
+                        double lat = goal.lat() - 0.0004 + row * 0.0005;
+                        noFlyZones.add(BenchmarkFixtures.rectangle("grid" + row + column, lng, lat, lng + 0.0002, lat + 0.0002));
+                    }
+                }
+                // A short wall across the direct line which the drone has to go around
+                noFlyZones.add(BenchmarkFixtures.rectangle("wall", goal.lng() - 0.0021, goal.lat() + 0.0003, goal.lng() - 0.0019, goal.lat() + 0.0011));
+            }
+            default -> throw new IllegalArgumentException("Unknown route " + route);
+        }
+        geometry = GeoSnapshot.of(noFlyZones, BenchmarkFixtures.centralArea());
+        pathCalculator = new PathCalculator(mode);
+        if (pathCalculator.calculatePath(start, goal, geometry).isEmpty()) {
+            throw new IllegalStateException("No path found on the " + route + " route");
+        }
+    }
+
+    @Benchmark
+    public List<LngLat> calculatePath() {
+        return pathCalculator.calculatePath(start, goal, geometry);
+    }
+}
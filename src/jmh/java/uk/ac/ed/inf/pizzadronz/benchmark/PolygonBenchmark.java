@@ -0,0 +1,104 @@
+package uk.ac.ed.inf.pizzadronz.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.service.CompiledRegion;
+import uk.ac.ed.inf.pizzadronz.service.Polygon;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-polygon and segment-crossing tests against regular polygons and stars (concave) of growing
+ * size, both on the public {@link Polygon} API (boxed vertex lists) and on {@link CompiledRegion} as
+ * used by the planner.
+ * The inside point and the crossing segment hit the slow paths; the outside point and the clear
+ * segment are what the planner sees for most zones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolygonBenchmark {
+
+    private static final double CENTRE_LNG = -3.19;
+    private static final double CENTRE_LAT = 55.944;
+    private static final double RADIUS = 0.001;
+
+    @Param({"4", "16", "64", "256"})
+    public int vertexCount;
+
+    @Param({"regular", "star"})
+    public String shape;
+
+    private List<LngLat> vertices;
+    private CompiledRegion region;
+
+    private final LngLat inside = new LngLat(CENTRE_LNG + 0.0001, CENTRE_LAT + 0.0002);
+    private final LngLat outside = new LngLat(CENTRE_LNG + 0.003, CENTRE_LAT + 0.0002);
+    private final LngLat crossingFrom = new LngLat(CENTRE_LNG - 0.0005, CENTRE_LAT + 0.0001);
+    private final LngLat crossingTo = new LngLat(CENTRE_LNG - 0.0015, CENTRE_LAT + 0.0001);
+    private final LngLat clearFrom = new LngLat(CENTRE_LNG + 0.002, CENTRE_LAT + 0.002);
+    private final LngLat clearTo = new LngLat(CENTRE_LNG + 0.00215, CENTRE_LAT + 0.002);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        vertices = shape.equals("star")
+                ? BenchmarkFixtures.star(vertexCount, CENTRE_LNG, CENTRE_LAT, RADIUS, 0.6 * RADIUS)
+                : BenchmarkFixtures.regularPolygon(vertexCount, CENTRE_LNG, CENTRE_LAT, RADIUS);
+        region = CompiledRegion.compile(BenchmarkFixtures.region("polygon", vertices));
+    }
+
+    @Benchmark
+    public boolean pointInside() {
+        return Polygon.isPointInPolygon(inside, vertices);
+    }
+
+    @Benchmark
+    public boolean pointOutside() {
+        return Polygon.isPointInPolygon(outside, vertices);
+    }
+
+    @Benchmark
+    public boolean segmentCrossing() {
+        return Polygon.doesLineIntersectPolygon(crossingFrom, crossingTo, vertices);
+    }
+
+    @Benchmark
+    public boolean segmentClear() {
+        return Polygon.doesLineIntersectPolygon(clearFrom, clearTo, vertices);
+    }
+
+    @Benchmark
+    public boolean compiledPointInside() {
+        return region.contains(inside.lng(), inside.lat());
+    }
+
+    @Benchmark
+    public boolean compiledPointOutside() {
+        return region.contains(outside.lng(), outside.lat());
+    }
+
+    @Benchmark
+    public boolean compiledSegmentCrossing() {
+        return region.intersectsSegment(crossingFrom.lng(), crossingFrom.lat(), crossingTo.lng(), crossingTo.lat());
+    }
+
+    @Benchmark
+    public boolean compiledSegmentClear() {
+        return region.intersectsSegment(clearFrom.lng(), clearFrom.lat(), clearTo.lng(), clearTo.lat());
+    }
+}
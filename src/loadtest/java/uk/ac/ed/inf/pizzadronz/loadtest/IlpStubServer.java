@@ -0,0 +1,180 @@
+package uk.ac.ed.inf.pizzadronz.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A stand-in for the ILP REST service, serving recorded reference data so the application can be
+ * load tested offline and reproducibly.
+ *
+ * Serves GET /restaurants, /restaurants/{name}, /centralArea, /noFlyZones and /isAlive from a fixture
+ * directory laid out like pizzadronz.reference-data.local-dir (restaurants.json, centralArea.json,
+ * noFlyZones.json), delaying every response by a fixed latency plus uniform jitter. Point the
+ * application at it with --pizzadronz.ilp.base-url=http://localhost:&lt;port&gt;.
+ *
+ * Fixtures are recorded from the real service with --record:
+ * <pre>
+ * IlpStubServer --record &lt;dir&gt; [--source https://ilp-rest-2024.azurewebsites.net]
+ * IlpStubServer --fixtures &lt;dir&gt; [--port 8089] [--latency-ms 50] [--jitter-ms 20] [--threads 32]
+ * </pre>
+ */
+public class IlpStubServer {
+
+    static final String DEFAULT_SOURCE = "https://ilp-rest-2024.azurewebsites.net";
+
+    static final String RESTAURANTS_FILE = "restaurants.json";
+    static final String CENTRAL_AREA_FILE = "centralArea.json";
+    static final String NO_FLY_ZONES_FILE = "noFlyZones.json";
+
+    private static final Map<String, String> FIXTURE_PATHS = Map.of(
+            RESTAURANTS_FILE, "/restaurants",
+            CENTRAL_AREA_FILE, "/centralArea",
+            NO_FLY_ZONES_FILE, "/noFlyZones");
+
+    private final byte[] restaurants;
+    private final byte[] centralArea;
+    private final byte[] noFlyZones;
+    private final Map<String, byte[]> restaurantLocations = new HashMap<>();
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param fixtures      the directory holding the recorded fixtures
+     * @param port          the port to listen on, 0 for any free port
+     * @param latencyMillis the delay added to every response
+     * @param jitterMillis  up to this much more delay, chosen uniformly per response
+     * @param threads       how many requests may be served (and delayed) at the same time
+     */
+    public IlpStubServer(Path fixtures, int port, long latencyMillis, long jitterMillis, int threads) throws IOException {
+        this.restaurants = Files.readAllBytes(fixtures.resolve(RESTAURANTS_FILE));
+        this.centralArea = Files.readAllBytes(fixtures.resolve(CENTRAL_AREA_FILE));
+        this.noFlyZones = Files.readAllBytes(fixtures.resolve(NO_FLY_ZONES_FILE));
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        for (JsonNode restaurant : objectMapper.readTree(restaurants)) {
+            restaurantLocations.put(restaurant.path("name").asText(), objectMapper.writeValueAsBytes(restaurant.path("location")));
+        }
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/restaurants", this::handleRestaurants);
+        server.createContext("/centralArea", exchange -> respond(exchange, 200, centralArea));
+        server.createContext("/noFlyZones", exchange -> respond(exchange, 200, noFlyZones));
+        server.createContext("/isAlive", exchange -> respond(exchange, 200, "true".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return the port the server listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleRestaurants(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/restaurants") || path.equals("/restaurants/")) {
+            respond(exchange, 200, restaurants);
+            return;
+        }
+        String name = URLDecoder.decode(path.substring("/restaurants/".length()), StandardCharsets.UTF_8);
+        byte[] location = restaurantLocations.get(name);
+        if (location == null) {
+            respond(exchange, 404, ("Unknown restaurant " + name).getBytes(StandardCharsets.UTF_8));
+        } else {
+            respond(exchange, 200, location);
+        }
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (exchange) {
+            long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0);
+            if (delay > 0) {
+                TimeUnit.MILLISECONDS.sleep(delay);
+            }
+            exchange.getResponseHeaders().set("Content-Type", status == 200 ? "application/json" : "text/plain");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Records the fixtures from the real service.
+     * @param source   the base URL of the ILP service
+     * @param fixtures the directory to write the fixtures to
+     */
+    static void record(String source, Path fixtures) throws IOException, InterruptedException {
+        Files.createDirectories(fixtures);
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+        for (Map.Entry<String, String> fixture : FIXTURE_PATHS.entrySet()) {
+            URI uri = URI.create(source + fixture.getValue());
+            HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new IOException("GET " + uri + " returned " + response.statusCode());
+            }
+            Files.write(fixtures.resolve(fixture.getKey()), response.body());
+            System.out.println("Recorded " + uri + " to " + fixtures.resolve(fixture.getKey()));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = Arguments.parse(args);
+        if (arguments.has("record")) {
+            record(arguments.get("source", DEFAULT_SOURCE), Path.of(arguments.get("record", null)));
+            return;
+        }
+        String fixtures = arguments.get("fixtures", null);
+        if (fixtures == null) {
+            System.err.println("Usage: IlpStubServer --fixtures <dir> [--port 8089] [--latency-ms 50] [--jitter-ms 20] [--threads 32]");
+            System.err.println("       IlpStubServer --record <dir> [--source " + DEFAULT_SOURCE + "]");
+            System.exit(2);
+        }
+        IlpStubServer stub = new IlpStubServer(Path.of(fixtures),
+                arguments.getInt("port", 8089),
+                arguments.getInt("latency-ms", 50),
+                arguments.getInt("jitter-ms", 20),
+                arguments.getInt("threads", 32));
+        stub.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        System.out.println("ILP stub serving " + fixtures + " on http://localhost:" + stub.getPort());
+    }
+}
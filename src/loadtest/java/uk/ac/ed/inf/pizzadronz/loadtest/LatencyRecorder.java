@@ -0,0 +1,82 @@
+package uk.ac.ed.inf.pizzadronz.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Collects the latencies and outcomes of one endpoint's requests. Latencies are kept exactly (a long
+ * per request), which is fine for the few million requests of a load test run.
+ */
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private int clientErrors;
+    private int serverErrors;
+    private int failures;
+
+    /**
+     * @param nanos  from when the request should have been sent until the response arrived
+     * @param status the HTTP status, or -1 if the request failed without a response
+     */
+    synchronized void record(long nanos, int status) {
+        if (status < 0) {
+            failures++;
+            return;
+        }
+        if (status >= 500) {
+            serverErrors++;
+        } else if (status >= 400) {
+            clientErrors++;
+        }
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+
+    synchronized Snapshot snapshot() {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Snapshot(sorted, clientErrors, serverErrors, failures);
+    }
+
+    record Snapshot(long[] sortedLatencies, int clientErrors, int serverErrors, int failures) {
+
+        int responses() {
+            return sortedLatencies.length;
+        }
+
+        /**
+         * @param quantile between 0 and 1
+         * @return the latency at the quantile in milliseconds (nearest rank), NaN without responses
+         */
+        double percentileMillis(double quantile) {
+            if (sortedLatencies.length == 0) {
+                return Double.NaN;
+            }
+            int rank = (int) Math.ceil(quantile * sortedLatencies.length);
+            return sortedLatencies[Math.max(0, Math.min(rank, sortedLatencies.length) - 1)] / 1e6;
+        }
+
+        static Snapshot merge(Iterable<Snapshot> snapshots) {
+            int total = 0;
+            for (Snapshot snapshot : snapshots) {
+                total += snapshot.sortedLatencies.length;
+            }
+            long[] merged = new long[total];
+            int position = 0;
+            int clientErrors = 0;
+            int serverErrors = 0;
+            int failures = 0;
+            for (Snapshot snapshot : snapshots) {
+                System.arraycopy(snapshot.sortedLatencies, 0, merged, position, snapshot.sortedLatencies.length);
+                position += snapshot.sortedLatencies.length;
+                clientErrors += snapshot.clientErrors;
+                serverErrors += snapshot.serverErrors;
+                failures += snapshot.failures;
+            }
+            Arrays.sort(merged);
+            return new Snapshot(merged, clientErrors, serverErrors, failures);
+        }
+    }
+}
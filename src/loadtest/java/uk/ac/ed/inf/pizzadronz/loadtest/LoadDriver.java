@@ -0,0 +1,154 @@
+package uk.ac.ed.inf.pizzadronz.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a weighted mix of requests against all endpoints of a running application at a fixed
+ * target rate and reports throughput and p50/p99/p99.9 latency per endpoint.
+ *
+ * The load is open loop: requests are sent on schedule whether or not earlier ones have completed,
+ * and latency is measured from when a request was due, so a stalled server shows up in the tail
+ * instead of silently lowering the rate. Requests that would exceed --max-in-flight are dropped and
+ * counted. Requests due during the warm-up are sent but not reported.
+ * <pre>
+ * LoadDriver --fixtures &lt;dir&gt; [--target http://localhost:8080] [--rate 100] [--duration-s 60]
+ *            [--warmup-s 10] [--max-in-flight 512] [--seed 1] [--mix distanceTo=15,...]
+ * </pre>
+ * The fixtures are the ones served by {@link IlpStubServer}.
+ */
+public class LoadDriver {
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = Arguments.parse(args);
+        String fixtures = arguments.get("fixtures", null);
+        if (fixtures == null) {
+            System.err.println("Usage: LoadDriver --fixtures <dir> [--target http://localhost:8080] [--rate 100] [--duration-s 60]"
+                    + " [--warmup-s 10] [--max-in-flight 512] [--seed 1] [--mix " + RequestMix.DEFAULT_MIX + "]");
+            System.exit(2);
+        }
+        long seed = arguments.getInt("seed", 1);
+        List<RequestMix.Endpoint> endpoints = new RequestMix(Path.of(fixtures), seed)
+                .endpoints(arguments.get("mix", RequestMix.DEFAULT_MIX));
+
+        new LoadDriver(URI.create(arguments.get("target", "http://localhost:8080")), endpoints, seed)
+                .run(arguments.getInt("rate", 100), arguments.getInt("duration-s", 60),
+                        arguments.getInt("warmup-s", 10), arguments.getInt("max-in-flight", 512));
+    }
+
+    private final URI target;
+    private final List<RequestMix.Endpoint> endpoints;
+    private final int[] cumulativeWeights;
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private final Random random;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newFixedThreadPool(4, task -> {
+                Thread thread = new Thread(task, "load-driver-client");
+                thread.setDaemon(true);
+                return thread;
+            }))
+            .build();
+
+    LoadDriver(URI target, List<RequestMix.Endpoint> endpoints, long seed) {
+        this.target = target;
+        this.endpoints = endpoints;
+        this.random = new Random(seed);
+        this.cumulativeWeights = new int[endpoints.size()];
+        int total = 0;
+        for (int i = 0; i < endpoints.size(); i++) {
+            total += endpoints.get(i).weight();
+            cumulativeWeights[i] = total;
+            recorders.put(endpoints.get(i).path(), new LatencyRecorder());
+        }
+    }
+
+    void run(int rate, int durationSeconds, int warmupSeconds, int maxInFlight) throws InterruptedException {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicInteger dropped = new AtomicInteger();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long requests = (long) rate * (warmupSeconds + durationSeconds);
+        long warmupRequests = (long) rate * warmupSeconds;
+
+        System.out.printf("Sending %d requests/s to %s for %ds (+%ds warm-up)%n", rate, target, durationSeconds, warmupSeconds);
+        long startTime = System.nanoTime();
+        for (long i = 0; i < requests; i++) {
+            long due = startTime + i * intervalNanos;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            RequestMix.Endpoint endpoint = pickEndpoint();
+            boolean measured = i >= warmupRequests;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    dropped.incrementAndGet();
+                }
+                continue;
+            }
+            byte[] body = endpoint.bodies().get(random.nextInt(endpoint.bodies().size()));
+            HttpRequest request = HttpRequest.newBuilder(target.resolve(endpoint.path()))
+                    .timeout(Duration.ofSeconds(60))
+                    .header("Content-Type", endpoint.contentType())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+            LatencyRecorder recorder = recorders.get(endpoint.path());
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                inFlight.release();
+                if (measured) {
+                    recorder.record(System.nanoTime() - due, failure == null ? response.statusCode() : -1);
+                }
+            });
+        }
+        long measuredFrom = startTime + warmupRequests * intervalNanos;
+        // Let the last requests finish before reporting
+        inFlight.tryAcquire(maxInFlight, 60, TimeUnit.SECONDS);
+        report((System.nanoTime() - measuredFrom) / 1e9, dropped.get());
+    }
+
+    private RequestMix.Endpoint pickEndpoint() {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return endpoints.get(i);
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private void report(double seconds, int dropped) {
+        String format = "%-28s %9s %9s %6s %6s %6s %9s %9s %9s %9s%n";
+        String rowFormat = "%-28s %9d %9.1f %6d %6d %6d %9.2f %9.2f %9.2f %9.2f%n";
+        System.out.printf(format, "endpoint", "responses", "req/s", "4xx", "5xx", "failed", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        List<LatencyRecorder.Snapshot> snapshots = new ArrayList<>();
+        for (Map.Entry<String, LatencyRecorder> recorder : recorders.entrySet()) {
+            LatencyRecorder.Snapshot snapshot = recorder.getValue().snapshot();
+            snapshots.add(snapshot);
+            printRow(rowFormat, recorder.getKey(), snapshot, seconds);
+        }
+        printRow(rowFormat, "all", LatencyRecorder.Snapshot.merge(snapshots), seconds);
+        System.out.printf("%d requests dropped (too many in flight) over %.1fs%n", dropped, seconds);
+    }
+
+    private static void printRow(String format, String name, LatencyRecorder.Snapshot snapshot, double seconds) {
+        System.out.printf(format, name, snapshot.responses(), snapshot.responses() / seconds,
+                snapshot.clientErrors(), snapshot.serverErrors(), snapshot.failures(),
+                snapshot.percentileMillis(0.50), snapshot.percentileMillis(0.99),
+                snapshot.percentileMillis(0.999), snapshot.percentileMillis(1.0));
+    }
+}
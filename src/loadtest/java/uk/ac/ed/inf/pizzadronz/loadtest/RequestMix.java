@@ -0,0 +1,220 @@
+package uk.ac.ed.inf.pizzadronz.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import uk.ac.ed.inf.pizzadronz.RestController;
+import uk.ac.ed.inf.pizzadronz.constant.OrderStatus;
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.constant.SystemConstants;
+import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.LngLatPairRequest;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds the requests the load driver replays, all derived from the recorded fixtures: orders use
+ * the recorded restaurants and menus, positions are spread over the recorded central area.
+ * Every endpoint gets a pool of request bodies up front so sending costs no serialization.
+ */
+final class RequestMix {
+
+    /**
+     * one endpoint of the application and the bodies to post to it
+     */
+    record Endpoint(String path, String contentType, List<byte[]> bodies, int weight) {
+    }
+
+    static final String DEFAULT_MIX = "distanceTo=15,isCloseTo=10,nextPosition=15,isInRegion=10,"
+            + "validateOrder=30,validateOrders=5,calcDeliveryPath=10,calcDeliveryPathAsGeoJson=5";
+
+    private static final int BODIES_PER_ENDPOINT = 256;
+    private static final int ORDERS_PER_BATCH = 20;
+    private static final String VALID_CARD_NUMBER = "1234567812345670";
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Random random;
+    private final List<Restaurant> restaurants;
+    private final Region centralArea;
+    private final double minLng, minLat, maxLng, maxLat;
+
+    RequestMix(Path fixtures, long seed) throws IOException {
+        this.random = new Random(seed);
+        this.restaurants = List.of(objectMapper.readValue(fixtures.resolve(IlpStubServer.RESTAURANTS_FILE).toFile(), Restaurant[].class));
+        this.centralArea = objectMapper.readValue(fixtures.resolve(IlpStubServer.CENTRAL_AREA_FILE).toFile(), Region.class);
+        if (restaurants.isEmpty() || centralArea.getVertices() == null || centralArea.getVertices().isEmpty()) {
+            throw new IllegalArgumentException("The fixtures in " + fixtures + " have no restaurants or no central area");
+        }
+        double lngLow = Double.MAX_VALUE, latLow = Double.MAX_VALUE, lngHigh = -Double.MAX_VALUE, latHigh = -Double.MAX_VALUE;
+        for (LngLat vertex : centralArea.getVertices()) {
+            lngLow = Math.min(lngLow, vertex.lng());
+            latLow = Math.min(latLow, vertex.lat());
+            lngHigh = Math.max(lngHigh, vertex.lng());
+            latHigh = Math.max(latHigh, vertex.lat());
+        }
+        minLng = lngLow;
+        minLat = latLow;
+        maxLng = lngHigh;
+        maxLat = latHigh;
+    }
+
+    /**
+     * @param mix comma separated endpoint=weight pairs, e.g. {@link #DEFAULT_MIX}
+     * @return the endpoints with a non-zero weight
+     */
+    List<Endpoint> endpoints(String mix) throws IOException {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected endpoint=weight but got " + entry);
+            }
+            weights.put(pair[0], Integer.parseInt(pair[1]));
+        }
+        List<Endpoint> endpoints = new ArrayList<>();
+        for (Map.Entry<String, Integer> weight : weights.entrySet()) {
+            if (weight.getValue() > 0) {
+                endpoints.add(endpoint(weight.getKey(), weight.getValue()));
+            }
+        }
+        return endpoints;
+    }
+
+    private Endpoint endpoint(String name, int weight) throws IOException {
+        List<byte[]> bodies = new ArrayList<>(BODIES_PER_ENDPOINT);
+        String contentType = "application/json";
+        for (int i = 0; i < BODIES_PER_ENDPOINT; i++) {
+            Object body = switch (name) {
+                case "distanceTo", "isCloseTo" -> pair(randomPosition(), random.nextBoolean() ? randomPosition() : nearby());
+                case "nextPosition" -> nextPosition(randomPosition(), 22.5 * random.nextInt(16));
+                case "isInRegion" -> isInRegion(randomPosition());
+                case "validateOrder" -> mixedOrder(i);
+                case "validateOrders" -> null;
+                case "calcDeliveryPath" -> validOrder(i);
+                case "calcDeliveryPathAsGeoJson" -> validatedOrder(i);
+                default -> throw new IllegalArgumentException("Unknown endpoint " + name);
+            };
+            if (body == null) {
+                contentType = RestController.APPLICATION_NDJSON;
+                bodies.add(orderBatch(i));
+            } else {
+                bodies.add(objectMapper.writeValueAsBytes(body));
+            }
+        }
+        return new Endpoint("/" + name, contentType, bodies, weight);
+    }
+
+    private byte[] orderBatch(int index) throws IOException {
+        StringBuilder batch = new StringBuilder();
+        for (int i = 0; i < ORDERS_PER_BATCH; i++) {
+            batch.append(objectMapper.writeValueAsString(mixedOrder(index * ORDERS_PER_BATCH + i))).append('\n');
+        }
+        return batch.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private LngLat randomPosition() {
+        return new LngLat(minLng + random.nextDouble() * (maxLng - minLng), minLat + random.nextDouble() * (maxLat - minLat));
+    }
+
+    private LngLat nearby() {
+        LngLat base = randomPosition();
+        return new LngLat(base.lng() + (random.nextDouble() - 0.5) * SystemConstants.DRONE_IS_CLOSE_DISTANCE, base.lat());
+    }
+
+    private static LngLatPairRequest pair(LngLat first, LngLat second) {
+        LngLatPairRequest request = new LngLatPairRequest();
+        request.setPosition1(first);
+        request.setPosition2(second);
+        return request;
+    }
+
+    // NextPositionRequest is read-only, so its JSON is built directly
+    private static Map<String, Object> nextPosition(LngLat start, double angle) {
+        return Map.of("start", start, "angle", angle);
+    }
+
+    private IsInRegionRequest isInRegion(LngLat position) {
+        IsInRegionRequest request = new IsInRegionRequest();
+        request.setPosition(position);
+        request.setRegion(centralArea);
+        return request;
+    }
+
+    /**
+     * @return mostly valid orders, every fourth one invalid for one of several reasons
+     */
+    private Order mixedOrder(int index) {
+        Order order = validOrder(index);
+        if (index % 4 != 3) {
+            return order;
+        }
+        switch ((index / 4) % 4) {
+            case 0 -> order.setCreditCardInformation(new CreditCardInformation("1234567812345678",
+                    order.getCreditCardInformation().getCreditCardExpiry(), "123"));
+            case 1 -> order.setPriceTotalInPence(order.getPriceTotalInPence() + 1);
+            case 2 -> {
+                Pizza[] pizzas = Arrays.copyOf(order.getPizzasInOrder(), order.getPizzasInOrder().length);
+                pizzas[0] = new Pizza(pizzas[0].name() + " (off the menu)", pizzas[0].priceInPence());
+                order.setPizzasInOrder(pizzas);
+            }
+            default -> {
+                Pizza[] pizzas = new Pizza[SystemConstants.MAX_PIZZAS_PER_ORDER + 1];
+                Arrays.fill(pizzas, order.getPizzasInOrder()[0]);
+                order.setPizzasInOrder(pizzas);
+                order.setPriceTotalInPence(SystemConstants.ORDER_CHARGE_IN_PENCE + pizzas.length * pizzas[0].priceInPence());
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return an order of one or two pizzas from one restaurant, dated on a day it is open
+     */
+    private Order validOrder(int index) {
+        Restaurant restaurant = restaurants.get(index % restaurants.size());
+        int pizzaCount = Math.min(restaurant.menu().length, 1 + random.nextInt(2));
+        Pizza[] pizzas = new Pizza[pizzaCount];
+        int total = SystemConstants.ORDER_CHARGE_IN_PENCE;
+        for (int i = 0; i < pizzaCount; i++) {
+            pizzas[i] = restaurant.menu()[random.nextInt(restaurant.menu().length)];
+            total += pizzas[i].priceInPence();
+        }
+        String expiry = LocalDate.now().plusYears(1).format(DateTimeFormatter.ofPattern("MM/yy"));
+        CreditCardInformation card = new CreditCardInformation(VALID_CARD_NUMBER, expiry, String.format("%03d", random.nextInt(1000)));
+        return new Order(String.format("%08X", random.nextInt()), openingDay(restaurant), total, pizzas, card);
+    }
+
+    private Order validatedOrder(int index) {
+        Order order = validOrder(index);
+        order.setOrderStatus(OrderStatus.VALID);
+        order.setOrderValidationCode(OrderValidationCode.NO_ERROR);
+        return order;
+    }
+
+    private static LocalDate openingDay(Restaurant restaurant) {
+        LocalDate day = LocalDate.now();
+        for (int i = 0; i < 7; i++, day = day.plusDays(1)) {
+            if (Arrays.asList(restaurant.openingDays()).contains(day.getDayOfWeek())) {
+                return day;
+            }
+        }
+        return LocalDate.now();
+    }
+}
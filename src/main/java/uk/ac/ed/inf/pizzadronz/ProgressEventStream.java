@@ -0,0 +1,93 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.ac.ed.inf.pizzadronz.service.PathSearchListener;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The events of one /calcDeliveryPathProgress stream, sent on the sender executor so the search never
+ * waits for the client. Only the latest progress is kept: progress reported while an event is being
+ * sent replaces the one waiting, so a slow client sees fewer progress events rather than holding up
+ * the search. The search is cancelled once the stream is closed, i.e. the emitter completed, timed
+ * out or failed, or a send failed because the client went away.
+ */
+class ProgressEventStream implements PathSearchListener {
+
+    private record Event(String name, Object data) {
+    }
+
+    private final SseEmitter emitter;
+    private final Executor sender;
+    private final AtomicReference<Progress> latestProgress = new AtomicReference<>();
+    private final AtomicReference<Event> finalEvent = new AtomicReference<>();
+    private final AtomicBoolean sending = new AtomicBoolean();
+    private volatile boolean closed;
+
+    ProgressEventStream(SseEmitter emitter, Executor sender) {
+        this.emitter = emitter;
+        this.sender = sender;
+        emitter.onCompletion(() -> closed = true);
+        emitter.onTimeout(() -> closed = true);
+        emitter.onError(e -> closed = true);
+    }
+
+    @Override
+    public void onProgress(Progress progress) {
+        latestProgress.set(progress);
+        scheduleSend();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return closed;
+    }
+
+    /**
+     * Sends the event after any progress still waiting, then completes the stream.
+     */
+    void finish(String name, Object data) {
+        finalEvent.set(new Event(name, data));
+        scheduleSend();
+    }
+
+    private void scheduleSend() {
+        if (!closed && sending.compareAndSet(false, true)) {
+            sender.execute(this::send);
+        }
+    }
+
+    private void send() {
+        try {
+            Progress progress;
+            while (!closed && (progress = latestProgress.getAndSet(null)) != null) {
+                send("progress", progress);
+            }
+            Event last = finalEvent.getAndSet(null);
+            if (!closed && last != null) {
+                send(last.name(), last.data());
+                closed = true;
+                emitter.complete();
+            }
+        } finally {
+            sending.set(false);
+        }
+        // Events reported after the loop above but before sending was cleared
+        if (latestProgress.get() != null || finalEvent.get() != null) {
+            scheduleSend();
+        }
+    }
+
+    private void send(String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // The client went away; stop the search
+            closed = true;
+        }
+    }
+}
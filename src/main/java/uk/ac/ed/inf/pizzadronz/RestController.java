@@ -1,30 +1,78 @@
 package uk.ac.ed.inf.pizzadronz;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import uk.ac.ed.inf.pizzadronz.constant.OrderStatus;
 import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
 import uk.ac.ed.inf.pizzadronz.data.*;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.BinaryPathEncoder;
 import uk.ac.ed.inf.pizzadronz.gsonUtils.GeoJsonExporter;
+import uk.ac.ed.inf.pizzadronz.monitoring.ServerTiming;
+import uk.ac.ed.inf.pizzadronz.service.BatchOrderValidationService;
 import uk.ac.ed.inf.pizzadronz.service.Calculations;
 import uk.ac.ed.inf.pizzadronz.service.InputValidator;
+import uk.ac.ed.inf.pizzadronz.service.OrderValidationService;
 import uk.ac.ed.inf.pizzadronz.service.PathCalculationService;
+import uk.ac.ed.inf.pizzadronz.service.PathResponseCache;
+import uk.ac.ed.inf.pizzadronz.service.RouteKey;
 import uk.ac.ed.inf.pizzadronz.service.Polygon;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @org.springframework.web.bind.annotation.RestController
 public class RestController {
 
-    public static final Double DISTANCE = 0.00015;
+    public static final double DISTANCE = 0.00015;
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+    private static final MediaType BINARY_PATH = MediaType.parseMediaType(BinaryPathEncoder.MEDIA_TYPE);
+
     private final PathCalculationService pathCalculationService;
+    private final BatchOrderValidationService batchOrderValidationService;
+    private final OrderValidationService orderValidationService;
+    private final PathResponseCache pathResponseCache;
+    private final ObjectMapper objectMapper;
+    private final int geoJsonPrecision;
+    private final int plannerRetryAfterSeconds;
+    private final Executor progressEventExecutor;
 
-    public RestController(PathCalculationService pathCalculationService) {
+    public RestController(PathCalculationService pathCalculationService, BatchOrderValidationService batchOrderValidationService,
+                          OrderValidationService orderValidationService, PathResponseCache pathResponseCache,
+                          ObjectMapper objectMapper,
+                          @Value("${pizzadronz.geojson.coordinate-precision:-1}") int geoJsonPrecision,
+                          @Value("${pizzadronz.planner.retry-after-seconds:1}") int plannerRetryAfterSeconds,
+                          @Qualifier("progressEventExecutor") Executor progressEventExecutor) {
         this.pathCalculationService = pathCalculationService;
+        this.batchOrderValidationService = batchOrderValidationService;
+        this.orderValidationService = orderValidationService;
+        this.pathResponseCache = pathResponseCache;
+        this.objectMapper = objectMapper;
+        this.geoJsonPrecision = geoJsonPrecision;
+        this.plannerRetryAfterSeconds = plannerRetryAfterSeconds;
+        this.progressEventExecutor = progressEventExecutor;
     }
 
     @GetMapping("/uuid")
@@ -40,9 +88,9 @@ public class RestController {
                     .body("Invalid positions data");
         }
 
-        Double distance = Calculations.calculateEuclideanDistance(
-                request.getPosition1().getLng(), request.getPosition1().getLat(),
-                request.getPosition2().getLng(), request.getPosition2().getLat()
+        double distance = Calculations.calculateEuclideanDistance(
+                request.getPosition1().lng(), request.getPosition1().lat(),
+                request.getPosition2().lng(), request.getPosition2().lat()
         );
 
         return ResponseEntity.ok(distance);
@@ -56,9 +104,9 @@ public class RestController {
                     .body("Invalid positions data");
         }
 
-        Double distance = Calculations.calculateEuclideanDistance(
-                request.getPosition1().getLng(), request.getPosition1().getLat(),
-                request.getPosition2().getLng(), request.getPosition2().getLat()
+        double distance = Calculations.calculateEuclideanDistance(
+                request.getPosition1().lng(), request.getPosition1().lat(),
+                request.getPosition2().lng(), request.getPosition2().lat()
         );
         if (distance < DISTANCE) {
             return ResponseEntity.ok(true);
@@ -73,7 +121,7 @@ public class RestController {
                     .body("Invalid positions data");
         }
 
-        LngLat nextPosition = Calculations.calculateNextPosition(request.getStart().getLng(), request.getStart().getLat(), request.getAngle());
+        LngLat nextPosition = Calculations.calculateNextPosition(request.getStart().lng(), request.getStart().lat(), request.getAngle());
         return ResponseEntity.ok(nextPosition);
     }
 
@@ -90,48 +138,313 @@ public class RestController {
 
     @PostMapping("/validateOrder")
     public ResponseEntity<?> validateOrder(@RequestBody Order request) {
-        if (request == null || InputValidator.isNotValidOrder(request)) {
-            assert request != null;
-            OrderValidationResult result = new OrderValidationResult(request.getOrderStatus(), request.getOrderValidationCode());
+        OrderValidationResult result = orderValidationService.validate(request);
+        if (!result.isValid()) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(result);
         }
         else {
-            OrderValidationResult result = new OrderValidationResult(request.getOrderStatus(), request.getOrderValidationCode());
             return ResponseEntity.ok(result);
         }
     }
 
+    /**
+     * Per-rule invocation, rejection and latency counters of order validation.
+     */
+    @GetMapping("/validationRuleStats")
+    public List<ValidationRuleStatistics> validationRuleStats() {
+        return InputValidator.getOrderRuleStatistics();
+    }
+
+    /**
+     * Validates a batch of orders sent as newline-delimited JSON and streams back one
+     * OrderValidationResult per line, in the same order.
+     */
+    @PostMapping(value = "/validateOrders", consumes = APPLICATION_NDJSON, produces = APPLICATION_NDJSON)
+    public void validateOrders(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        batchOrderValidationService.validate(request.getInputStream(), response.getOutputStream());
+    }
+
+    /**
+     * Calculates the delivery path as a JSON list of points, or in the compact binary format
+     * (see {@link BinaryPathEncoder}) if the client accepts {@value BinaryPathEncoder#MEDIA_TYPE}.
+     *
+     * The search runs on the path planning executor, not on the request thread. If the planner is
+     * saturated the request is answered at once with 503 and a Retry-After header.
+     * Responses carry a strong ETag for the route (see {@link RouteKey}); a matching If-None-Match
+     * is answered with 304 and a recently served route from memory, in both cases without planning.
+     */
     @PostMapping("/calcDeliveryPath")
-    public ResponseEntity<?> calcDeliveryPath(@RequestBody Order request) {
-        if (request == null || InputValidator.isNotValidOrder(request)) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid order");
+    public CompletableFuture<ResponseEntity<?>> calcDeliveryPath(@RequestBody Order request, @RequestHeader HttpHeaders headers) {
+        ServerTiming timing = new ServerTiming();
+        long validateStart = System.nanoTime();
+        boolean valid = request != null && orderValidationService.validate(request).isValid();
+        timing.recordSince(ServerTiming.Phase.VALIDATE, validateStart);
+        if (!valid) {
+            return CompletableFuture.completedFuture(withTiming(ResponseEntity.status(HttpStatus.BAD_REQUEST), timing).body("Invalid order"));
         }
-        else {
-            List<LngLat> result = pathCalculationService.calcDeliveryPath(request);
-            return ResponseEntity.ok(result);
+
+        boolean binary = acceptsBinaryPath(headers);
+        String representation = binary ? "bin" : "json";
+        ResponseEntity<?> cached = cachedPathResponse(pathCalculationService.currentRouteKey(request), representation, headers, timing);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        CompletableFuture<DeliveryPath> plan;
+        try {
+            plan = pathCalculationService.planDeliveryPathAsync(request, timing);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(withTiming(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE), timing)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(plannerRetryAfterSeconds))
+                    .body("Path planning is at capacity, please retry later"));
+        }
+
+        return plan.thenApply(result -> {
+            long serializeStart = System.nanoTime();
+            RouteKey route = pathCalculationService.routeKey(result);
+            if (route == null) {
+                Object body = binary ? BinaryPathEncoder.encode(result) : toJson(result.path());
+                timing.recordSince(ServerTiming.Phase.SERIALIZE, serializeStart);
+                return withTiming(ResponseEntity.ok(), timing)
+                        .contentType(binary ? BINARY_PATH : MediaType.APPLICATION_JSON)
+                        .body(body);
+            }
+            String etag = route.etag(representation);
+            PathResponseCache.Entry entry = binary
+                    ? pathResponseCache.put(etag, BinaryPathEncoder.MEDIA_TYPE, BinaryPathEncoder.encode(result))
+                    : pathResponseCache.put(etag, MediaType.APPLICATION_JSON_VALUE, toJson(result.path()));
+            timing.recordSince(ServerTiming.Phase.SERIALIZE, serializeStart);
+            return pathResponse(etag, entry, headers, timing);
+        });
+    }
+
+    /**
+     * Calculates the delivery path and streams the search as Server-Sent Events: "progress" events
+     * (nodes expanded, best f-cost, best partial path so far) while it runs, then a single "path"
+     * event with the result, or an "error" event. Events are sent off the planner thread and a slow client
+     * only gets the latest progress. Closing the stream, or its timing out, cancels the search.
+     */
+    @PostMapping(value = "/calcDeliveryPathProgress", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> calcDeliveryPathProgress(@RequestBody Order request) {
+        if (request == null || !orderValidationService.validate(request).isValid()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+        }
+
+        // Times out after spring.mvc.async.request-timeout
+        SseEmitter emitter = new SseEmitter();
+        ProgressEventStream events = new ProgressEventStream(emitter, progressEventExecutor);
+
+        CompletableFuture<DeliveryPath> plan;
+        try {
+            plan = pathCalculationService.planDeliveryPathAsync(request, events);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(plannerRetryAfterSeconds))
+                    .build();
         }
+
+        // Nothing is sent once the stream is closed (this is also how a cancelled search ends)
+        plan.whenComplete((result, failure) -> {
+            if (failure == null) {
+                events.finish("path", result);
+            } else {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+                events.finish("error", String.valueOf(cause.getMessage()));
+            }
+        });
+        return ResponseEntity.ok(emitter);
     }
 
+    private static boolean acceptsBinaryPath(HttpHeaders headers) {
+        String accept = headers.getFirst(HttpHeaders.ACCEPT);
+        if (accept == null || !accept.contains(BinaryPathEncoder.MEDIA_TYPE)) {
+            return false;
+        }
+        try {
+            // Only when asked for explicitly; wildcards keep getting JSON
+            return headers.getAccept().stream()
+                    .anyMatch(type -> type.equalsTypeAndSubtype(BINARY_PATH) && type.getQualityValue() > 0);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Calculates the delivery path as compact GeoJSON, with coordinates rounded to the configured precision.
+     * Planning and 503s work as for {@link #calcDeliveryPath(Order, HttpHeaders)}, and so do ETags and
+     * cached responses. A freshly planned path is written to the response as it is encoded rather than
+     * buffered first.
+     */
     @PostMapping("/calcDeliveryPathAsGeoJson")
-    public ResponseEntity<String> calcDeliveryPathAsGeoJson(@RequestBody Order request) {
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> calcDeliveryPathAsGeoJson(@RequestBody Order request, @RequestHeader HttpHeaders headers) {
         if (request == null || request.getOrderValidationCode() != OrderValidationCode.NO_ERROR || request.getOrderStatus() != OrderStatus.VALID) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Invalid order");
+            return CompletableFuture.completedFuture(plainText(ResponseEntity.status(HttpStatus.BAD_REQUEST), "Invalid order"));
         }
 
-        else {
-            List<LngLat> result = pathCalculationService.calcDeliveryPath(request);
-            if (result.isEmpty()) {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No valid path found.");
-            }
-            // Generate GeoJSON
-            String geoJson = GeoJsonExporter.generateGeoJson(result);
+        ServerTiming timing = new ServerTiming();
+        String representation = geoJsonPrecision == GeoJsonExporter.FULL_PRECISION ? "geojson" : "geojson" + geoJsonPrecision;
+        ResponseEntity<?> cached = cachedPathResponse(pathCalculationService.currentRouteKey(request), representation, headers, timing);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(streamed(cached));
+        }
+
+        CompletableFuture<DeliveryPath> plan;
+        try {
+            plan = pathCalculationService.planDeliveryPathAsync(request, timing);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(plainText(withTiming(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE), timing)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(plannerRetryAfterSeconds)),
+                    "Path planning is at capacity, please retry later"));
+        }
 
-            // Return GeoJSON as the response
-            return ResponseEntity.ok()
+        return plan.thenApply(result -> {
+            RouteKey route = pathCalculationService.routeKey(result);
+            if (route == null) {
+                return plainText(withTiming(ResponseEntity.status(HttpStatus.NOT_FOUND), timing), "No valid path found.");
+            }
+            // Written after the headers, so there is no serialize phase in Server-Timing. The copy is
+            // cached once the whole body is out.
+            String etag = route.etag(representation);
+            StreamingResponseBody geoJson = out -> {
+                CopyingOutputStream copying = new CopyingOutputStream(out, 64 * result.path().size() + 256);
+                GeoJsonExporter.writeGeoJson(result.path(), copying, geoJsonPrecision);
+                pathResponseCache.put(etag, MediaType.APPLICATION_JSON_VALUE, copying.copy());
+            };
+            return withTiming(ResponseEntity.ok(), timing)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(geoJson);
+        });
+    }
+
+    /**
+     * @return 304 if the client already has this route, the cached body if there is one, otherwise null
+     */
+    private ResponseEntity<?> cachedPathResponse(RouteKey route, String representation, HttpHeaders headers, ServerTiming timing) {
+        if (route == null) {
+            return null;
+        }
+        String etag = route.etag(representation);
+        if (matchesIfNoneMatch(etag, headers)) {
+            timing.markCacheHit();
+            return withTiming(ResponseEntity.status(HttpStatus.NOT_MODIFIED), timing)
+                    .eTag(etag)
+                    .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        PathResponseCache.Entry entry = pathResponseCache.get(etag);
+        if (entry == null) {
+            return null;
         }
+        timing.markCacheHit();
+        return pathResponse(etag, entry, headers, timing);
     }
 
+    private static ResponseEntity<byte[]> pathResponse(String etag, PathResponseCache.Entry entry, HttpHeaders headers, ServerTiming timing) {
+        ResponseEntity.BodyBuilder response = withTiming(ResponseEntity.ok(), timing)
+                .eTag(etag)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.parseMediaType(entry.contentType()));
+        if (acceptsGzip(headers)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(entry.gzipBody());
+        }
+        return response.body(entry.body());
+    }
+
+    /**
+     * The same response with its (byte array) body written by Spring's streaming support.
+     */
+    private static ResponseEntity<StreamingResponseBody> streamed(ResponseEntity<?> response) {
+        if (!(response.getBody() instanceof byte[] body)) {
+            return new ResponseEntity<>(response.getHeaders(), response.getStatusCode());
+        }
+        return new ResponseEntity<>(out -> out.write(body), response.getHeaders(), response.getStatusCode());
+    }
+
+    private static ResponseEntity<StreamingResponseBody> plainText(ResponseEntity.BodyBuilder response, String text) {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        return response.contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8)).body(out -> out.write(body));
+    }
+
+    private static <B extends ResponseEntity.HeadersBuilder<B>> B withTiming(B response, ServerTiming timing) {
+        String value = timing.toHeaderValue();
+        return value.isEmpty() ? response : response.header(ServerTiming.HEADER, value);
+    }
+
+    private static boolean matchesIfNoneMatch(String etag, HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.IF_NONE_MATCH)) {
+            for (String tag : value.split(",")) {
+                tag = tag.trim();
+                // If-None-Match uses the weak comparison
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(HttpHeaders headers) {
+        for (String value : headers.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                    continue;
+                }
+                // gzip;q=0 means "not gzip"
+                return parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private byte[] toJson(List<LngLat> path) {
+        try {
+            return objectMapper.writeValueAsBytes(path);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize path", e);
+        }
+    }
+
+
+    /**
+     * Passes everything through and keeps a copy. Closing it only flushes, the response stream stays
+     * open for Spring to finish.
+     */
+    private static final class CopyingOutputStream extends FilterOutputStream {
+        private final ByteArrayOutputStream copy;
+
+        CopyingOutputStream(OutputStream out, int expectedSize) {
+            super(out);
+            this.copy = new ByteArrayOutputStream(expectedSize);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            copy.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        byte[] copy() {
+            return copy.toByteArray();
+        }
+    }
 }
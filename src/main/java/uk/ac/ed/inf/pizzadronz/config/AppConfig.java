@@ -1,13 +1,95 @@
 package uk.ac.ed.inf.pizzadronz.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.ThreadPoolExecutor;
+
 @Configuration
+@EnableScheduling
+@ImportRuntimeHints(NativeRuntimeHints.class)
 public class AppConfig {
+    /**
+     * The client for the ILP service. Its calls time out, as a fetch blocked in socket I/O does not
+     * notice being cancelled and would otherwise hold its reference data thread.
+     */
+    @Bean
+    public RestTemplate restTemplate(@Value("${pizzadronz.ilp.timeout-ms:10000}") int timeoutMillis) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMillis);
+        requestFactory.setReadTimeout(timeoutMillis);
+        return new RestTemplate(requestFactory);
+    }
+
+    /**
+     * Bounded executor for blocking reference data fetches (restaurants, central area, no-fly zones).
+     * When it is saturated the caller runs the fetch itself rather than failing the request.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor referenceDataExecutor(
+            @Value("${pizzadronz.reference-data.fetch-threads:8}") int threads,
+            @Value("${pizzadronz.reference-data.fetch-queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("reference-data-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Executor for CPU bound order validation in batch requests, one thread per core.
+     * Batches bound the number of queued orders themselves.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor orderValidationExecutor(
+            @Value("${pizzadronz.batch-validation.threads:0}") int threads) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("order-validation-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    /**
+     * Bounded executor for CPU bound path planning, one thread per core by default, so expensive
+     * searches never tie up servlet threads. When the queue is full new searches are rejected
+     * (and answered with 503) instead of piling up.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor pathPlanningExecutor(
+            @Value("${pizzadronz.planner.threads:0}") int threads,
+            @Value("${pizzadronz.planner.queue-capacity:32}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("path-planning-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        return executor;
+    }
+
+    /**
+     * Sends /calcDeliveryPathProgress events, so a search never blocks on a slow client. Each stream
+     * has at most one send queued at a time.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ThreadPoolTaskExecutor progressEventExecutor(
+            @Value("${pizzadronz.planner.progress-sender-threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setThreadNamePrefix("progress-events-");
+        return executor;
     }
-}
\ No newline at end of file
+}
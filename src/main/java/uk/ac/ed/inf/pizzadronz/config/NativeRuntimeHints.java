@@ -0,0 +1,48 @@
+package uk.ac.ed.inf.pizzadronz.config;
+
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+import uk.ac.ed.inf.pizzadronz.data.DeliveryPath;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.LngLatPairRequest;
+import uk.ac.ed.inf.pizzadronz.data.NextPositionRequest;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.OrderValidationResult;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.data.ValidationRuleStatistics;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.LocalDateDeserializer;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.LocalDateSerializer;
+import uk.ac.ed.inf.pizzadronz.service.PathSearchListener;
+
+/**
+ * Reflection hints for a GraalVM native image (see the native profile in the pom).
+ *
+ * Spring AOT only infers hints for the types in controller method signatures. The types Jackson
+ * binds elsewhere (the ILP responses read through RestTemplate and ObjectMapper, the bodies
+ * behind ResponseEntity&lt;?&gt;, the SSE progress events) are registered here with everything
+ * Jackson needs to bind them, and the Gson adapters so they can be instantiated reflectively.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    static final Class<?>[] JACKSON_TYPES = {
+            Order.class, CreditCardInformation.class, Pizza.class, Restaurant.class, LngLat.class,
+            IsInRegionRequest.class, IsInRegionRequest.Region.class, LngLatPairRequest.class, NextPositionRequest.class,
+            OrderValidationResult.class, ValidationRuleStatistics.class, DeliveryPath.class,
+            PathSearchListener.Progress.class
+    };
+
+    static final Class<?>[] GSON_ADAPTERS = {LocalDateSerializer.class, LocalDateDeserializer.class};
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JACKSON_TYPES);
+        for (Class<?> adapter : GSON_ADAPTERS) {
+            hints.reflection().registerType(adapter, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package uk.ac.ed.inf.pizzadronz.data;
+
+import java.util.List;
+
+/**
+ * A planned delivery path together with the geometry snapshot it was planned against.
+ *
+ * @param snapshotVersion the version of the reference data geometry used for planning
+ * @param path            the path points, empty if no path was found
+ */
+public record DeliveryPath(long snapshotVersion, List<LngLat> path) {
+}
@@ -3,21 +3,21 @@ package uk.ac.ed.inf.pizzadronz.data;
 import java.util.List;
 
 public class IsInRegionRequest {
-    private Position position;
+    private LngLat position;
     private Region region;
 
-    public Position getPosition() { return position; }
-    public void setPosition(Position position) { this.position = position; }
+    public LngLat getPosition() { return position; }
+    public void setPosition(LngLat position) { this.position = position; }
     public Region getRegion() { return region; }
     public void setRegion(Region region) { this.region = region; }
 
     public static class Region {
         private String name;
-        private List<Position> vertices;
+        private List<LngLat> vertices;
 
         public String getName() { return name; }
         public void setName(String name) { this.name = name; }
-        public List<Position> getVertices() { return vertices; }
-        public void setVertices(List<Position> vertices) { this.vertices = vertices; }
+        public List<LngLat> getVertices() { return vertices; }
+        public void setVertices(List<LngLat> vertices) { this.vertices = vertices; }
     }
 }
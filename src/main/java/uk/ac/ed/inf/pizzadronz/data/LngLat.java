@@ -1,16 +1,16 @@
 package uk.ac.ed.inf.pizzadronz.data;
 
-public class LngLat {
-    private Double lng;
-    private Double lat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
 
-    public LngLat(Double lng, Double lat) {
-        this.lng = lng;
-        this.lat = lat;
-    }
-
-    public Double getLng() { return lng; }
-    public void setLng(Double lng) { this.lng = lng; }
-    public Double getLat() { return lat; }
-    public void setLat(Double lat) { this.lat = lat; }
+/**
+ * an immutable point on the map, compared by value; also the position type of requests and region
+ * vertices, where both coordinates must be present (a missing or null coordinate fails deserialization)
+ * @param lng the longitude
+ * @param lat the latitude
+ */
+public record LngLat(
+        @JsonProperty(required = true) @JsonSetter(nulls = Nulls.FAIL) double lng,
+        @JsonProperty(required = true) @JsonSetter(nulls = Nulls.FAIL) double lat) {
 }
@@ -2,11 +2,11 @@ package uk.ac.ed.inf.pizzadronz.data;
 
 
 public class LngLatPairRequest {
-    private Position position1;
-    private Position position2;
+    private LngLat position1;
+    private LngLat position2;
 
-    public Position getPosition1() {return position1;}
-    public void setPosition1(Position position1) {this.position1 = position1;}
-    public Position getPosition2() {return position2;}
-    public void setPosition2(Position position2) {this.position2 = position2;}
+    public LngLat getPosition1() {return position1;}
+    public void setPosition1(LngLat position1) {this.position1 = position1;}
+    public LngLat getPosition2() {return position2;}
+    public void setPosition2(LngLat position2) {this.position2 = position2;}
 }
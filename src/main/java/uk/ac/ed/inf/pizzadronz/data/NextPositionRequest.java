@@ -1,9 +1,9 @@
 package uk.ac.ed.inf.pizzadronz.data;
 
 public class NextPositionRequest {
-    private Position start;
+    private LngLat start;
     private Double angle;
 
-    public Position getStart() {return start;}
+    public LngLat getStart() {return start;}
     public Double getAngle() {return angle;}
 }
@@ -1,34 +1,34 @@
 package uk.ac.ed.inf.pizzadronz.data;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import uk.ac.ed.inf.pizzadronz.constant.OrderStatus;
 import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
 
 /**
  * Represents the result of validating an order.
+ * @param orderStatus         VALID or INVALID
+ * @param orderValidationCode the reason code (NO_ERROR for a valid order, UNDEFINED if invalid without a specific reason)
  */
-public class OrderValidationResult {
-    private OrderStatus orderStatus;
-    private OrderValidationCode orderValidationCode;
+public record OrderValidationResult(OrderStatus orderStatus, OrderValidationCode orderValidationCode) {
 
-    public OrderValidationResult(OrderStatus orderStatus, OrderValidationCode orderValidationCode) {
-        this.orderStatus = orderStatus;
-        this.orderValidationCode = orderValidationCode;
-    }
-
-    // Getters and setters
-    public OrderStatus getOrderStatus() {
-        return orderStatus;
-    }
-
-    public void setOrderStatus(OrderStatus orderStatus) {
-        this.orderStatus = orderStatus;
-    }
+    /**
+     * the result for a valid order
+     */
+    public static final OrderValidationResult VALID = new OrderValidationResult(OrderStatus.VALID, OrderValidationCode.NO_ERROR);
 
-    public OrderValidationCode getOrderValidationCode() {
-        return orderValidationCode;
+    /**
+     * @param code why the order is invalid
+     * @return an INVALID result with the given reason
+     */
+    public static OrderValidationResult invalid(OrderValidationCode code) {
+        return new OrderValidationResult(OrderStatus.INVALID, code);
     }
 
-    public void setOrderValidationCode(OrderValidationCode orderValidationCode) {
-        this.orderValidationCode = orderValidationCode;
+    /**
+     * @return true if the order is valid
+     */
+    @JsonIgnore
+    public boolean isValid() {
+        return orderStatus == OrderStatus.VALID;
     }
 }
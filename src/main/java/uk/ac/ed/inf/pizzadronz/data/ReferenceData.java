@@ -0,0 +1,33 @@
+package uk.ac.ed.inf.pizzadronz.data;
+
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+
+import java.util.List;
+
+/**
+ * The reference data the service depends on, as last successfully fetched from the ILP service
+ * (or read from local files / an on-disk snapshot).
+ *
+ * @param restaurants the restaurants and their menus
+ * @param centralArea the central area boundary, null if not known yet
+ * @param noFlyZones  the no-fly zones
+ */
+public record ReferenceData(List<Restaurant> restaurants, Region centralArea, List<Region> noFlyZones) {
+
+    /**
+     * reference data with nothing in it - used before anything has been loaded
+     */
+    public static final ReferenceData EMPTY = new ReferenceData(List.of(), null, List.of());
+
+    public ReferenceData withRestaurants(List<Restaurant> restaurants) {
+        return new ReferenceData(restaurants, centralArea, noFlyZones);
+    }
+
+    public ReferenceData withCentralArea(Region centralArea) {
+        return new ReferenceData(restaurants, centralArea, noFlyZones);
+    }
+
+    public ReferenceData withNoFlyZones(List<Region> noFlyZones) {
+        return new ReferenceData(restaurants, centralArea, noFlyZones);
+    }
+}
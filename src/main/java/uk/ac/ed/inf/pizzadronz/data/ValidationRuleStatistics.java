@@ -0,0 +1,15 @@
+package uk.ac.ed.inf.pizzadronz.data;
+
+/**
+ * Counters for one order validation rule.
+ *
+ * @param rule            the rule name
+ * @param costClass       the rule's cost class
+ * @param invocations     how often the rule ran
+ * @param rejections      how often it rejected an order
+ * @param totalNanos      total time spent in the rule
+ * @param meanMicros      average time per invocation in microseconds
+ */
+public record ValidationRuleStatistics(String rule, String costClass, long invocations, long rejections,
+                                       long totalNanos, double meanMicros) {
+}
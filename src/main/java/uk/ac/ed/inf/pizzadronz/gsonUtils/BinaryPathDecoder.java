@@ -0,0 +1,79 @@
+package uk.ac.ed.inf.pizzadronz.gsonUtils;
+
+import uk.ac.ed.inf.pizzadronz.data.DeliveryPath;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the binary path wire format written by {@link BinaryPathEncoder}.
+ * Coordinates come back rounded to 1e-7 degrees.
+ */
+public class BinaryPathDecoder {
+
+    private final byte[] bytes;
+    private int position;
+
+    private BinaryPathDecoder(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Decodes a path.
+     * @param bytes the encoded path
+     * @return the path and the snapshot version it was planned against
+     * @throws IllegalArgumentException if the bytes are not a valid encoded path
+     */
+    public static DeliveryPath decode(byte[] bytes) {
+        return new BinaryPathDecoder(bytes).decode();
+    }
+
+    private DeliveryPath decode() {
+        if (bytes.length < 3 || bytes[0] != BinaryPathEncoder.MAGIC_0 || bytes[1] != BinaryPathEncoder.MAGIC_1) {
+            throw new IllegalArgumentException("Not an encoded path");
+        }
+        if (bytes[2] != BinaryPathEncoder.FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported path format version: " + bytes[2]);
+        }
+        position = 3;
+        long snapshotVersion = readVarint();
+        long count = readVarint();
+        // Every point takes at least two bytes, so a bogus count cannot make us allocate much
+        if (count < 0 || count > (bytes.length - position) / 2) {
+            throw new IllegalArgumentException("Invalid point count: " + count);
+        }
+
+        List<LngLat> path = new ArrayList<>((int) count);
+        long lng = 0;
+        long lat = 0;
+        for (int i = 0; i < count; i++) {
+            lng += unZigZag(readVarint());
+            lat += unZigZag(readVarint());
+            path.add(new LngLat(lng / BinaryPathEncoder.SCALE, lat / BinaryPathEncoder.SCALE));
+        }
+        if (position != bytes.length) {
+            throw new IllegalArgumentException("Trailing bytes after " + count + " points");
+        }
+        return new DeliveryPath(snapshotVersion, path);
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated path");
+            }
+            byte b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,83 @@
+package uk.ac.ed.inf.pizzadronz.gsonUtils;
+
+import uk.ac.ed.inf.pizzadronz.data.DeliveryPath;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes a delivery path into the compact binary wire format served as {@link #MEDIA_TYPE}.
+ *
+ * Layout:
+ * <pre>
+ * byte[2] magic "PD"
+ * byte    format version
+ * varint  snapshot version
+ * varint  point count
+ * then per point: zig-zag varint lng delta, zig-zag varint lat delta
+ * </pre>
+ * Coordinates are fixed point in units of 1e-7 degrees (about 1cm). The first point's deltas are
+ * taken from (0, 0), every later point's from the point before it, so the drone's short moves take
+ * two or three bytes per coordinate. Varints are unsigned LEB128 (7 bits per byte, low bits first).
+ * {@link BinaryPathDecoder} reads the format back.
+ */
+public class BinaryPathEncoder {
+
+    public static final String MEDIA_TYPE = "application/x-pizzadronz-path";
+
+    static final byte MAGIC_0 = 'P';
+    static final byte MAGIC_1 = 'D';
+    static final byte FORMAT_VERSION = 1;
+
+    /**
+     * fixed point units per degree
+     */
+    static final double SCALE = 1e7;
+
+    /**
+     * Encodes a path.
+     * @param deliveryPath the path and the snapshot version it was planned against
+     * @return the encoded bytes
+     */
+    public static byte[] encode(DeliveryPath deliveryPath) {
+        List<LngLat> path = deliveryPath.path();
+        // header + at most 10 bytes per coordinate
+        byte[] buffer = new byte[3 + 10 + 5 + path.size() * 20];
+        int position = 0;
+        buffer[position++] = MAGIC_0;
+        buffer[position++] = MAGIC_1;
+        buffer[position++] = FORMAT_VERSION;
+        position = writeVarint(buffer, position, deliveryPath.snapshotVersion());
+        position = writeVarint(buffer, position, path.size());
+
+        long previousLng = 0;
+        long previousLat = 0;
+        for (LngLat point : path) {
+            long lng = toFixed(point.lng());
+            long lat = toFixed(point.lat());
+            position = writeVarint(buffer, position, zigZag(lng - previousLng));
+            position = writeVarint(buffer, position, zigZag(lat - previousLat));
+            previousLng = lng;
+            previousLat = lat;
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    static long toFixed(double degrees) {
+        return Math.round(degrees * SCALE);
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static int writeVarint(byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+}
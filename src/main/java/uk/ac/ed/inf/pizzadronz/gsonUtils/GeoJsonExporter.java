@@ -1,55 +1,158 @@
 package uk.ac.ed.inf.pizzadronz.gsonUtils;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
 import uk.ac.ed.inf.pizzadronz.data.LngLat;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Writes a flight path as a GeoJSON FeatureCollection holding a single LineString.
+ *
+ * The JSON is streamed token by token through one shared {@link JsonFactory}, so no intermediate
+ * tree, boxed coordinate or string is built per request.
+ */
 public class GeoJsonExporter {
-    public static String generateGeoJson(List<LngLat> path) {
-        if (path == null || path.isEmpty()) {
-            throw new IllegalArgumentException("Path is null or empty. Cannot generate GeoJSON.");
+
+    /**
+     * write coordinates with full double precision (no rounding)
+     */
+    public static final int FULL_PRECISION = -1;
+
+    /**
+     * the most decimal places a coordinate can be rounded to
+     */
+    public static final int MAX_PRECISION = 15;
+
+    // Thread safe; the target stream belongs to the caller, so closing a generator must not close it
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
+    private static final double[] POWERS_OF_TEN = new double[MAX_PRECISION + 1];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i <= MAX_PRECISION; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
         }
+    }
 
-        // Define GeoJSON structure
-        Map<String, Object> geoJson = new HashMap<>();
-        geoJson.put("type", "FeatureCollection");
+    /**
+     * Generates pretty printed GeoJSON for a path, with full precision coordinates.
+     * @param path the path
+     * @return the GeoJSON document
+     */
+    public static String generateGeoJson(List<LngLat> path) {
+        requireNonEmpty(path);
+        StringWriter json = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(json)) {
+            generator.useDefaultPrettyPrinter();
+            writeFeatureCollection(generator, path, FULL_PRECISION);
+        } catch (IOException e) {
+            throw new RuntimeException("Error generating GeoJSON", e);
+        }
+        return json.toString();
+    }
 
-        Map<String, Object> feature = new HashMap<>();
-        feature.put("type", "Feature");
+    /**
+     * Streams compact GeoJSON for a path as UTF-8. The stream is flushed but not closed.
+     * @param path      the path
+     * @param out       where to write the document
+     * @param precision decimal places to round coordinates to (trailing zeros are dropped),
+     *                  or {@link #FULL_PRECISION}
+     */
+    public static void writeGeoJson(List<LngLat> path, OutputStream out, int precision) throws IOException {
+        requireNonEmpty(path);
+        if (precision != FULL_PRECISION && (precision < 0 || precision > MAX_PRECISION)) {
+            throw new IllegalArgumentException("Coordinate precision must be between 0 and " + MAX_PRECISION + ": " + precision);
+        }
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            writeFeatureCollection(generator, path, precision);
+        }
+    }
 
-        Map<String, Object> geometry = new HashMap<>();
-        geometry.put("type", "LineString");
+    private static void writeFeatureCollection(JsonGenerator generator, List<LngLat> path, int precision) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "FeatureCollection");
+        generator.writeArrayFieldStart("features");
 
-        // Ensure coordinates are valid
-        List<List<Double>> coordinates = path.stream()
-                .map(point -> {
-                    if (point.getLng() == null || point.getLat() == null) {
-                        throw new IllegalArgumentException("Invalid LngLat in path: " + point);
-                    }
-                    return List.of(point.getLng(), point.getLat());
-                })
-                .toList();
+        generator.writeStartObject();
+        generator.writeStringField("type", "Feature");
 
-        geometry.put("coordinates", coordinates);
-        feature.put("geometry", geometry);
+        generator.writeObjectFieldStart("geometry");
+        generator.writeStringField("type", "LineString");
+        generator.writeArrayFieldStart("coordinates");
+        char[] buffer = new char[32];
+        for (LngLat point : path) {
+            generator.writeStartArray();
+            writeCoordinate(generator, point.lng(), precision, buffer);
+            writeCoordinate(generator, point.lat(), precision, buffer);
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
 
         // Some properties for metadata
-        Map<String, Object> properties = new HashMap<>();
-        properties.put("pathName", "Drone Flight Path");
-        properties.put("pathLength", path.size());
-        feature.put("properties", properties);
-
-        geoJson.put("features", List.of(feature));
-
-        try {
-            // Serialize GeoJSON to string
-            ObjectMapper objectMapper = new ObjectMapper();
-            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(geoJson);
-        } catch (Exception e) {
-            throw new RuntimeException("Error generating GeoJSON", e);
+        generator.writeObjectFieldStart("properties");
+        generator.writeStringField("pathName", "Drone Flight Path");
+        generator.writeNumberField("pathLength", path.size());
+        generator.writeEndObject();
+
+        generator.writeEndObject();
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+
+    private static void writeCoordinate(JsonGenerator generator, double value, int precision, char[] buffer) throws IOException {
+        if (precision == FULL_PRECISION || !Double.isFinite(value)) {
+            generator.writeNumber(value);
+            return;
+        }
+        int start = formatFixed(value, precision, buffer);
+        generator.writeNumber(buffer, start, buffer.length - start);
+    }
+
+    /**
+     * Formats a value rounded to the given decimal places into the end of the buffer,
+     * without trailing zeros (and without a decimal point for whole numbers).
+     * @return the index of the first character written
+     */
+    static int formatFixed(double value, int precision, char[] buffer) {
+        long scaled = Math.round(value * POWERS_OF_TEN[precision]);
+        int fractionDigits = precision;
+        while (fractionDigits > 0 && scaled % 10 == 0) {
+            scaled /= 10;
+            fractionDigits--;
+        }
+
+        boolean negative = scaled < 0;
+        long magnitude = Math.abs(scaled);
+        int position = buffer.length;
+        int digits = 0;
+        do {
+            buffer[--position] = (char) ('0' + magnitude % 10);
+            magnitude /= 10;
+            digits++;
+            if (digits == fractionDigits) {
+                buffer[--position] = '.';
+            }
+        } while (magnitude > 0 || digits <= fractionDigits);
+
+        if (negative) {
+            buffer[--position] = '-';
+        }
+        return position;
+    }
+
+    private static void requireNonEmpty(List<LngLat> path) {
+        if (path == null || path.isEmpty()) {
+            throw new IllegalArgumentException("Path is null or empty. Cannot generate GeoJSON.");
         }
     }
-}
\ No newline at end of file
+}
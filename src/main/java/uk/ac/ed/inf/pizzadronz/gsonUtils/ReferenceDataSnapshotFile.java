@@ -0,0 +1,293 @@
+package uk.ac.ed.inf.pizzadronz.gsonUtils;
+
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.ReferenceData;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes the on-disk reference data snapshot.
+ *
+ * The file is a flat big-endian binary layout (no JSON parsing on startup) and is read through a
+ * read-only memory mapping:
+ * <pre>
+ * int    magic "PDRS"
+ * short  format version
+ * int    restaurant count, then per restaurant:
+ *          string name, double lng, double lat, byte opening days (bit per DayOfWeek),
+ *          int menu size, then per pizza: string name, int price in pence
+ * region central area (byte 0 if absent)
+ * int    no-fly zone count, then the regions
+ * </pre>
+ * Strings are an int byte length (-1 for null) followed by UTF-8 bytes; a region is a presence byte,
+ * its name and an int vertex count followed by lng/lat double pairs.
+ */
+public class ReferenceDataSnapshotFile {
+
+    private static final int MAGIC = 0x50445253; // "PDRS"
+    private static final short FORMAT_VERSION = 1;
+
+    /**
+     * Encodes the reference data into the snapshot layout.
+     * @param data the data to encode
+     * @return the encoded bytes
+     * @throws IllegalArgumentException if a restaurant, pizza, region or vertex, or a restaurant's
+     * location, opening days or menu is missing
+     */
+    public static byte[] encode(ReferenceData data) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        write(bytes, out -> {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            writeRestaurants(out, data.restaurants());
+            writeRegion(out, data.centralArea());
+            writeRegions(out, data.noFlyZones());
+        });
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A cheap 64 bit hash of the restaurants as they would be encoded, to tell whether they changed
+     * without encoding the whole snapshot.
+     * @throws IllegalArgumentException as {@link #encode(ReferenceData)} does
+     */
+    public static long hashRestaurants(List<Restaurant> restaurants) {
+        return hash(out -> writeRestaurants(out, restaurants));
+    }
+
+    /**
+     * @see #hashRestaurants(List)
+     */
+    public static long hashRegion(Region region) {
+        return hash(out -> writeRegion(out, region));
+    }
+
+    /**
+     * @see #hashRestaurants(List)
+     */
+    public static long hashRegions(List<Region> regions) {
+        return hash(out -> writeRegions(out, regions));
+    }
+
+    /**
+     * A hash of the encoded reference data, the same in every process for the same content.
+     * @param encoded the bytes from {@link #encode(ReferenceData)}
+     * @return the first 63 bits of the SHA-256 digest of the bytes (never negative)
+     */
+    public static long contentHash(byte[] encoded) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(encoded);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        return ByteBuffer.wrap(digest).getLong() & Long.MAX_VALUE;
+    }
+
+    /**
+     * Decodes a snapshot previously produced by {@link #encode(ReferenceData)}.
+     * @param buffer the snapshot contents, positioned at the start
+     * @return the decoded reference data
+     */
+    public static ReferenceData decode(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a reference data snapshot");
+        }
+        short version = buffer.getShort();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported reference data snapshot version: " + version);
+        }
+
+        int restaurantCount = buffer.getInt();
+        List<Restaurant> restaurants = new ArrayList<>(restaurantCount);
+        for (int i = 0; i < restaurantCount; i++) {
+            String name = readString(buffer);
+            LngLat location = new LngLat(buffer.getDouble(), buffer.getDouble());
+            int openingDaysMask = buffer.get();
+            List<DayOfWeek> openingDays = new ArrayList<>(7);
+            for (DayOfWeek day : DayOfWeek.values()) {
+                if ((openingDaysMask & (1 << day.ordinal())) != 0) {
+                    openingDays.add(day);
+                }
+            }
+            Pizza[] menu = new Pizza[buffer.getInt()];
+            for (int j = 0; j < menu.length; j++) {
+                menu[j] = new Pizza(readString(buffer), buffer.getInt());
+            }
+            restaurants.add(new Restaurant(name, location, openingDays.toArray(new DayOfWeek[0]), menu));
+        }
+
+        Region centralArea = readRegion(buffer);
+
+        int zoneCount = buffer.getInt();
+        List<Region> noFlyZones = new ArrayList<>(zoneCount);
+        for (int i = 0; i < zoneCount; i++) {
+            noFlyZones.add(readRegion(buffer));
+        }
+
+        return new ReferenceData(List.copyOf(restaurants), centralArea, List.copyOf(noFlyZones));
+    }
+
+    /**
+     * Writes the snapshot atomically (temporary file + rename) so readers never see a partial file.
+     * @param encoded the bytes from {@link #encode(ReferenceData)}
+     * @param file    where to store the snapshot
+     */
+    public static void write(byte[] encoded, Path file) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporary, encoded);
+            try {
+                Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Reads a snapshot file through a read-only memory mapping.
+     * @param file the snapshot file
+     * @return the decoded reference data
+     */
+    public static ReferenceData read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return decode(buffer);
+        }
+    }
+
+    private interface Encoding {
+        void writeTo(DataOutputStream out) throws IOException;
+    }
+
+    private static void write(OutputStream target, Encoding encoding) {
+        try (DataOutputStream out = new DataOutputStream(target)) {
+            encoding.writeTo(out);
+        } catch (IOException e) {
+            throw new RuntimeException("Error encoding reference data snapshot", e);
+        }
+    }
+
+    // FNV-1a over the encoded bytes, without keeping them
+    private static long hash(Encoding encoding) {
+        long[] hash = {0xcbf29ce484222325L};
+        write(new OutputStream() {
+            @Override
+            public void write(int b) {
+                hash[0] = (hash[0] ^ (b & 0xFF)) * 0x100000001b3L;
+            }
+        }, encoding);
+        return hash[0];
+    }
+
+    private static void writeRestaurants(DataOutputStream out, List<Restaurant> restaurants) throws IOException {
+        out.writeInt(restaurants.size());
+        for (Restaurant restaurant : restaurants) {
+            require(restaurant, "restaurant");
+            writeString(out, restaurant.name());
+            require(restaurant.location(), "location of restaurant " + restaurant.name());
+            out.writeDouble(restaurant.location().lng());
+            out.writeDouble(restaurant.location().lat());
+            int openingDays = 0;
+            for (DayOfWeek day : require(restaurant.openingDays(), "opening days of restaurant " + restaurant.name())) {
+                openingDays |= 1 << require(day, "opening day of restaurant " + restaurant.name()).ordinal();
+            }
+            out.writeByte(openingDays);
+            out.writeInt(require(restaurant.menu(), "menu of restaurant " + restaurant.name()).length);
+            for (Pizza pizza : restaurant.menu()) {
+                writeString(out, require(pizza, "pizza of restaurant " + restaurant.name()).name());
+                out.writeInt(pizza.priceInPence());
+            }
+        }
+    }
+
+    private static void writeRegions(DataOutputStream out, List<Region> regions) throws IOException {
+        out.writeInt(regions.size());
+        for (Region region : regions) {
+            writeRegion(out, require(region, "region"));
+        }
+    }
+
+    private static void writeRegion(DataOutputStream out, Region region) throws IOException {
+        if (region == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(1);
+        writeString(out, region.getName());
+        List<LngLat> vertices = region.getVertices() == null ? List.of() : region.getVertices();
+        out.writeInt(vertices.size());
+        for (LngLat vertex : vertices) {
+            require(vertex, "vertex of region " + region.getName());
+            out.writeDouble(vertex.lng());
+            out.writeDouble(vertex.lat());
+        }
+    }
+
+    private static <T> T require(T value, String what) {
+        if (value == null) {
+            throw new IllegalArgumentException("Reference data without a " + what);
+        }
+        return value;
+    }
+
+    private static Region readRegion(ByteBuffer buffer) {
+        if (buffer.get() == 0) {
+            return null;
+        }
+        Region region = new Region();
+        region.setName(readString(buffer));
+        int vertexCount = buffer.getInt();
+        List<LngLat> vertices = new ArrayList<>(vertexCount);
+        for (int i = 0; i < vertexCount; i++) {
+            vertices.add(new LngLat(buffer.getDouble(), buffer.getDouble()));
+        }
+        region.setVertices(vertices);
+        return region;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,55 @@
+package uk.ac.ed.inf.pizzadronz.monitoring;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.inf.pizzadronz.service.OrderValidationService;
+import uk.ac.ed.inf.pizzadronz.service.PathResponseCache;
+
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Exposes hits, misses and the hit ratio of the order validation cache and the path response cache.
+ */
+@Component
+public class CacheMetrics implements MeterBinder {
+
+    private final OrderValidationService orderValidationService;
+    private final PathResponseCache pathResponseCache;
+
+    public CacheMetrics(OrderValidationService orderValidationService, PathResponseCache pathResponseCache) {
+        this.orderValidationService = orderValidationService;
+        this.pathResponseCache = pathResponseCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bind(registry, "validation", orderValidationService, OrderValidationService::getHits, OrderValidationService::getMisses);
+        bind(registry, "path", pathResponseCache, PathResponseCache::getHits, PathResponseCache::getMisses);
+    }
+
+    private static <T> void bind(MeterRegistry registry, String cache, T source, ToLongFunction<T> hits, ToLongFunction<T> misses) {
+        FunctionCounter.builder("pizzadronz.cache.requests", source, value -> hits.applyAsLong(value))
+                .description("Cache lookups")
+                .tag("cache", cache)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("pizzadronz.cache.requests", source, value -> misses.applyAsLong(value))
+                .description("Cache lookups")
+                .tag("cache", cache)
+                .tag("result", "miss")
+                .register(registry);
+        ToDoubleFunction<T> hitRatio = value -> {
+            long hitCount = hits.applyAsLong(value);
+            long total = hitCount + misses.applyAsLong(value);
+            return total == 0 ? Double.NaN : (double) hitCount / total;
+        };
+        Gauge.builder("pizzadronz.cache.hit.ratio", source, hitRatio)
+                .description("Share of cache lookups that were hits since startup")
+                .tag("cache", cache)
+                .register(registry);
+    }
+}
@@ -0,0 +1,106 @@
+package uk.ac.ed.inf.pizzadronz.monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts, dumps and stops a Java Flight Recorder recording on demand, at /actuator/flightrecording:
+ * <ul>
+ *     <li>POST starts a recording (optional body: {@code {"settings": "default|profile", "maxAgeSeconds": 300}});
+ *     a running recording is replaced</li>
+ *     <li>GET reports the state of the recording</li>
+ *     <li>GET /dump returns what has been recorded so far as a .jfr file, the recording keeps running
+ *     (see {@link FlightRecordingWebExtension})</li>
+ *     <li>DELETE stops and discards the recording</li>
+ * </ul>
+ * A recording holds stack traces, system properties and request data, so the endpoint is only exposed
+ * over JMX by default, where the dump is taken with {@code jcmd <pid> JFR.dump name=pizzadronz}. Expose
+ * it on the web only behind authentication.
+ * The planner, validation and reference data events ({@link PathSearchEvent}, {@link OrderValidationEvent},
+ * {@link ReferenceDataFetchEvent}) are always recorded; the JDK events follow the chosen settings.
+ */
+@Component
+@Endpoint(id = "flightrecording")
+public class FlightRecordingEndpoint {
+
+    private static final String DUMP = "dump";
+    private static final int DEFAULT_MAX_AGE_SECONDS = 300;
+    private static final long MAX_SIZE_BYTES = 64L * 1024 * 1024;
+
+    private Recording recording;
+
+    @WriteOperation
+    public synchronized Map<String, Object> start(@Nullable String settings, @Nullable Integer maxAgeSeconds)
+            throws IOException, ParseException {
+        Configuration configuration = Configuration.getConfiguration(settings == null ? "profile" : settings);
+        if (recording != null) {
+            recording.close();
+        }
+        recording = new Recording(configuration);
+        recording.setName("pizzadronz");
+        recording.setToDisk(true);
+        recording.setMaxAge(Duration.ofSeconds(maxAgeSeconds == null ? DEFAULT_MAX_AGE_SECONDS : maxAgeSeconds));
+        recording.setMaxSize(MAX_SIZE_BYTES);
+        recording.enable(PathSearchEvent.class);
+        recording.enable(OrderValidationEvent.class);
+        recording.enable(ReferenceDataFetchEvent.class);
+        recording.start();
+        return status();
+    }
+
+    @ReadOperation
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        RecordingState state = recording == null ? RecordingState.CLOSED : recording.getState();
+        status.put("state", state);
+        if (recording != null && state == RecordingState.RUNNING) {
+            status.put("startTime", recording.getStartTime());
+            status.put("maxAgeSeconds", recording.getMaxAge().toSeconds());
+            status.put("sizeBytes", recording.getSize());
+        }
+        return status;
+    }
+
+    /**
+     * Writes what has been recorded so far to a temporary file, the recording keeps running.
+     *
+     * @return the file, to be deleted by the caller, or null if nothing is being recorded
+     */
+    synchronized Path dump() throws IOException {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            return null;
+        }
+        Path file = Files.createTempFile("pizzadronz-", ".jfr");
+        try {
+            recording.dump(file);
+            return file;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+
+    @DeleteOperation
+    public synchronized Map<String, Object> stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+        return status();
+    }
+}
@@ -0,0 +1,43 @@
+package uk.ac.ed.inf.pizzadronz.monitoring;
+
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.EndpointWebExtension;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * GET /actuator/flightrecording/dump, only on the web: the recording so far as a .jfr file. The dump is
+ * streamed from a temporary file, which is deleted once the response has been written.
+ */
+@Component
+@EndpointWebExtension(endpoint = FlightRecordingEndpoint.class)
+public class FlightRecordingWebExtension {
+
+    private static final String DUMP = "dump";
+
+    private final FlightRecordingEndpoint endpoint;
+
+    public FlightRecordingWebExtension(FlightRecordingEndpoint endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> dump(@Selector String action) throws IOException {
+        if (!DUMP.equals(action)) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        Path file = endpoint.dump();
+        if (file == null) {
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+        }
+        return new WebEndpointResponse<>(new InputStreamResource(Files.newInputStream(file, StandardOpenOption.DELETE_ON_CLOSE)));
+    }
+}
@@ -0,0 +1,29 @@
+package uk.ac.ed.inf.pizzadronz.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event per order run through the validation rules. The event's duration includes fetching
+ * the restaurant catalog if a catalog rule needed it.
+ */
+@Name("uk.ac.ed.inf.pizzadronz.OrderValidation")
+@Label("Order Validation")
+@Description("One order checked against the validation rules")
+@Category({"PizzaDronz", "Validation"})
+@StackTrace(false)
+public class OrderValidationEvent extends Event {
+
+    @Label("Order Number")
+    public String orderNo;
+
+    @Label("Pizzas")
+    public int pizzaCount;
+
+    @Label("Validation Code")
+    public String validationCode;
+}
@@ -0,0 +1,68 @@
+package uk.ac.ed.inf.pizzadronz.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event per path search (one {@code PathCalculator.calculatePath} call), so slow routes can be
+ * lined up with GC pauses and CPU samples in a recording. The event's duration is the search time.
+ */
+@Name("uk.ac.ed.inf.pizzadronz.PathSearch")
+@Label("Path Search")
+@Description("One A* search for a delivery path")
+@Category({"PizzaDronz", "Planner"})
+@StackTrace(false)
+public class PathSearchEvent extends Event {
+
+    @Label("Start Longitude")
+    public double startLng;
+
+    @Label("Start Latitude")
+    public double startLat;
+
+    @Label("Goal Longitude")
+    public double goalLng;
+
+    @Label("Goal Latitude")
+    public double goalLat;
+
+    @Label("Snapshot Version")
+    @Description("Version of the geometry the search ran against, -1 for ad hoc geometry")
+    public long snapshotVersion;
+
+    @Label("Iterations")
+    @Description("Nodes taken from the open set")
+    public int iterations;
+
+    @Label("Nodes Expanded")
+    @Description("Nodes whose neighbours were generated")
+    public int nodesExpanded;
+
+    @Label("Nodes Generated")
+    @Description("Nodes added to (or updated in) the open set")
+    public long nodesGenerated;
+
+    @Label("Open Set Peak")
+    public int openSetPeak;
+
+    @Label("Polygon Tests")
+    public long polygonTests;
+
+    @Label("Outcome")
+    public String outcome;
+
+    @Label("Path Length")
+    @Description("Points in the path, 0 if none was found")
+    public int pathLength;
+
+    /**
+     * Fills in how the search ended.
+     */
+    public void setOutcome(PizzaDronzMetrics.SearchOutcome outcome) {
+        this.outcome = outcome.tag;
+    }
+}
@@ -0,0 +1,133 @@
+package uk.ac.ed.inf.pizzadronz.monitoring;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the planner and order validation, used from code that is not managed by Spring
+ * (PathCalculator, InputValidator).
+ *
+ * They live in Micrometer's global registry, which Spring Boot connects to its own registry
+ * (management.metrics.use-global-registry, on by default), so they are exported through Actuator
+ * like every other metric. Without Actuator they cost next to nothing. Hot loops count into local
+ * variables and report once per search rather than touching a meter per node.
+ */
+public final class PizzaDronzMetrics {
+
+    /**
+     * how a path search ended
+     */
+    public enum SearchOutcome {
+        FOUND, NOT_FOUND, ITERATION_CAP, CANCELLED;
+
+        final String tag = name().toLowerCase();
+    }
+
+    /**
+     * the phases of planning a delivery path
+     */
+    public enum PlanningPhase {
+        /** fetching restaurants, central area and no-fly zones */
+        FETCH,
+        /** the A* search */
+        SEARCH;
+
+        final String tag = name().toLowerCase();
+    }
+
+    private static final MeterRegistry REGISTRY = Metrics.globalRegistry;
+
+    private static final Map<PlanningPhase, Timer> PHASES = new EnumMap<>(PlanningPhase.class);
+
+    private static final Map<SearchOutcome, Timer> SEARCHES = new EnumMap<>(SearchOutcome.class);
+    private static final Counter EXPANSIONS = Counter.builder("pizzadronz.planner.expansions")
+            .description("Nodes expanded by the path planner")
+            .register(REGISTRY);
+    private static final DistributionSummary EXPANSIONS_PER_SEARCH = DistributionSummary.builder("pizzadronz.planner.search.expansions")
+            .description("Nodes expanded per path search")
+            .publishPercentileHistogram()
+            .register(REGISTRY);
+    private static final Counter POLYGON_TESTS = Counter.builder("pizzadronz.planner.polygon.tests")
+            .description("Point-in-polygon and segment-polygon tests run by the path planner")
+            .register(REGISTRY);
+    private static final Timer GEOMETRY_TIME = Timer.builder("pizzadronz.planner.search.geometry")
+            .description("Time per path search spent checking moves against no-fly zones and the central area, "
+                    + "extrapolated from a sample of expansions")
+            .publishPercentileHistogram()
+            .register(REGISTRY);
+    private static final DistributionSummary OPEN_SET_PEAK = DistributionSummary.builder("pizzadronz.planner.search.open.set.peak")
+            .description("Largest open set size per path search")
+            .register(REGISTRY);
+
+    private static final Map<OrderValidationCode, Counter> VALIDATIONS = new EnumMap<>(OrderValidationCode.class);
+
+    static {
+        for (PlanningPhase phase : PlanningPhase.values()) {
+            PHASES.put(phase, Timer.builder("pizzadronz.planner.phase")
+                    .description("Time per delivery path spent in each planning phase")
+                    .tag("phase", phase.tag)
+                    .publishPercentileHistogram()
+                    .register(REGISTRY));
+        }
+        for (SearchOutcome outcome : SearchOutcome.values()) {
+            SEARCHES.put(outcome, Timer.builder("pizzadronz.planner.search")
+                    .description("Path searches, by how they ended")
+                    .tag("outcome", outcome.tag)
+                    .publishPercentileHistogram()
+                    .register(REGISTRY));
+        }
+        for (OrderValidationCode code : OrderValidationCode.values()) {
+            VALIDATIONS.put(code, Counter.builder("pizzadronz.validation.results")
+                    .description("Computed order validations, by validation code (NO_ERROR = valid)")
+                    .tag("code", code.name())
+                    .register(REGISTRY));
+        }
+    }
+
+    private PizzaDronzMetrics() {
+    }
+
+    /**
+     * Records how long a planning phase took.
+     * @param phase the phase
+     * @param nanos how long it took
+     */
+    public static void recordPhase(PlanningPhase phase, long nanos) {
+        PHASES.get(phase).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a finished (or abandoned) path search.
+     * @param outcome       how it ended
+     * @param nanos         how long it took
+     * @param expansions    nodes expanded
+     * @param polygonTests  polygon tests run
+     * @param geometryNanos time spent in those tests (estimated)
+     * @param openSetPeak   the largest open set size seen
+     */
+    public static void recordSearch(SearchOutcome outcome, long nanos, int expansions, long polygonTests,
+                                    long geometryNanos, int openSetPeak) {
+        SEARCHES.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+        EXPANSIONS.increment(expansions);
+        EXPANSIONS_PER_SEARCH.record(expansions);
+        POLYGON_TESTS.increment(polygonTests);
+        GEOMETRY_TIME.record(geometryNanos, TimeUnit.NANOSECONDS);
+        OPEN_SET_PEAK.record(openSetPeak);
+    }
+
+    /**
+     * Counts a computed order validation.
+     * @param code the resulting validation code
+     */
+    public static void recordValidation(OrderValidationCode code) {
+        VALIDATIONS.get(code).increment();
+    }
+}
@@ -0,0 +1,39 @@
+package uk.ac.ed.inf.pizzadronz.monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JFR event per fetch of reference data from the ILP service. The event's duration is the time
+ * spent on the request, including falling back to the last good data.
+ */
+@Name("uk.ac.ed.inf.pizzadronz.ReferenceDataFetch")
+@Label("Reference Data Fetch")
+@Description("One request for restaurants, the central area, no-fly zones or a restaurant location")
+@Category({"PizzaDronz", "Reference Data"})
+@StackTrace(false)
+public class ReferenceDataFetchEvent extends Event {
+
+    @Label("Resource")
+    public String resource;
+
+    @Label("URL")
+    public String url;
+
+    @Label("Succeeded")
+    @Description("Whether the ILP service answered with data")
+    public boolean succeeded;
+
+    @Label("Used Fallback")
+    @Description("Whether the last good data was returned instead")
+    public boolean usedFallback;
+
+    public ReferenceDataFetchEvent(String resource, String url) {
+        this.resource = resource;
+        this.url = url;
+    }
+}
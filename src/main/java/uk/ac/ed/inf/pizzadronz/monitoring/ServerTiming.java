@@ -0,0 +1,93 @@
+package uk.ac.ed.inf.pizzadronz.monitoring;
+
+/**
+ * Per-request phase durations, sent to the client as a standard Server-Timing header, e.g.
+ * {@code validate;dur=0.412, queue;dur=0.020, fetch;dur=48.1, plan;dur=12.7, serialize;dur=0.35}.
+ * Durations are in milliseconds; phases that did not run are left out.
+ *
+ * Not thread-safe, but a request's phases run one after another: a phase may be recorded on a
+ * planner thread as long as the request thread only reads the timings once planning has completed
+ * (e.g. in a continuation of the planning future).
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+
+    /**
+     * the phases of a request, in the order they appear in the header
+     */
+    public enum Phase {
+        /** checking the order */
+        VALIDATE,
+        /** waiting for a planner thread */
+        QUEUE,
+        /** fetching the restaurant, no-fly zones and central area */
+        FETCH,
+        /** the path search */
+        PLAN,
+        /** encoding (and compressing) the response body */
+        SERIALIZE;
+
+        private final String metricName = name().toLowerCase();
+    }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long[] nanos = new long[PHASES.length];
+    private final boolean[] recorded = new boolean[PHASES.length];
+    private boolean cacheHit;
+
+    /**
+     * Adds time to a phase.
+     * @param phase the phase
+     * @param nanos how long it took
+     */
+    public void record(Phase phase, long nanos) {
+        this.nanos[phase.ordinal()] += nanos;
+        this.recorded[phase.ordinal()] = true;
+    }
+
+    /**
+     * Adds the time since {@code startNanos} to a phase.
+     * @param phase      the phase
+     * @param startNanos when the phase started, from {@link System#nanoTime()}
+     */
+    public void recordSince(Phase phase, long startNanos) {
+        record(phase, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Marks the response as served from the path response cache.
+     */
+    public void markCacheHit() {
+        cacheHit = true;
+    }
+
+    /**
+     * @return the milliseconds recorded for the phase, 0 if it did not run
+     */
+    public double millis(Phase phase) {
+        return nanos[phase.ordinal()] / 1e6;
+    }
+
+    /**
+     * @return the header value, empty if nothing was recorded
+     */
+    public String toHeaderValue() {
+        StringBuilder value = new StringBuilder(96);
+        for (Phase phase : PHASES) {
+            if (!recorded[phase.ordinal()]) {
+                continue;
+            }
+            if (!value.isEmpty()) {
+                value.append(", ");
+            }
+            // Microsecond resolution is plenty, and keeps the value short
+            value.append(phase.metricName).append(";dur=").append(Math.round(nanos[phase.ordinal()] / 1e3) / 1e3);
+        }
+        if (cacheHit) {
+            value.append(value.isEmpty() ? "" : ", ").append("cache;desc=hit");
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,264 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.constant.SystemConstants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The no-fly zones and the central area rasterized at the resolution of a drone move, so most of
+ * the planner's airspace checks are answered without a polygon test.
+ *
+ * Every cell is {@link Cell#CLEAR} (touches no region), {@link Cell#COVERED} (entirely inside one)
+ * or {@link Cell#BOUNDARY} (anything else, to be tested exactly). The rasters have two levels:
+ * tiles of {@value #TILE_CELLS} by {@value #TILE_CELLS} cells that are clear or covered as a whole
+ * cost one byte, and only the tiles a border runs through keep their cells, two bits each. Cells
+ * are grown by the regions' border margin before they are classified, so a clear or covered cell
+ * gives the same answer as {@link CompiledRegion#contains} for every point in it.
+ *
+ * A raster is built once per {@link GeoSnapshot}. Geometry too large to rasterize within the
+ * limits below gets a raster whose cells are all {@link Cell#BOUNDARY}. Instances are immutable.
+ */
+public final class AirspaceRaster {
+
+    /**
+     * what a cell of a raster says about the points in it
+     */
+    public enum Cell {
+        /**
+         * outside every region
+         */
+        CLEAR,
+        /**
+         * inside a region
+         */
+        COVERED,
+        /**
+         * may be either, test exactly
+         */
+        BOUNDARY
+    }
+
+    /**
+     * a raster that leaves every check to the exact tests
+     */
+    public static final AirspaceRaster NONE = new AirspaceRaster(null, null);
+
+    static final double CELL_SIZE = SystemConstants.DRONE_MOVE_DISTANCE;
+    static final int TILE_CELLS = 16;
+
+    // At most this many tiles (one byte each) and tiles with cells (64 bytes each) per layer
+    private static final int MAX_TILES = 1 << 16;
+    private static final int MAX_BOUNDARY_TILES = 1 << 13;
+
+    private static final Cell[] CELLS = Cell.values();
+
+    private final Layer noFlyZones;
+    private final Layer centralArea;
+
+    private AirspaceRaster(Layer noFlyZones, Layer centralArea) {
+        this.noFlyZones = noFlyZones;
+        this.centralArea = centralArea;
+    }
+
+    /**
+     * Rasterizes the geometry.
+     * @param centralArea the central area
+     * @param noFlyZones  the no-fly zones
+     * @return the raster
+     */
+    public static AirspaceRaster build(CompiledRegion centralArea, List<CompiledRegion> noFlyZones) {
+        return new AirspaceRaster(Layer.build(noFlyZones), Layer.build(List.of(centralArea)));
+    }
+
+    /**
+     * @return whether the point is in a no-fly zone
+     */
+    public Cell noFlyZoneCell(double lng, double lat) {
+        return noFlyZones == null ? Cell.BOUNDARY : CELLS[noFlyZones.cell(lng, lat)];
+    }
+
+    /**
+     * @return whether the point is in the central area
+     */
+    public Cell centralAreaCell(double lng, double lat) {
+        return centralArea == null ? Cell.BOUNDARY : CELLS[centralArea.cell(lng, lat)];
+    }
+
+    /**
+     * @return true if every cell under the box is clear of the no-fly zones, so no segment within the
+     * box can touch one
+     */
+    public boolean isClearOfNoFlyZones(double minLng, double minLat, double maxLng, double maxLat) {
+        return noFlyZones != null && noFlyZones.isClear(minLng, minLat, maxLng, maxLat);
+    }
+
+    /**
+     * @return true unless the geometry was too large to rasterize
+     */
+    public boolean isEnabled() {
+        return noFlyZones != null && centralArea != null;
+    }
+
+    /**
+     * The raster of a set of regions.
+     */
+    private static final class Layer {
+
+        private static final byte CLEAR = 0;
+        private static final byte COVERED = 1;
+        private static final byte BOUNDARY = 2;
+        // A tile whose cells are kept in the cell bitmap
+        private static final byte MIXED = 3;
+
+        private static final int LONGS_PER_TILE = TILE_CELLS * TILE_CELLS * 2 / Long.SIZE;
+
+        private final double originLng;
+        private final double originLat;
+        private final int tileColumns;
+        private final int tileRows;
+        // Per tile: CLEAR, COVERED or MIXED
+        private final byte[] tiles;
+        // Per MIXED tile: its slot in the cell bitmap
+        private final int[] slots;
+        // Two bits per cell, LONGS_PER_TILE longs per slot
+        private final long[] cells;
+
+        private Layer(double originLng, double originLat, int tileColumns, int tileRows, byte[] tiles, int[] slots, long[] cells) {
+            this.originLng = originLng;
+            this.originLat = originLat;
+            this.tileColumns = tileColumns;
+            this.tileRows = tileRows;
+            this.tiles = tiles;
+            this.slots = slots;
+            this.cells = cells;
+        }
+
+        /**
+         * @return the layer, or null if the regions cover too large an area
+         */
+        static Layer build(List<CompiledRegion> regions) {
+            double minLng = Double.POSITIVE_INFINITY, minLat = Double.POSITIVE_INFINITY;
+            double maxLng = Double.NEGATIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+            double margin = 0;
+            List<CompiledRegion> nonEmpty = new ArrayList<>();
+            for (CompiledRegion region : regions) {
+                if (region.getVertexCount() == 0) {
+                    continue;
+                }
+                nonEmpty.add(region);
+                minLng = Math.min(minLng, region.getMinLng());
+                minLat = Math.min(minLat, region.getMinLat());
+                maxLng = Math.max(maxLng, region.getMaxLng());
+                maxLat = Math.max(maxLat, region.getMaxLat());
+                margin = Math.max(margin, region.getBorderMargin());
+            }
+            if (nonEmpty.isEmpty()) {
+                return new Layer(0, 0, 0, 0, new byte[0], new int[0], new long[0]);
+            }
+            // Slack for the rounding of cell coordinates
+            double grow = margin + 1e-12;
+
+            double tileSize = TILE_CELLS * CELL_SIZE;
+            double spanColumns = Math.ceil((maxLng - minLng) / tileSize) + 1;
+            double spanRows = Math.ceil((maxLat - minLat) / tileSize) + 1;
+            if (spanColumns * spanRows > MAX_TILES) {
+                return null;
+            }
+            int tileColumns = (int) spanColumns;
+            int tileRows = (int) spanRows;
+            double originLng = minLng - CELL_SIZE;
+            double originLat = minLat - CELL_SIZE;
+
+            byte[] tiles = new byte[tileColumns * tileRows];
+            int[] slots = new int[tiles.length];
+            List<long[]> tileCells = new ArrayList<>();
+            for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+                for (int tileColumn = 0; tileColumn < tileColumns; tileColumn++) {
+                    double tileLng = originLng + tileColumn * tileSize;
+                    double tileLat = originLat + tileRow * tileSize;
+                    List<CompiledRegion> touching = new ArrayList<>();
+                    byte tile = classify(nonEmpty, tileLng - grow, tileLat - grow, tileLng + tileSize + grow, tileLat + tileSize + grow, touching);
+                    if (tile == BOUNDARY) {
+                        if (tileCells.size() >= MAX_BOUNDARY_TILES) {
+                            return null;
+                        }
+                        long[] bits = new long[LONGS_PER_TILE];
+                        for (int cell = 0; cell < TILE_CELLS * TILE_CELLS; cell++) {
+                            double cellLng = tileLng + (cell % TILE_CELLS) * CELL_SIZE;
+                            double cellLat = tileLat + (cell / TILE_CELLS) * CELL_SIZE;
+                            long state = classify(touching, cellLng - grow, cellLat - grow, cellLng + CELL_SIZE + grow, cellLat + CELL_SIZE + grow, null);
+                            bits[cell >>> 5] |= state << ((cell & 31) * 2);
+                        }
+                        slots[tileRow * tileColumns + tileColumn] = tileCells.size();
+                        tileCells.add(bits);
+                        tile = MIXED;
+                    }
+                    tiles[tileRow * tileColumns + tileColumn] = tile;
+                }
+            }
+
+            long[] cells = new long[tileCells.size() * LONGS_PER_TILE];
+            for (int slot = 0; slot < tileCells.size(); slot++) {
+                System.arraycopy(tileCells.get(slot), 0, cells, slot * LONGS_PER_TILE, LONGS_PER_TILE);
+            }
+            return new Layer(originLng, originLat, tileColumns, tileRows, tiles, slots, cells);
+        }
+
+        /**
+         * @param touching if not null, receives the regions the box touches
+         */
+        private static byte classify(List<CompiledRegion> regions, double minLng, double minLat, double maxLng, double maxLat,
+                                     List<CompiledRegion> touching) {
+            boolean touches = false;
+            for (CompiledRegion region : regions) {
+                if (region.intersectsBox(minLng, minLat, maxLng, maxLat)) {
+                    if (region.containsBox(minLng, minLat, maxLng, maxLat)) {
+                        return COVERED;
+                    }
+                    touches = true;
+                    if (touching != null) {
+                        touching.add(region);
+                    }
+                }
+            }
+            return touches ? BOUNDARY : CLEAR;
+        }
+
+        byte cell(double lng, double lat) {
+            int column = (int) Math.floor((lng - originLng) / CELL_SIZE);
+            int row = (int) Math.floor((lat - originLat) / CELL_SIZE);
+            return cell(column, row);
+        }
+
+        private byte cell(int column, int row) {
+            int tileColumn = column / TILE_CELLS;
+            int tileRow = row / TILE_CELLS;
+            if (column < 0 || row < 0 || tileColumn >= tileColumns || tileRow >= tileRows) {
+                return CLEAR; // beyond the regions' bounding box
+            }
+            int tile = tileRow * tileColumns + tileColumn;
+            byte state = tiles[tile];
+            if (state != MIXED) {
+                return state;
+            }
+            int cell = (row % TILE_CELLS) * TILE_CELLS + column % TILE_CELLS;
+            return (byte) ((cells[slots[tile] * LONGS_PER_TILE + (cell >>> 5)] >>> ((cell & 31) * 2)) & 3);
+        }
+
+        boolean isClear(double minLng, double minLat, double maxLng, double maxLat) {
+            int minColumn = (int) Math.floor((minLng - originLng) / CELL_SIZE);
+            int maxColumn = (int) Math.floor((maxLng - originLng) / CELL_SIZE);
+            int minRow = (int) Math.floor((minLat - originLat) / CELL_SIZE);
+            int maxRow = (int) Math.floor((maxLat - originLat) / CELL_SIZE);
+            for (int row = minRow; row <= maxRow; row++) {
+                for (int column = minColumn; column <= maxColumn; column++) {
+                    if (cell(column, row) != CLEAR) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+    }
+}
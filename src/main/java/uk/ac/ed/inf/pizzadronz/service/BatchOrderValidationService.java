@@ -0,0 +1,182 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.OrderValidationResult;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Validates a stream of newline-delimited JSON orders and writes one newline-delimited
+ * {@link OrderValidationResult} per order, in input order.
+ *
+ * Orders are read one line at a time and validated in parallel against the {@link GeoSnapshot} current
+ * at the start of the batch, through {@link OrderValidationService} and its cache, so a batch agrees
+ * with /validateOrder. At most {@code window} orders are in flight and a line is kept only up to
+ * {@code maxOrderBytes}, so memory stays bounded however large the batch is. An order that cannot be
+ * parsed or validated, or whose line is too long, gets an INVALID/UNDEFINED result of its own; the
+ * rest of the batch carries on.
+ */
+@Service
+public class BatchOrderValidationService {
+
+    private static final byte[] NEWLINE = {'\n'};
+    private static final OrderValidationResult UNDEFINED = OrderValidationResult.invalid(OrderValidationCode.UNDEFINED);
+
+    private final ObjectReader orderReader;
+    private final ObjectWriter resultWriter;
+    private final OrderValidationService orderValidationService;
+    private final Executor orderValidationExecutor;
+    private final int window;
+    private final int maxOrderBytes;
+
+    public BatchOrderValidationService(ObjectMapper objectMapper, OrderValidationService orderValidationService,
+                                       @Qualifier("orderValidationExecutor") Executor orderValidationExecutor,
+                                       @Value("${pizzadronz.batch-validation.window:0}") int window,
+                                       @Value("${pizzadronz.batch-validation.max-order-bytes:65536}") int maxOrderBytes) {
+        this.orderReader = objectMapper.readerFor(Order.class);
+        // Results are written one after another to the same stream, so it must stay open
+        this.resultWriter = objectMapper.writerFor(OrderValidationResult.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.orderValidationService = orderValidationService;
+        this.orderValidationExecutor = orderValidationExecutor;
+        this.window = window > 0 ? window : 4 * Runtime.getRuntime().availableProcessors();
+        this.maxOrderBytes = maxOrderBytes;
+    }
+
+    /**
+     * Validates every order in the input and streams the results to the output.
+     * @param ndjsonOrders the orders, one JSON object per line (blank lines are skipped)
+     * @param ndjsonResults where to write the results, one JSON object per line
+     * @return the number of orders validated
+     */
+    public long validate(InputStream ndjsonOrders, OutputStream ndjsonResults) throws IOException {
+        GeoSnapshot snapshot = orderValidationService.currentSnapshot();
+
+        LineReader reader = new LineReader(ndjsonOrders, maxOrderBytes);
+        OutputStream out = new BufferedOutputStream(ndjsonResults, 16 * 1024);
+        ArrayDeque<CompletableFuture<OrderValidationResult>> inFlight = new ArrayDeque<>(window);
+        long count = 0;
+
+        byte[] line;
+        while ((line = reader.next()) != null) {
+            if (line != LineReader.TOO_LONG && isBlank(line)) {
+                continue;
+            }
+            if (inFlight.size() == window) {
+                writeNext(inFlight, out);
+            }
+            byte[] orderJson = line;
+            inFlight.add(orderJson == LineReader.TOO_LONG
+                    ? CompletableFuture.completedFuture(UNDEFINED)
+                    : CompletableFuture.supplyAsync(() -> validate(orderJson, snapshot), orderValidationExecutor));
+            count++;
+        }
+        while (!inFlight.isEmpty()) {
+            writeNext(inFlight, out);
+        }
+        out.flush();
+        return count;
+    }
+
+    private void writeNext(ArrayDeque<CompletableFuture<OrderValidationResult>> inFlight, OutputStream out) throws IOException {
+        CompletableFuture<OrderValidationResult> next = inFlight.peekFirst();
+        if (!next.isDone()) {
+            out.flush(); // Let the client see what is ready while we wait
+        }
+        resultWriter.writeValue(out, inFlight.removeFirst().join());
+        out.write(NEWLINE);
+    }
+
+    private OrderValidationResult validate(byte[] orderJson, GeoSnapshot snapshot) {
+        try {
+            return orderValidationService.validate(orderReader.readValue(orderJson), snapshot);
+        } catch (IOException | RuntimeException e) {
+            // e.g. not JSON, or a field the rules rely on is missing; the response is already under way
+            return UNDEFINED;
+        }
+    }
+
+    private static boolean isBlank(byte[] line) {
+        for (byte b : line) {
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a stream into lines without ever holding more than the limit of one line.
+     */
+    static final class LineReader {
+
+        /**
+         * returned for a line longer than the limit, the rest of which has been skipped
+         */
+        static final byte[] TOO_LONG = new byte[0];
+
+        private final InputStream in;
+        private final int maxLineBytes;
+        private final byte[] buffer = new byte[16 * 1024];
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        private int position;
+        private int end;
+
+        LineReader(InputStream in, int maxLineBytes) {
+            this.in = in;
+            this.maxLineBytes = maxLineBytes;
+        }
+
+        /**
+         * @return the next line without its newline, {@link #TOO_LONG}, or null at the end of the stream
+         */
+        byte[] next() throws IOException {
+            line.reset();
+            long length = 0;
+            boolean any = false;
+            while (true) {
+                if (position == end && !fill()) {
+                    if (!any) {
+                        return null;
+                    }
+                    break;
+                }
+                any = true;
+                int start = position;
+                while (position < end && buffer[position] != '\n') {
+                    position++;
+                }
+                length += position - start;
+                if (length <= maxLineBytes) {
+                    line.write(buffer, start, position - start);
+                }
+                if (position < end) {
+                    position++; // the newline
+                    break;
+                }
+            }
+            return length > maxLineBytes ? TOO_LONG : line.toByteArray();
+        }
+
+        private boolean fill() throws IOException {
+            int read = in.read(buffer);
+            position = 0;
+            end = Math.max(read, 0);
+            return read > 0;
+        }
+    }
+}
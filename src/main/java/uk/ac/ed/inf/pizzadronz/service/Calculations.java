@@ -13,7 +13,7 @@ public class Calculations {
      * @param lat2 Latitude of the second point.
      * @return The Euclidean distance between the two points.
      */
-    public static Double calculateEuclideanDistance(Double lng1, Double lat1, Double lng2, Double lat2) {
+    public static double calculateEuclideanDistance(double lng1, double lat1, double lng2, double lat2) {
         return Math.sqrt(Math.pow(lng1 - lng2, 2) + Math.pow(lat1 - lat2, 2));
     }
 
@@ -26,7 +26,7 @@ public class Calculations {
      * @param angle Angle of movement in degrees, measured clockwise from north.
      * @return A new LngLat object representing the next position of the drone.
      */
-    public static LngLat calculateNextPosition(Double lng, Double lat, Double angle) {
+    public static LngLat calculateNextPosition(double lng, double lat, double angle) {
         double angleInRadians = angle * (Math.PI / 180);
         double newLongitude = lng + (RestController.DISTANCE * Math.cos(angleInRadians));
         double newLatitude = lat + (RestController.DISTANCE * Math.sin(angleInRadians));
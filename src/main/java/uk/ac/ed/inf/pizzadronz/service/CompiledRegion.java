@@ -0,0 +1,620 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A region prepared for repeated point and segment tests: the vertices are unboxed into arrays
+ * (without the redundant closing vertex) and a bounding box is kept to reject far away queries.
+ * Instances are immutable.
+ *
+ * A simple polygon is also split into convex pieces, each with its own bounding box: a convex
+ * region stays one piece, a concave one is ear clipped into triangles which are then merged back
+ * into convex pieces where possible. A point is located within a piece by a binary search over the
+ * wedges its vertices make from the first vertex, and a segment is tested against a piece with
+ * separating axes, so neither test walks every edge of the region. Points within the border
+ * tolerance of a piece edge, and segments with an end point there, are still decided by
+ * {@link Polygon} on the whole vertex list, so the results are those of {@link Polygon}.
+ * Self-intersecting and degenerate regions are not split and always use {@link Polygon}.
+ */
+public final class CompiledRegion {
+
+    /**
+     * a region without vertices - nothing is inside it
+     */
+    public static final CompiledRegion EMPTY = new CompiledRegion(null, new double[0], new double[0]);
+
+    private static final int OUTSIDE = 0;
+    private static final int NEAR_BORDER = 1;
+    private static final int INSIDE = 2;
+
+    private final String name;
+    private final double[] lngs;
+    private final double[] lats;
+    private final double minLng;
+    private final double minLat;
+    private final double maxLng;
+    private final double maxLat;
+    private final double borderMargin;
+    private final ConvexPiece[] pieces;
+
+    private CompiledRegion(String name, double[] lngs, double[] lats) {
+        this.name = name;
+        this.lngs = lngs;
+        this.lats = lats;
+
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        double shortestEdge = Double.POSITIVE_INFINITY;
+        for (int i = 0, j = lngs.length - 1; i < lngs.length; j = i++) {
+            minX = Math.min(minX, lngs[i]);
+            minY = Math.min(minY, lats[i]);
+            maxX = Math.max(maxX, lngs[i]);
+            maxY = Math.max(maxY, lats[i]);
+            shortestEdge = Math.min(shortestEdge, Math.hypot(lngs[i] - lngs[j], lats[i] - lats[j]));
+        }
+
+        // Polygon treats points within a small cross product tolerance of an edge as being on the
+        // border, so the box is widened by the largest distance that tolerance can cover
+        double margin = lngs.length == 0 ? 0 : Polygon.BORDER_TOLERANCE / Math.max(shortestEdge, Polygon.BORDER_TOLERANCE);
+        this.minLng = minX - margin;
+        this.minLat = minY - margin;
+        this.maxLng = maxX + margin;
+        this.maxLat = maxY + margin;
+        this.borderMargin = margin;
+        this.pieces = decompose(lngs, lats, margin);
+    }
+
+    /**
+     * Compiles a region.
+     * @param region the region to compile, may be null
+     * @return the compiled region ({@link #EMPTY} for a null region or one without vertices)
+     */
+    public static CompiledRegion compile(Region region) {
+        if (region == null || region.getVertices() == null || region.getVertices().isEmpty()) {
+            return region == null ? EMPTY : new CompiledRegion(region.getName(), new double[0], new double[0]);
+        }
+
+        List<LngLat> vertices = region.getVertices();
+        int n = vertices.size();
+        LngLat first = vertices.get(0);
+        LngLat last = vertices.get(n - 1);
+        if (n > 1 && first.lng() == last.lng() && first.lat() == last.lat()) {
+            n--; // Drop the redundant closing vertex
+        }
+
+        double[] lngs = new double[n];
+        double[] lats = new double[n];
+        for (int i = 0; i < n; i++) {
+            lngs[i] = vertices.get(i).lng();
+            lats[i] = vertices.get(i).lat();
+        }
+        return new CompiledRegion(region.getName(), lngs, lats);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getVertexCount() {
+        return lngs.length;
+    }
+
+    /**
+     * @return the number of convex pieces the region was split into, 0 if it could not be split
+     * (too few vertices, self-intersecting or degenerate) and is tested on its whole vertex list
+     */
+    public int getConvexPieceCount() {
+        return pieces == null ? 0 : pieces.length;
+    }
+
+    /**
+     * @return true if the point is inside the region or on its border
+     */
+    public boolean contains(double lng, double lat) {
+        if (lng < minLng || lng > maxLng || lat < minLat || lat > maxLat) {
+            return false;
+        }
+        if (pieces == null) {
+            return Polygon.isPointInPolygon(lng, lat, lngs, lats);
+        }
+        return switch (locate(lng, lat)) {
+            case INSIDE -> true;
+            case OUTSIDE -> false;
+            default -> Polygon.isPointInPolygon(lng, lat, lngs, lats);
+        };
+    }
+
+    /**
+     * @return true if the segment from a to b crosses one of the region's edges
+     */
+    public boolean intersectsSegment(double aLng, double aLat, double bLng, double bLat) {
+        if (Math.max(aLng, bLng) < minLng || Math.min(aLng, bLng) > maxLng
+                || Math.max(aLat, bLat) < minLat || Math.min(aLat, bLat) > maxLat) {
+            return false;
+        }
+        if (pieces == null) {
+            return Polygon.doesLineIntersectPolygon(aLng, aLat, bLng, bLat, lngs, lats);
+        }
+
+        boolean touchesRegion = false;
+        for (ConvexPiece piece : pieces) {
+            if (piece.touches(aLng, aLat, bLng, bLat)) {
+                touchesRegion = true;
+                break;
+            }
+        }
+        if (!touchesRegion) {
+            return false;
+        }
+
+        // A segment that touches the region from a point clearly outside it must enter it through
+        // the border. Segments between two inside points may still leave a concave region, and end
+        // points near the border are left to the exact edge by edge test.
+        int a = locate(aLng, aLat);
+        int b = locate(bLng, bLat);
+        if ((a == OUTSIDE && b != NEAR_BORDER) || (b == OUTSIDE && a != NEAR_BORDER)) {
+            return true;
+        }
+        return Polygon.doesLineIntersectPolygon(aLng, aLat, bLng, bLat, lngs, lats);
+    }
+
+    // The bounding box, widened by the border margin
+    double getMinLng() {
+        return minLng;
+    }
+
+    double getMinLat() {
+        return minLat;
+    }
+
+    double getMaxLng() {
+        return maxLng;
+    }
+
+    double getMaxLat() {
+        return maxLat;
+    }
+
+    /**
+     * @return the largest distance from the border at which a point outside still counts as inside
+     */
+    double getBorderMargin() {
+        return borderMargin;
+    }
+
+    /**
+     * @return true if every point of the box (borders included) is inside the region: its corners
+     * are, and no vertex of the region is in the box and none of its edges crosses the region's
+     */
+    boolean containsBox(double boxMinLng, double boxMinLat, double boxMaxLng, double boxMaxLat) {
+        if (boxMinLng < minLng || boxMaxLng > maxLng || boxMinLat < minLat || boxMaxLat > maxLat) {
+            return false;
+        }
+        if (!contains(boxMinLng, boxMinLat) || !contains(boxMaxLng, boxMinLat)
+                || !contains(boxMaxLng, boxMaxLat) || !contains(boxMinLng, boxMaxLat)) {
+            return false;
+        }
+        for (int i = 0; i < lngs.length; i++) {
+            if (lngs[i] >= boxMinLng && lngs[i] <= boxMaxLng && lats[i] >= boxMinLat && lats[i] <= boxMaxLat) {
+                return false;
+            }
+        }
+        return !intersectsSegment(boxMinLng, boxMinLat, boxMaxLng, boxMinLat)
+                && !intersectsSegment(boxMaxLng, boxMinLat, boxMaxLng, boxMaxLat)
+                && !intersectsSegment(boxMaxLng, boxMaxLat, boxMinLng, boxMaxLat)
+                && !intersectsSegment(boxMinLng, boxMaxLat, boxMinLng, boxMinLat);
+    }
+
+    /**
+     * @return true if the region and the box (borders included) overlap: a vertex of the region is
+     * in the box, a corner of the box is in the region or an edge of the box crosses the region's
+     */
+    boolean intersectsBox(double boxMinLng, double boxMinLat, double boxMaxLng, double boxMaxLat) {
+        if (boxMaxLng < minLng || boxMinLng > maxLng || boxMaxLat < minLat || boxMinLat > maxLat) {
+            return false;
+        }
+        for (int i = 0; i < lngs.length; i++) {
+            if (lngs[i] >= boxMinLng && lngs[i] <= boxMaxLng && lats[i] >= boxMinLat && lats[i] <= boxMaxLat) {
+                return true;
+            }
+        }
+        return contains(boxMinLng, boxMinLat)
+                || intersectsSegment(boxMinLng, boxMinLat, boxMaxLng, boxMinLat)
+                || intersectsSegment(boxMaxLng, boxMinLat, boxMaxLng, boxMaxLat)
+                || intersectsSegment(boxMaxLng, boxMaxLat, boxMinLng, boxMaxLat)
+                || intersectsSegment(boxMinLng, boxMaxLat, boxMinLng, boxMinLat);
+    }
+
+    /**
+     * @return INSIDE if the point is in one of the pieces, OUTSIDE if it is clear of all of them
+     * (further from their edges than the border tolerance), NEAR_BORDER otherwise
+     */
+    private int locate(double lng, double lat) {
+        int location = OUTSIDE;
+        for (ConvexPiece piece : pieces) {
+            int inPiece = piece.locate(lng, lat);
+            if (inPiece == INSIDE) {
+                return INSIDE;
+            }
+            location = Math.max(location, inPiece);
+        }
+        return location;
+    }
+
+    // z component of (x1, y1) x (x2, y2)
+    private static double cross(double x1, double y1, double x2, double y2) {
+        return x1 * y2 - y1 * x2;
+    }
+
+    /**
+     * A convex polygon with its vertices counter-clockwise and no three consecutive ones collinear.
+     */
+    private static final class ConvexPiece {
+
+        private final double[] xs;
+        private final double[] ys;
+        // Per edge (from vertex i to i + 1): how far outside the edge, as a cross product, a point
+        // may be and still be within the region's border tolerance of it
+        private final double[] tolerances;
+        private final double minX;
+        private final double minY;
+        private final double maxX;
+        private final double maxY;
+
+        ConvexPiece(double[] xs, double[] ys, double margin) {
+            this.xs = xs;
+            this.ys = ys;
+            int n = xs.length;
+            tolerances = new double[n];
+            double lowX = Double.POSITIVE_INFINITY, lowY = Double.POSITIVE_INFINITY;
+            double highX = Double.NEGATIVE_INFINITY, highY = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                int next = (i + 1) % n;
+                tolerances[i] = margin * Math.hypot(xs[next] - xs[i], ys[next] - ys[i]);
+                lowX = Math.min(lowX, xs[i]);
+                lowY = Math.min(lowY, ys[i]);
+                highX = Math.max(highX, xs[i]);
+                highY = Math.max(highY, ys[i]);
+            }
+            minX = lowX - margin;
+            minY = lowY - margin;
+            maxX = highX + margin;
+            maxY = highY + margin;
+        }
+
+        /**
+         * @return where the point is relative to this piece, as for {@link CompiledRegion#locate}
+         */
+        int locate(double px, double py) {
+            if (px < minX || px > maxX || py < minY || py > maxY) {
+                return OUTSIDE;
+            }
+            int edge = facingEdge(px, py);
+            double side = side(edge, px, py);
+            if (side < -tolerances[edge]) {
+                return OUTSIDE;
+            }
+            // Only inside if the facing edge came from the wedge search, so the point is also on the
+            // inner side of the two edges at vertex 0
+            return side >= 0 ? INSIDE : NEAR_BORDER;
+        }
+
+        /**
+         * Finds the edge the point faces in O(log n): edge 0 or the last edge if the point is on
+         * their outer side, otherwise the outer edge of the wedge from vertex 0 the point lies in,
+         * found by binary search. The point is in the piece if and only if it is on the inner side
+         * of that edge.
+         */
+        private int facingEdge(double px, double py) {
+            int n = xs.length;
+            double dx = px - xs[0];
+            double dy = py - ys[0];
+            if (cross(xs[1] - xs[0], ys[1] - ys[0], dx, dy) < 0) {
+                return 0;
+            }
+            if (cross(xs[0] - xs[n - 1], ys[0] - ys[n - 1], dx, dy) < 0) {
+                return n - 1;
+            }
+            int low = 1;
+            int high = n - 1;
+            while (high - low > 1) {
+                int mid = (low + high) >>> 1;
+                if (cross(xs[mid] - xs[0], ys[mid] - ys[0], dx, dy) >= 0) {
+                    low = mid;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Negative if the point is on the outer side of the edge from vertex i to i + 1
+        private double side(int i, double px, double py) {
+            int next = i + 1 == xs.length ? 0 : i + 1;
+            return cross(xs[next] - xs[i], ys[next] - ys[i], px - xs[i], py - ys[i]);
+        }
+
+        /**
+         * @return true unless an edge of the piece or the segment itself separates the two
+         */
+        boolean touches(double aX, double aY, double bX, double bY) {
+            if (Math.max(aX, bX) < minX || Math.min(aX, bX) > maxX
+                    || Math.max(aY, bY) < minY || Math.min(aY, bY) > maxY) {
+                return false;
+            }
+            // The edges the end points face are the likely separating axes, and tell whether an
+            // end point is inside; only if neither settles it are all axes tried
+            int aEdge = facingEdge(aX, aY);
+            int bEdge = facingEdge(bX, bY);
+            if (side(aEdge, aX, aY) >= 0 || side(bEdge, bX, bY) >= 0) {
+                return true;
+            }
+            if (side(aEdge, bX, bY) < 0 || side(bEdge, aX, aY) < 0) {
+                return false;
+            }
+
+            int n = xs.length;
+            for (int i = 0; i < n; i++) {
+                if (side(i, aX, aY) < 0 && side(i, bX, bY) < 0) {
+                    return false;
+                }
+            }
+            double segmentX = bX - aX;
+            double segmentY = bY - aY;
+            boolean left = false;
+            boolean right = false;
+            for (int i = 0; i < n; i++) {
+                double side = cross(segmentX, segmentY, xs[i] - aX, ys[i] - aY);
+                left |= side >= 0;
+                right |= side <= 0;
+                if (left && right) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Splits a simple polygon into convex pieces.
+     * @return the pieces, or null if the polygon has fewer than 3 vertices, is self-intersecting or
+     * has no area
+     */
+    private static ConvexPiece[] decompose(double[] lngs, double[] lats, double margin) {
+        List<Integer> outline = new ArrayList<>();
+        for (int i = 0; i < lngs.length; i++) {
+            outline.add(i);
+        }
+        // Collinear vertices do not change the polygon's shape; spikes doubling back on an edge do
+        // (Polygon counts them as border), so those polygons are not split
+        for (int i = 0; outline.size() >= 3 && i < outline.size(); ) {
+            int prev = outline.get((i + outline.size() - 1) % outline.size());
+            int cur = outline.get(i);
+            int next = outline.get((i + 1) % outline.size());
+            double turn = turn(lngs, lats, prev, cur, next);
+            if (turn == 0) {
+                double along = (lngs[cur] - lngs[prev]) * (lngs[next] - lngs[cur]) + (lats[cur] - lats[prev]) * (lats[next] - lats[cur]);
+                if (along <= 0) {
+                    return null;
+                }
+                outline.remove(i);
+                i = Math.max(0, i - 1);
+            } else {
+                i++;
+            }
+        }
+        if (outline.size() < 3 || !isSimple(lngs, lats, outline)) {
+            return null;
+        }
+
+        double area = 0;
+        for (int i = 0, j = outline.size() - 1; i < outline.size(); j = i++) {
+            area += cross(lngs[outline.get(j)], lats[outline.get(j)], lngs[outline.get(i)], lats[outline.get(i)]);
+        }
+        if (area == 0) {
+            return null;
+        }
+        if (area < 0) {
+            Collections.reverse(outline);
+        }
+
+        List<List<Integer>> convex = isConvex(lngs, lats, outline) ? List.of(outline) : mergeTriangles(lngs, lats, earClip(lngs, lats, outline));
+        if (convex == null) {
+            return null;
+        }
+        ConvexPiece[] pieces = new ConvexPiece[convex.size()];
+        for (int p = 0; p < pieces.length; p++) {
+            List<Integer> piece = convex.get(p);
+            double[] xs = new double[piece.size()];
+            double[] ys = new double[piece.size()];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = lngs[piece.get(i)];
+                ys[i] = lats[piece.get(i)];
+            }
+            pieces[p] = new ConvexPiece(xs, ys, margin);
+        }
+        return pieces;
+    }
+
+    // Positive for a left (counter-clockwise) turn at b
+    private static double turn(double[] xs, double[] ys, int a, int b, int c) {
+        return cross(xs[b] - xs[a], ys[b] - ys[a], xs[c] - xs[b], ys[c] - ys[b]);
+    }
+
+    private static boolean isConvex(double[] xs, double[] ys, List<Integer> polygon) {
+        int n = polygon.size();
+        for (int i = 0; i < n; i++) {
+            if (turn(xs, ys, polygon.get((i + n - 1) % n), polygon.get(i), polygon.get((i + 1) % n)) <= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if no two edges meet other than adjacent ones at their shared vertex
+     */
+    private static boolean isSimple(double[] xs, double[] ys, List<Integer> polygon) {
+        int n = polygon.size();
+        for (int i = 0; i < n; i++) {
+            int a = polygon.get(i);
+            int b = polygon.get((i + 1) % n);
+            for (int j = i + 1; j < n; j++) {
+                int c = polygon.get(j);
+                int d = polygon.get((j + 1) % n);
+                boolean adjacent = j == i + 1 || (i == 0 && j == n - 1);
+                if (xs[a] == xs[c] && ys[a] == ys[c] || xs[a] == xs[d] && ys[a] == ys[d]
+                        || xs[b] == xs[c] && ys[b] == ys[c] || xs[b] == xs[d] && ys[b] == ys[d]) {
+                    if (!adjacent) {
+                        return false; // a repeated vertex
+                    }
+                    continue;
+                }
+                if (segmentsMeet(xs, ys, a, b, c, d)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Closed segments ab and cd share a point
+    private static boolean segmentsMeet(double[] xs, double[] ys, int a, int b, int c, int d) {
+        double d1 = turn(xs, ys, a, b, c);
+        double d2 = turn(xs, ys, a, b, d);
+        double d3 = turn(xs, ys, c, d, a);
+        double d4 = turn(xs, ys, c, d, b);
+        if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+            return true;
+        }
+        return d1 == 0 && onSegment(xs, ys, a, b, c) || d2 == 0 && onSegment(xs, ys, a, b, d)
+                || d3 == 0 && onSegment(xs, ys, c, d, a) || d4 == 0 && onSegment(xs, ys, c, d, b);
+    }
+
+    // p, collinear with ab, lies within ab's bounding box
+    private static boolean onSegment(double[] xs, double[] ys, int a, int b, int p) {
+        return Math.min(xs[a], xs[b]) <= xs[p] && xs[p] <= Math.max(xs[a], xs[b])
+                && Math.min(ys[a], ys[b]) <= ys[p] && ys[p] <= Math.max(ys[a], ys[b]);
+    }
+
+    /**
+     * Ear clipping of a simple counter-clockwise polygon.
+     * @return counter-clockwise triangles, or null if no ear was found (only possible through rounding)
+     */
+    private static List<List<Integer>> earClip(double[] xs, double[] ys, List<Integer> polygon) {
+        List<Integer> remaining = new ArrayList<>(polygon);
+        List<List<Integer>> triangles = new ArrayList<>();
+        while (remaining.size() > 3) {
+            int n = remaining.size();
+            boolean clipped = false;
+            for (int i = 0; i < n && !clipped; i++) {
+                int prev = remaining.get((i + n - 1) % n);
+                int cur = remaining.get(i);
+                int next = remaining.get((i + 1) % n);
+                if (turn(xs, ys, prev, cur, next) <= 0) {
+                    continue; // reflex vertex
+                }
+                boolean empty = true;
+                for (int other : remaining) {
+                    if (other != prev && other != cur && other != next
+                            && turn(xs, ys, prev, cur, other) >= 0 && turn(xs, ys, cur, next, other) >= 0
+                            && turn(xs, ys, next, prev, other) >= 0) {
+                        empty = false;
+                        break;
+                    }
+                }
+                if (empty) {
+                    triangles.add(new ArrayList<>(List.of(prev, cur, next)));
+                    remaining.remove(i);
+                    clipped = true;
+                }
+            }
+            if (!clipped) {
+                return null;
+            }
+        }
+        if (turn(xs, ys, remaining.get(0), remaining.get(1), remaining.get(2)) > 0) {
+            triangles.add(remaining);
+        }
+        return triangles;
+    }
+
+    /**
+     * Merges pieces across shared diagonals while the result stays convex (Hertel-Mehlhorn), which
+     * leaves at most four times as many pieces as an optimal convex decomposition.
+     */
+    private static List<List<Integer>> mergeTriangles(double[] xs, double[] ys, List<List<Integer>> pieces) {
+        if (pieces == null) {
+            return null;
+        }
+        boolean merged = true;
+        while (merged) {
+            merged = false;
+            search:
+            for (int p = 0; p < pieces.size(); p++) {
+                for (int q = p + 1; q < pieces.size(); q++) {
+                    List<Integer> union = mergeAcrossSharedEdge(pieces.get(p), pieces.get(q));
+                    if (union != null && isConvexAllowingStraight(xs, ys, union)) {
+                        pieces.set(p, dropStraightVertices(xs, ys, union));
+                        pieces.remove(q);
+                        merged = true;
+                        break search;
+                    }
+                }
+            }
+        }
+        return pieces;
+    }
+
+    /**
+     * @return the outline of both pieces if p has an edge u to v and q the edge v to u, else null
+     */
+    private static List<Integer> mergeAcrossSharedEdge(List<Integer> p, List<Integer> q) {
+        int n = p.size();
+        int m = q.size();
+        for (int i = 0; i < n; i++) {
+            int u = p.get(i);
+            int v = p.get((i + 1) % n);
+            for (int j = 0; j < m; j++) {
+                if (q.get(j) == v && q.get((j + 1) % m) == u) {
+                    // p from v round to u, then q from after u round to before v
+                    List<Integer> union = new ArrayList<>(n + m - 2);
+                    for (int k = 0; k < n; k++) {
+                        union.add(p.get((i + 1 + k) % n));
+                    }
+                    for (int k = 2; k < m; k++) {
+                        union.add(q.get((j + k) % m));
+                    }
+                    return union;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean isConvexAllowingStraight(double[] xs, double[] ys, List<Integer> polygon) {
+        int n = polygon.size();
+        for (int i = 0; i < n; i++) {
+            if (turn(xs, ys, polygon.get((i + n - 1) % n), polygon.get(i), polygon.get((i + 1) % n)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Integer> dropStraightVertices(double[] xs, double[] ys, List<Integer> polygon) {
+        List<Integer> kept = new ArrayList<>(polygon.size());
+        int n = polygon.size();
+        for (int i = 0; i < n; i++) {
+            if (turn(xs, ys, polygon.get((i + n - 1) % n), polygon.get(i), polygon.get((i + 1) % n)) != 0) {
+                kept.add(polygon.get(i));
+            }
+        }
+        return kept;
+    }
+}
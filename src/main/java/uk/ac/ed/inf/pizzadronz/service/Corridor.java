@@ -0,0 +1,279 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.constant.SystemConstants;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * The cells of a coarse grid around a path planned on that grid, to which the full resolution
+ * search is restricted in {@link PathCalculator.Mode#HIERARCHICAL} mode.
+ *
+ * Within the corridor the search is guided by the distance to the goal through the corridor's free
+ * cells rather than in a straight line, so it follows the corridor round obstacles instead of
+ * filling the space in front of them (the lattice of drone positions is dense, so a search never
+ * runs out of new positions in a dead end).
+ */
+final class Corridor {
+
+    /**
+     * the width of a grid cell in drone moves
+     */
+    static final int CELL_MOVES = 4;
+
+    static final double CELL_SIZE = CELL_MOVES * SystemConstants.DRONE_MOVE_DISTANCE;
+
+    private static final int[][] NEIGHBOURS = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+
+    private final Grid grid;
+    private final int minColumn;
+    private final int minRow;
+    private final int columns;
+    private final int rows;
+    private final BitSet cells;
+    // Per cell: the distance from its anchor to the goal through free corridor cells
+    private final double[] costToGoal;
+
+    /**
+     * @param grid   the grid the path was planned on
+     * @param path   the cells of the path, from {@link Grid#plan}
+     * @param radius how many cells around every path cell the corridor also covers
+     */
+    Corridor(Grid grid, List<int[]> path, int radius) {
+        this.grid = grid;
+        int lowColumn = Integer.MAX_VALUE, lowRow = Integer.MAX_VALUE;
+        int highColumn = Integer.MIN_VALUE, highRow = Integer.MIN_VALUE;
+        for (int[] cell : path) {
+            lowColumn = Math.min(lowColumn, cell[0]);
+            lowRow = Math.min(lowRow, cell[1]);
+            highColumn = Math.max(highColumn, cell[0]);
+            highRow = Math.max(highRow, cell[1]);
+        }
+        this.minColumn = lowColumn - radius;
+        this.minRow = lowRow - radius;
+        this.columns = highColumn - lowColumn + 2 * radius + 1;
+        this.rows = highRow - lowRow + 2 * radius + 1;
+        this.cells = new BitSet(columns * rows);
+        for (int[] cell : path) {
+            for (int row = cell[1] - radius; row <= cell[1] + radius; row++) {
+                int offset = (row - minRow) * columns;
+                cells.set(offset + cell[0] - radius - minColumn, offset + cell[0] + radius - minColumn + 1);
+            }
+        }
+        this.costToGoal = costToGoal();
+    }
+
+    /**
+     * Dijkstra from the goal's cell over the free cells of the corridor. Blocked cells get the cost
+     * of reaching them from a free neighbour, but are not passed through.
+     */
+    private double[] costToGoal() {
+        double[] costs = new double[columns * rows];
+        Arrays.fill(costs, Double.POSITIVE_INFINITY);
+        int goal = index(grid.goalColumn, grid.goalRow);
+        costs[goal] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>(Comparator.comparingDouble((double[] entry) -> entry[0]));
+        queue.add(new double[]{0, goal});
+        while (!queue.isEmpty()) {
+            double[] entry = queue.poll();
+            int cell = (int) entry[1];
+            if (entry[0] > costs[cell]) {
+                continue;
+            }
+            int column = cell % columns + minColumn;
+            int row = cell / columns + minRow;
+            if (cell != goal && grid.isBlocked(column, row)) {
+                continue;
+            }
+            for (int[] step : NEIGHBOURS) {
+                int next = index(column + step[0], row + step[1]);
+                if (next < 0 || !cells.get(next)) {
+                    continue;
+                }
+                double cost = costs[cell] + distance(column, row, column + step[0], row + step[1]);
+                if (cost < costs[next]) {
+                    costs[next] = cost;
+                    queue.add(new double[]{cost, next});
+                }
+            }
+        }
+        return costs;
+    }
+
+    // Distance between the anchors of two cells: their centres, or the goal itself for its cell
+    private double distance(int column, int row, int otherColumn, int otherRow) {
+        return Math.hypot(grid.anchorLng(otherColumn, otherRow) - grid.anchorLng(column, row),
+                grid.anchorLat(otherColumn, otherRow) - grid.anchorLat(column, row));
+    }
+
+    /**
+     * @return the index of the cell in {@link #cells}, or -1 if it is outside the corridor's bounds
+     */
+    private int index(int column, int row) {
+        int x = column - minColumn;
+        int y = row - minRow;
+        return x >= 0 && x < columns && y >= 0 && y < rows ? y * columns + x : -1;
+    }
+
+    /**
+     * @return true if the position is in one of the corridor's cells
+     */
+    boolean contains(double lng, double lat) {
+        int cell = index(grid.column(lng), grid.row(lat));
+        return cell >= 0 && cells.get(cell);
+    }
+
+    /**
+     * @return an estimate of the distance from the position to the goal through the corridor: the
+     * shortest over the surrounding cells of the distance to a cell's anchor plus its cost to the goal
+     */
+    double distanceToGoal(double lng, double lat) {
+        int column = grid.column(lng);
+        int row = grid.row(lat);
+        double best = Double.POSITIVE_INFINITY;
+        for (int otherRow = row - 1; otherRow <= row + 1; otherRow++) {
+            for (int otherColumn = column - 1; otherColumn <= column + 1; otherColumn++) {
+                int cell = index(otherColumn, otherRow);
+                if (cell >= 0 && costToGoal[cell] < best) {
+                    double toAnchor = Math.hypot(grid.anchorLng(otherColumn, otherRow) - lng, grid.anchorLat(otherColumn, otherRow) - lat);
+                    best = Math.min(best, toAnchor + costToGoal[cell]);
+                }
+            }
+        }
+        // Off the corridor's free cells: fall back to the straight line
+        return best < Double.POSITIVE_INFINITY ? best : Math.hypot(grid.goal.lng() - lng, grid.goal.lat() - lat);
+    }
+
+    /**
+     * A grid anchored at the start position, with cells {@link #CELL_MOVES} drone moves wide. A cell
+     * is blocked if it touches a no-fly zone once grown by a move on every side, so a path of free
+     * cells keeps clear of the zones; the cells of the start and the goal are never blocked. The
+     * central area is left to the full resolution search.
+     */
+    static final class Grid {
+
+        // Beyond this the goal is taken to be unreachable on the grid
+        private static final int MAX_EXPANSIONS = 20_000;
+
+        private final LngLat start;
+        private final LngLat goal;
+        private final GeoSnapshot geometry;
+        private final int goalColumn;
+        private final int goalRow;
+        private final Map<Long, Boolean> blocked = new HashMap<>();
+
+        Grid(LngLat start, LngLat goal, GeoSnapshot geometry) {
+            this.start = start;
+            this.goal = goal;
+            this.geometry = geometry;
+            this.goalColumn = column(goal.lng());
+            this.goalRow = row(goal.lat());
+        }
+
+        int column(double lng) {
+            return (int) Math.floor((lng - start.lng()) / CELL_SIZE + 0.5);
+        }
+
+        int row(double lat) {
+            return (int) Math.floor((lat - start.lat()) / CELL_SIZE + 0.5);
+        }
+
+        double anchorLng(int column, int row) {
+            return column == goalColumn && row == goalRow ? goal.lng() : start.lng() + column * CELL_SIZE;
+        }
+
+        double anchorLat(int column, int row) {
+            return column == goalColumn && row == goalRow ? goal.lat() : start.lat() + row * CELL_SIZE;
+        }
+
+        boolean isBlocked(int column, int row) {
+            if ((column == 0 && row == 0) || (column == goalColumn && row == goalRow)) {
+                return false;
+            }
+            return blocked.computeIfAbsent(key(column, row), key -> {
+                double halfWidth = CELL_SIZE / 2 + SystemConstants.DRONE_MOVE_DISTANCE;
+                double centreLng = start.lng() + column * CELL_SIZE;
+                double centreLat = start.lat() + row * CELL_SIZE;
+                for (CompiledRegion noFlyZone : geometry.noFlyZones()) {
+                    if (noFlyZone.intersectsBox(centreLng - halfWidth, centreLat - halfWidth, centreLng + halfWidth, centreLat + halfWidth)) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+
+        /**
+         * Plans a path over free cells with A*, moving between the 8 neighbouring cells.
+         *
+         * @param listener asked whether to stop
+         * @return the cells (column, row) from the start's to the goal's, or null if there is no path
+         * @throws CancellationException if the listener cancelled the search
+         */
+        List<int[]> plan(PathSearchListener listener) {
+            PriorityQueue<Cell> openSet = new PriorityQueue<>(Comparator.comparingDouble((Cell cell) -> cell.fCost));
+            Map<Long, Cell> cheapest = new HashMap<>();
+
+            Cell startCell = new Cell(0, 0, 0, octileDistance(0, 0), null);
+            openSet.add(startCell);
+            cheapest.put(key(0, 0), startCell);
+
+            int expansions = 0;
+            while (!openSet.isEmpty()) {
+                Cell current = openSet.poll();
+                if (cheapest.get(key(current.column, current.row)) != current) {
+                    continue; // a cheaper way to this cell was queued after it
+                }
+                if (current.column == goalColumn && current.row == goalRow) {
+                    List<int[]> path = new ArrayList<>();
+                    for (Cell cell = current; cell != null; cell = cell.parent) {
+                        path.add(0, new int[]{cell.column, cell.row});
+                    }
+                    return path;
+                }
+                if (++expansions > MAX_EXPANSIONS) {
+                    return null;
+                }
+                if (listener.isCancelled()) {
+                    throw new CancellationException("Path search cancelled while planning the corridor");
+                }
+
+                for (int[] step : NEIGHBOURS) {
+                    int column = current.column + step[0];
+                    int row = current.row + step[1];
+                    double gCost = current.gCost + (step[0] != 0 && step[1] != 0 ? Math.sqrt(2) : 1);
+                    Cell existing = cheapest.get(key(column, row));
+                    if ((existing != null && gCost >= existing.gCost) || isBlocked(column, row)) {
+                        continue;
+                    }
+                    Cell next = new Cell(column, row, gCost, gCost + octileDistance(column, row), current);
+                    cheapest.put(key(column, row), next);
+                    openSet.add(next);
+                }
+            }
+            return null;
+        }
+
+        // Exact on an 8-connected grid without obstacles, in cells
+        private double octileDistance(int column, int row) {
+            int dx = Math.abs(goalColumn - column);
+            int dy = Math.abs(goalRow - row);
+            return Math.max(dx, dy) + (Math.sqrt(2) - 1) * Math.min(dx, dy);
+        }
+
+        private static long key(int column, int row) {
+            return ((long) column << 32) | (row & 0xFFFF_FFFFL);
+        }
+
+        private record Cell(int column, int row, double gCost, double fCost, Cell parent) {
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+/**
+ * Single pass, allocation free credit card checks.
+ *
+ * The card number must be 16 digits with a valid Luhn checksum, the expiry must be MM/YY with a
+ * month of 01-12 and the card must not expire before the end of today, and the CVV must be 3 digits.
+ * Expiry dates are compared as month indexes (year * 12 + month) against a cut-off that is cached
+ * and only recomputed when the day changes.
+ */
+public final class CreditCardValidator {
+
+    private static final int CARD_NUMBER_LENGTH = 16;
+    private static final int CVV_LENGTH = 3;
+
+    /**
+     * the first month index a card may expire in to be valid, and when that has to be recomputed
+     */
+    private record ExpiryCutoff(int firstValidMonth, long validUntilMillis) {
+    }
+
+    private static volatile ExpiryCutoff cutoff = new ExpiryCutoff(0, Long.MIN_VALUE);
+
+    private CreditCardValidator() {
+    }
+
+    /**
+     * Validates credit card information against today's date.
+     * @param card the credit card information, must not be null
+     * @return {@link OrderValidationCode#NO_ERROR} or the reason the card is invalid
+     */
+    public static OrderValidationCode validate(CreditCardInformation card) {
+        return validate(card, firstValidExpiryMonth());
+    }
+
+    /**
+     * Validates credit card information against a given expiry cut-off.
+     * @param card            the credit card information, must not be null
+     * @param firstValidMonth the earliest month index (year * 12 + month - 1) a card may expire in
+     * @return {@link OrderValidationCode#NO_ERROR} or the reason the card is invalid
+     */
+    public static OrderValidationCode validate(CreditCardInformation card, int firstValidMonth) {
+        if (!isValidCardNumber(card.getCreditCardNumber())) {
+            return OrderValidationCode.CARD_NUMBER_INVALID;
+        }
+        int expiryMonth = parseExpiryMonth(card.getCreditCardExpiry());
+        if (expiryMonth < firstValidMonth) {
+            return OrderValidationCode.EXPIRY_DATE_INVALID;
+        }
+        if (!isDigits(card.getCvv(), CVV_LENGTH)) {
+            return OrderValidationCode.CVV_INVALID;
+        }
+        return OrderValidationCode.NO_ERROR;
+    }
+
+    /**
+     * @return the earliest month index a card may expire in today; cached until midnight
+     */
+    public static int firstValidExpiryMonth() {
+        ExpiryCutoff current = cutoff;
+        long now = System.currentTimeMillis();
+        if (now >= current.validUntilMillis()) {
+            // One read of the date, so the cut-off and its end cannot straddle midnight
+            LocalDate today = LocalDate.now();
+            ZonedDateTime tomorrow = today.plusDays(1).atStartOfDay(ZoneId.systemDefault());
+            current = new ExpiryCutoff(firstValidExpiryMonth(today), tomorrow.toInstant().toEpochMilli());
+            cutoff = current;
+        }
+        return current.firstValidMonth();
+    }
+
+    /**
+     * A card is valid until the last day of its expiry month, exclusive.
+     * @param today the current date
+     * @return the earliest month index a card may expire in
+     */
+    public static int firstValidExpiryMonth(LocalDate today) {
+        int month = today.getYear() * 12 + today.getMonthValue() - 1;
+        return today.getDayOfMonth() == today.lengthOfMonth() ? month + 1 : month;
+    }
+
+    /**
+     * @return true if the number is 16 digits with a valid Luhn checksum
+     */
+    static boolean isValidCardNumber(String number) {
+        if (number == null || number.length() != CARD_NUMBER_LENGTH) {
+            return false;
+        }
+        int sum = 0;
+        for (int i = 0; i < CARD_NUMBER_LENGTH; i++) {
+            int digit = number.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return false;
+            }
+            // Double every second digit counting from the right, i.e. the even positions of 16 digits
+            if ((i & 1) == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * @return the month index of an MM/YY expiry, or -1 if it is malformed or the month is out of range
+     */
+    static int parseExpiryMonth(String expiry) {
+        if (expiry == null || expiry.length() != 5 || expiry.charAt(2) != '/') {
+            return -1;
+        }
+        int m1 = expiry.charAt(0) - '0';
+        int m2 = expiry.charAt(1) - '0';
+        int y1 = expiry.charAt(3) - '0';
+        int y2 = expiry.charAt(4) - '0';
+        if ((m1 | m2 | y1 | y2) < 0 || m1 > 9 || m2 > 9 || y1 > 9 || y2 > 9) {
+            return -1;
+        }
+        int month = m1 * 10 + m2;
+        if (month < 1 || month > 12) {
+            return -1;
+        }
+        return (2000 + y1 * 10 + y2) * 12 + month - 1;
+    }
+
+    private static boolean isDigits(String value, int length) {
+        if (value == null || value.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
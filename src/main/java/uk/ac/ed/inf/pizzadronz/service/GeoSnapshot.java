@@ -0,0 +1,93 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.ReferenceData;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, versioned view of the geometry used by the planner: the compiled central area,
+ * the compiled no-fly zones and the restaurant locations, together with the restaurants they came from
+ * so that orders can be validated against the same version.
+ *
+ * A new snapshot is built whenever the reference data changes and swapped in by
+ * {@link ReferenceDataService}, so anything derived from the geometry can be keyed by the version.
+ *
+ * @param version             a hash of the reference data the snapshot was compiled from (see
+ *                            {@link uk.ac.ed.inf.pizzadronz.gsonUtils.ReferenceDataSnapshotFile#contentHash}),
+ *                            so it identifies the geometry and restaurants across processes and restarts
+ * @param centralArea         the compiled central area
+ * @param noFlyZones          the compiled no-fly zones
+ * @param restaurants         the restaurants and their menus
+ * @param restaurantLocations restaurant name to location
+ * @param pizzaRestaurants    pizza name to the name of the (first) restaurant offering it
+ * @param airspace            the central area and no-fly zones rasterized for the planner
+ */
+public record GeoSnapshot(long version, CompiledRegion centralArea, List<CompiledRegion> noFlyZones,
+                          List<Restaurant> restaurants, Map<String, LngLat> restaurantLocations, Map<String, String> pizzaRestaurants,
+                          AirspaceRaster airspace) {
+
+    /**
+     * the snapshot in use before any reference data is known
+     */
+    public static final GeoSnapshot EMPTY = new GeoSnapshot(0, CompiledRegion.EMPTY, List.of(), List.of(), Map.of(), Map.of(),
+            AirspaceRaster.build(CompiledRegion.EMPTY, List.of()));
+
+    /**
+     * Compiles the geometry of the given reference data.
+     * @param version     the version of the new snapshot, the content hash of the data
+     * @param data        the reference data
+     * @return the new snapshot
+     */
+    public static GeoSnapshot compile(long version, ReferenceData data) {
+        Map<String, LngLat> restaurantLocations = new HashMap<>();
+        Map<String, String> pizzaRestaurants = new HashMap<>();
+        for (Restaurant restaurant : data.restaurants()) {
+            restaurantLocations.put(restaurant.name(), restaurant.location());
+            for (Pizza pizza : restaurant.menu()) {
+                pizzaRestaurants.putIfAbsent(pizza.name(), restaurant.name());
+            }
+        }
+        CompiledRegion centralArea = CompiledRegion.compile(data.centralArea());
+        List<CompiledRegion> noFlyZones = compileAll(data.noFlyZones());
+        return new GeoSnapshot(version, centralArea, noFlyZones, List.copyOf(data.restaurants()),
+                Map.copyOf(restaurantLocations), Map.copyOf(pizzaRestaurants),
+                AirspaceRaster.build(centralArea, noFlyZones));
+    }
+
+    /**
+     * Compiles a throwaway snapshot for geometry that is not managed by {@link ReferenceDataService}.
+     * @param noFlyZones  the no-fly zones
+     * @param centralArea the central area
+     * @return an unversioned snapshot (version -1) without restaurants
+     */
+    public static GeoSnapshot of(List<Region> noFlyZones, Region centralArea) {
+        CompiledRegion compiledCentralArea = CompiledRegion.compile(centralArea);
+        List<CompiledRegion> compiledNoFlyZones = compileAll(noFlyZones);
+        return new GeoSnapshot(-1, compiledCentralArea, compiledNoFlyZones, List.of(), Map.of(), Map.of(),
+                AirspaceRaster.build(compiledCentralArea, compiledNoFlyZones));
+    }
+
+    /**
+     * @param pizzaName the name of a pizza
+     * @return the location of the restaurant offering the pizza, or null if it is unknown
+     */
+    public LngLat restaurantLocationForPizza(String pizzaName) {
+        String restaurant = pizzaRestaurants.get(pizzaName);
+        return restaurant == null ? null : restaurantLocations.get(restaurant);
+    }
+
+    private static List<CompiledRegion> compileAll(List<Region> regions) {
+        List<CompiledRegion> compiled = new ArrayList<>(regions.size());
+        for (Region region : regions) {
+            compiled.add(CompiledRegion.compile(region));
+        }
+        return List.copyOf(compiled);
+    }
+}
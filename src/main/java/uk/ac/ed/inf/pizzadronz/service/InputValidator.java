@@ -1,16 +1,20 @@
 package uk.ac.ed.inf.pizzadronz.service;
 
-import uk.ac.ed.inf.pizzadronz.constant.OrderStatus;
 import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
 import uk.ac.ed.inf.pizzadronz.data.*;
+import uk.ac.ed.inf.pizzadronz.monitoring.OrderValidationEvent;
+import uk.ac.ed.inf.pizzadronz.monitoring.PizzaDronzMetrics;
 
 import java.time.DayOfWeek;
-import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 import static uk.ac.ed.inf.pizzadronz.constant.SystemConstants.MAX_PIZZAS_PER_ORDER;
 import static uk.ac.ed.inf.pizzadronz.constant.SystemConstants.ORDER_CHARGE_IN_PENCE;
+import static uk.ac.ed.inf.pizzadronz.service.OrderValidationRule.CostClass.CATALOG;
+import static uk.ac.ed.inf.pizzadronz.service.OrderValidationRule.CostClass.LOCAL;
 
 /**
  * Utility class for validating various inputs such as positions, angles, orders, and credit card information.
@@ -19,16 +23,15 @@ public class InputValidator {
 
     /**
      * Validates if a position is valid.
-     * A position is invalid if it is null or its longitude/latitude are out of acceptable ranges.
+     * A position is invalid if it is null or its longitude/latitude are out of acceptable ranges (or NaN).
      *
      * @param position the position to validate
      * @return true if the position is invalid, false otherwise
      */
-    public static boolean isNotValidPosition(Position position) {
+    public static boolean isNotValidPosition(LngLat position) {
         if (position == null) return true;
-        Double lng = position.getLng();
-        Double lat = position.getLat();
-        if (lng == null || lat == null) return true;
+        double lng = position.lng();
+        double lat = position.lat();
 
         // Longitude should be between -180 and 180, latitude between -90 and 90
         return !(lng >= -180) || !(lng <= 180) || !(lat >= -90) || !(lat <= 90);
@@ -52,7 +55,7 @@ public class InputValidator {
      * @param vertices the list of vertices
      * @return true if the vertices are invalid, false otherwise
      */
-    public static boolean isNotValidVertices(List<Position> vertices) {
+    public static boolean isNotValidVertices(List<LngLat> vertices) {
         if (vertices == null || vertices.size() < 3) return true;
         return vertices.stream().anyMatch(InputValidator::isNotValidPosition);
     }
@@ -81,206 +84,213 @@ public class InputValidator {
 
     /**
      * Validates credit card information.
-     * This includes checks for card number length, expiry format, and CVV format.
+     * This includes checks for the card number (16 digits, Luhn checksum), expiry date and CVV format.
      *
      * @param creditCardInfo the credit card information
-     * @param order          the associated order (to set validation codes)
-     * @return true if the credit card information is invalid, false otherwise
+     * @return NO_ERROR if the card is valid, the reason code otherwise (UNDEFINED if there is no card)
      */
-    public static boolean isNotValidCreditCard(CreditCardInformation creditCardInfo, Order order) {
-        if (creditCardInfo == null) return true;
-
-        // Check credit card number (16-digit length)
-        if (creditCardInfo.getCreditCardNumber() == null || creditCardInfo.getCreditCardNumber().length() != 16) {
-            order.setOrderValidationCode(OrderValidationCode.CARD_NUMBER_INVALID);
-            order.setOrderStatus(OrderStatus.INVALID);
-            return true;
-        }
-
-        // Check expiry date format (MM/YY)
-        if (!creditCardInfo.getCreditCardExpiry().matches("\\d{2}/\\d{2}")) {
-            order.setOrderValidationCode(OrderValidationCode.EXPIRY_DATE_INVALID);
-            order.setOrderStatus(OrderStatus.INVALID);
-            return true;
-        }
-
-        try {
-            // Parse expiry date
-            String[] parts = creditCardInfo.getCreditCardExpiry().split("/");
-            int expiryMonth = Integer.parseInt(parts[0]);
-            int expiryYear = Integer.parseInt(parts[1]) + 2000; // Convert to 4-digit year
-
-            // Validate month range
-            if (expiryMonth < 1 || expiryMonth > 12) {
-                order.setOrderValidationCode(OrderValidationCode.EXPIRY_DATE_INVALID);
-                order.setOrderStatus(OrderStatus.INVALID);
-                return true;
-            }
-
-            // Create a LocalDate for the last day of the expiry month
-            LocalDate expiryDate = LocalDate.of(expiryYear, expiryMonth, 1).plusMonths(1).minusDays(1);
-
-            // Get the current date
-            LocalDate today = LocalDate.now();
+    public static OrderValidationCode validateCreditCard(CreditCardInformation creditCardInfo) {
+        if (creditCardInfo == null) return OrderValidationCode.UNDEFINED;
+        return CreditCardValidator.validate(creditCardInfo);
+    }
 
-            // Check if expiry date is in the future
-            if (!expiryDate.isAfter(today)) {
-                order.setOrderValidationCode(OrderValidationCode.EXPIRY_DATE_INVALID);
-                order.setOrderStatus(OrderStatus.INVALID);
-                return true;
-            }
-        } catch (Exception e) {
-            // Handle any parsing or date-related exceptions
-            order.setOrderValidationCode(OrderValidationCode.EXPIRY_DATE_INVALID);
-            order.setOrderStatus(OrderStatus.INVALID);
-            return true;
-        }
+    /**
+     * Validates credit card information.
+     *
+     * @param creditCardInfo the credit card information
+     * @return true if the credit card information is invalid, false otherwise
+     * @see #validateCreditCard(CreditCardInformation)
+     */
+    public static boolean isNotValidCreditCard(CreditCardInformation creditCardInfo) {
+        return validateCreditCard(creditCardInfo) != OrderValidationCode.NO_ERROR;
+    }
 
+    // Order validation
+    /**
+     * Validates an order.
+     * This includes checks for pizza count, pizza availability, total price, credit card validity, and restaurant constraints.
+     * The order itself is not modified, so it can safely be shared between threads.
+     *
+     * @param order the order to validate
+     * @return the validation result; INVALID with code UNDEFINED if the order is invalid without a specific reason
+     */
+    public static OrderValidationResult validateOrder(Order order) {
+        return validateOrder(order, PizzaService::fetchRestaurants, true);
+    }
 
-        // Check CVV (3 digits)
-        if (creditCardInfo.getCvv() == null || !creditCardInfo.getCvv().matches("\\d{3}")) {
-            order.setOrderValidationCode(OrderValidationCode.CVV_INVALID);
-            order.setOrderStatus(OrderStatus.INVALID);
-            return true;
-        }
+    /**
+     * Validates an order against an already fetched list of restaurants,
+     * e.g. one catalog shared by a whole batch of orders.
+     *
+     * @param order       the order to validate
+     * @param restaurants the restaurants to validate against
+     * @return the validation result
+     */
+    public static OrderValidationResult validateOrder(Order order, List<Restaurant> restaurants) {
+        return validateOrder(order, () -> restaurants, true);
+    }
 
-        return false;
+    /**
+     * Validates a synthetic order without counting it in the rule statistics or the metrics.
+     *
+     * @param order       the order to validate
+     * @param restaurants the restaurants to validate against
+     * @return the validation result
+     */
+    static OrderValidationResult validateOrderUncounted(Order order, List<Restaurant> restaurants) {
+        return validateOrder(order, () -> restaurants, false);
     }
 
-    // Order validation
     /**
      * Validates an order.
-     * This includes checks for pizza count, pizza availability, total price, credit card validity, and restaurant constraints.
      *
      * @param order the order to validate
      * @return true if the order is invalid, false otherwise
+     * @see #validateOrder(Order)
      */
     public static boolean isNotValidOrder(Order order) {
-        if (order == null) return true;
+        return !validateOrder(order).isValid();
+    }
 
-        // Validate order number
-        if (order.getOrderNo() == null || order.getOrderNo().isEmpty()) return true;
+    private static OrderValidationResult validateOrder(Order order, Supplier<List<Restaurant>> catalog, boolean counted) {
+        if (order == null) return OrderValidationResult.invalid(OrderValidationCode.UNDEFINED);
 
-        // Validate the number of pizzas
-        int numberOfPizzas = order.getPizzasInOrder().length;
-        if (numberOfPizzas < 1) {
-            order.setOrderValidationCode(OrderValidationCode.EMPTY_ORDER);
-            order.setOrderStatus(OrderStatus.INVALID);
-            return true;
+        OrderValidationEvent event = new OrderValidationEvent();
+        event.begin();
+        OrderValidationCode code = ORDER_RULES.validate(order, catalog, counted);
+        if (counted) {
+            PizzaDronzMetrics.recordValidation(code);
         }
-        if (numberOfPizzas > MAX_PIZZAS_PER_ORDER) {
-            order.setOrderValidationCode(OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED);
-            order.setOrderStatus(OrderStatus.INVALID);
-            return true;
+        event.end();
+        if (event.shouldCommit()) {
+            event.orderNo = order.getOrderNo();
+            event.pizzaCount = order.getPizzasInOrder() == null ? 0 : order.getPizzasInOrder().length;
+            event.validationCode = code.name();
+            event.commit();
         }
+        if (code != OrderValidationCode.NO_ERROR) return OrderValidationResult.invalid(code);
+        return OrderValidationResult.VALID;
+    }
 
-        // Fetch restaurant data
-        List<Restaurant> restaurants = PizzaService.fetchRestaurants();
+    /**
+     * @return the counters of every order validation rule, in the order the rules run
+     */
+    public static List<ValidationRuleStatistics> getOrderRuleStatistics() {
+        return ORDER_RULES.getStatistics();
+    }
 
-        // Validate each pizza
-        for (Pizza pizza : order.getPizzasInOrder()) {
-            if (!restaurants.stream().anyMatch(restaurant -> Arrays.stream(restaurant.menu())
-                    .anyMatch(menuItem -> menuItem.name().equals(pizza.name())))) {
-                order.setOrderValidationCode(OrderValidationCode.PIZZA_NOT_DEFINED);
-                order.setOrderStatus(OrderStatus.INVALID);
-                return true;
-            }
+    private record Rule(String name, OrderValidationRule.CostClass costClass,
+                        BiFunction<Order, Supplier<List<Restaurant>>, OrderValidationCode> check) implements OrderValidationRule {
+        @Override
+        public OrderValidationCode check(Order order, Supplier<List<Restaurant>> catalog) {
+            return check.apply(order, catalog);
         }
+    }
 
-        // Validate total price
-        int calculatedTotal = Arrays.stream(order.getPizzasInOrder())
-                .mapToInt(Pizza::priceInPence)
-                .sum();
-        if (calculatedTotal + ORDER_CHARGE_IN_PENCE != order.getPriceTotalInPence()) {
-            order.setOrderValidationCode(OrderValidationCode.TOTAL_INCORRECT);
-            order.setOrderStatus(OrderStatus.INVALID);
-            return true;
-        }
-        // Validate if price for pizza is invalid
+    /**
+     * The order validation rules. Catalog-independent rules run first, so an order failing them
+     * never pays for the restaurant fetch.
+     */
+    private static final OrderValidationPipeline ORDER_RULES = new OrderValidationPipeline(List.of(
+            new Rule("orderNumber", LOCAL, (order, catalog) -> checkOrderNumber(order)),
+            new Rule("pizzaCount", LOCAL, (order, catalog) -> checkPizzaCount(order)),
+            new Rule("pizzaPrices", LOCAL, (order, catalog) -> checkPizzaPrices(order)),
+            new Rule("orderTotal", LOCAL, (order, catalog) -> checkOrderTotal(order)),
+            new Rule("creditCard", LOCAL, (order, catalog) -> checkCreditCard(order)),
+            new Rule("pizzasDefined", CATALOG, (order, catalog) -> checkPizzasDefined(order, catalog.get())),
+            new Rule("restaurantConstraints", CATALOG, (order, catalog) -> checkRestaurantConstraints(order, catalog.get()))
+    ));
+
+    private static OrderValidationCode checkOrderNumber(Order order) {
+        if (order.getOrderNo() == null || order.getOrderNo().isEmpty()) return OrderValidationCode.UNDEFINED;
+        return OrderValidationCode.NO_ERROR;
+    }
+
+    private static OrderValidationCode checkPizzaCount(Order order) {
+        int numberOfPizzas = order.getPizzasInOrder().length;
+        if (numberOfPizzas < 1) return OrderValidationCode.EMPTY_ORDER;
+        if (numberOfPizzas > MAX_PIZZAS_PER_ORDER) return OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED;
+        return OrderValidationCode.NO_ERROR;
+    }
+
+    private static OrderValidationCode checkPizzaPrices(Order order) {
         for (Pizza pizza : order.getPizzasInOrder()) {
-            if (pizza.priceInPence() <= 0) {
-                order.setOrderValidationCode(OrderValidationCode.PRICE_FOR_PIZZA_INVALID);
-                order.setOrderStatus(OrderStatus.INVALID);
-                return true;
-            }
+            if (pizza.priceInPence() <= 0) return OrderValidationCode.PRICE_FOR_PIZZA_INVALID;
         }
+        return OrderValidationCode.NO_ERROR;
+    }
 
-        // Validate credit card information
-        if (isNotValidCreditCard(order.getCreditCardInformation(), order)) return true;
+    private static OrderValidationCode checkOrderTotal(Order order) {
+        int calculatedTotal = 0;
+        for (Pizza pizza : order.getPizzasInOrder()) {
+            calculatedTotal += pizza.priceInPence();
+        }
+        if (calculatedTotal + ORDER_CHARGE_IN_PENCE != order.getPriceTotalInPence()) return OrderValidationCode.TOTAL_INCORRECT;
+        return OrderValidationCode.NO_ERROR;
+    }
 
-        // Additional restaurant constraints (multiple restaurants, closed restaurants, etc.)
-        if (!validateRestaurantConstraints(order, restaurants)) return true;
+    private static OrderValidationCode checkCreditCard(Order order) {
+        if (order.getCreditCardInformation() == null) return OrderValidationCode.UNDEFINED;
+        return CreditCardValidator.validate(order.getCreditCardInformation());
+    }
 
-        order.setOrderValidationCode(OrderValidationCode.NO_ERROR);
-        order.setOrderStatus(OrderStatus.VALID);
-        return false;
+    private static OrderValidationCode checkPizzasDefined(Order order, List<Restaurant> restaurants) {
+        for (Pizza pizza : order.getPizzasInOrder()) {
+            if (findRestaurantOffering(pizza, restaurants) == null) return OrderValidationCode.PIZZA_NOT_DEFINED;
+        }
+        return OrderValidationCode.NO_ERROR;
     }
 
     /**
-     * Validates that the given order satisfies all restaurant-related constraints.
-     *
-     * If any constraint is violated, the appropriate OrderValidationCode and OrderStatus
-     * are set on the order, and the function returns false.
+     * Validates that the given order satisfies all restaurant-related constraints:
+     * the prices match the menu, all pizzas come from one restaurant and it is open on the order date.
      *
      * @param order       The order to validate.
      * @param restaurants A list of available restaurants with their menus and details.
-     * @return true if all restaurant-related constraints are satisfied; false otherwise.
+     * @return NO_ERROR if all restaurant-related constraints are satisfied; the reason code otherwise.
      */
-    private static boolean validateRestaurantConstraints(Order order, List<Restaurant> restaurants) {
-        String commonRestaurant = null;
+    private static OrderValidationCode checkRestaurantConstraints(Order order, List<Restaurant> restaurants) {
+        Restaurant commonRestaurant = null;
 
         // Validate that all pizzas belong to the same restaurant
         for (Pizza pizza : order.getPizzasInOrder()) {
             // Find the restaurant that offers this pizza
-            Restaurant matchingRestaurant = restaurants.stream()
-                    .filter(restaurant -> Arrays.stream(restaurant.menu())
-                            .anyMatch(menuItem -> menuItem.name().equals(pizza.name())))
-                    .findFirst()
-                    .orElse(null);
-
-            // If no restaurant offers this pizza, set the appropriate error code
-            if (matchingRestaurant == null) {
-                order.setOrderValidationCode(OrderValidationCode.PIZZA_NOT_DEFINED);
-                order.setOrderStatus(OrderStatus.INVALID);
-                return false;
-            }
+            Restaurant matchingRestaurant = findRestaurantOffering(pizza, restaurants);
+            if (matchingRestaurant == null) return OrderValidationCode.PIZZA_NOT_DEFINED;
 
             // Check if the price matches the known price for this pizza
             boolean isPriceValid = Arrays.stream(matchingRestaurant.menu())
                     .anyMatch(menuItem -> menuItem.name().equals(pizza.name()) &&
                             menuItem.priceInPence() == pizza.priceInPence());
-
-            if (!isPriceValid) {
-                order.setOrderValidationCode(OrderValidationCode.PRICE_FOR_PIZZA_INVALID);
-                order.setOrderStatus(OrderStatus.INVALID);
-                return false; // Invalid price for a recognized pizza
-            }
+            if (!isPriceValid) return OrderValidationCode.PRICE_FOR_PIZZA_INVALID; // Invalid price for a recognized pizza
 
             // Check for consistent restaurant
             if (commonRestaurant == null) {
-                commonRestaurant = matchingRestaurant.name();
-            } else if (!commonRestaurant.equals(matchingRestaurant.name())) {
-                order.setOrderValidationCode(OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS);
-                order.setOrderStatus(OrderStatus.INVALID);
-                return false; // Pizzas are from different restaurants
+                commonRestaurant = matchingRestaurant;
+            } else if (!commonRestaurant.name().equals(matchingRestaurant.name())) {
+                return OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS; // Pizzas are from different restaurants
             }
         }
 
         // Validate if the restaurant is open on the order date
         DayOfWeek orderDay = order.getOrderDate().getDayOfWeek();
-        String finalCommonRestaurant = commonRestaurant;
+        String commonRestaurantName = commonRestaurant.name();
 
         boolean isRestaurantOpen = restaurants.stream()
-                .filter(restaurant -> restaurant.name().equals(finalCommonRestaurant))
+                .filter(restaurant -> restaurant.name().equals(commonRestaurantName))
                 .anyMatch(restaurant -> Arrays.asList(restaurant.openingDays()).contains(orderDay));
+        if (!isRestaurantOpen) return OrderValidationCode.RESTAURANT_CLOSED; // Restaurant is closed
 
-        if (!isRestaurantOpen) {
-            order.setOrderValidationCode(OrderValidationCode.RESTAURANT_CLOSED);
-            order.setOrderStatus(OrderStatus.INVALID);
-            return false; // Restaurant is closed
-        }
+        return OrderValidationCode.NO_ERROR; // All restaurant constraints are satisfied
+    }
 
-        return true; // All restaurant constraints are satisfied
+    private static Restaurant findRestaurantOffering(Pizza pizza, List<Restaurant> restaurants) {
+        for (Restaurant restaurant : restaurants) {
+            for (Pizza menuItem : restaurant.menu()) {
+                if (menuItem.name().equals(pizza.name())) return restaurant;
+            }
+        }
+        return null;
     }
 
 }
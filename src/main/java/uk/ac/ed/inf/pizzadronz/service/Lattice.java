@@ -0,0 +1,195 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.constant.SystemConstants;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+
+/**
+ * The lattice of positions the drone can reach from a start position with its 16 moves.
+ *
+ * The move in direction d (d * 22.5 degrees) is the opposite of the move in direction d + 8, so
+ * every reachable position is the start plus an integer combination k0 * m0 + ... + k7 * m7 of the
+ * first 8 moves. Those 8 are linearly independent over the rationals (they are 16th roots of unity,
+ * whose minimal polynomial x^8 + 1 has degree 8), so the coefficients identify a position exactly,
+ * whatever order the moves were made in. Comparing the doubles instead does not work: the same
+ * position reached by different move orders ends up with slightly different coordinates.
+ *
+ * A position's coefficients are kept as two longs, each holding four 16-bit lanes with an offset
+ * of 2^15, so a coefficient may range over +-32767 moves. Every move changes one lane by one and
+ * a search expands far fewer nodes than that, so lanes never overflow into each other.
+ */
+final class Lattice {
+
+    /**
+     * the number of move directions
+     */
+    static final int DIRECTIONS = 16;
+
+    /**
+     * the key (high and low word) of the start position
+     */
+    static final long ORIGIN = 0x8000_8000_8000_8000L;
+
+    private static final int LANES = DIRECTIONS / 2;
+    private static final int LANE_BITS = 16;
+    private static final long LANE_MASK = 0xFFFF;
+    private static final int LANE_OFFSET = 0x8000;
+
+    private static final double[] MOVE_LNG = new double[LANES];
+    private static final double[] MOVE_LAT = new double[LANES];
+
+    static {
+        for (int lane = 0; lane < LANES; lane++) {
+            double radians = Math.toRadians(lane * 22.5);
+            MOVE_LNG[lane] = SystemConstants.DRONE_MOVE_DISTANCE * Math.cos(radians);
+            MOVE_LAT[lane] = SystemConstants.DRONE_MOVE_DISTANCE * Math.sin(radians);
+        }
+    }
+
+    private Lattice() {
+    }
+
+    /**
+     * @param high      the high word of a key
+     * @param direction the direction of the move, 0 to 15
+     * @return the high word of the key after the move
+     */
+    static long moveHigh(long high, int direction) {
+        int lane = direction & (LANES - 1);
+        return lane < 4 ? high + step(direction, lane) : high;
+    }
+
+    /**
+     * @param low       the low word of a key
+     * @param direction the direction of the move, 0 to 15
+     * @return the low word of the key after the move
+     */
+    static long moveLow(long low, int direction) {
+        int lane = direction & (LANES - 1);
+        return lane >= 4 ? low + step(direction, lane - 4) : low;
+    }
+
+    private static long step(int direction, int laneInWord) {
+        long unit = 1L << (laneInWord * LANE_BITS);
+        return direction < LANES ? unit : -unit;
+    }
+
+    /**
+     * @param high  the high word of a key
+     * @param low   the low word of a key
+     * @param lane  the move direction, 0 to 7
+     * @return how many times the move in that direction was made, net of the opposite move
+     */
+    static int coefficient(long high, long low, int lane) {
+        long word = lane < 4 ? high : low;
+        return (int) ((word >>> ((lane & 3) * LANE_BITS)) & LANE_MASK) - LANE_OFFSET;
+    }
+
+    /**
+     * Converts a key back to a position. The same key always gives the same coordinates, and
+     * neighbouring keys differ by one move up to rounding in the last bits.
+     *
+     * @param start the position the lattice is anchored at
+     * @param high  the high word of the key
+     * @param low   the low word of the key
+     * @return the position
+     */
+    static LngLat toLngLat(LngLat start, long high, long low) {
+        if (high == ORIGIN && low == ORIGIN) {
+            return start;
+        }
+        double lng = 0;
+        double lat = 0;
+        for (int lane = 0; lane < LANES; lane++) {
+            int k = coefficient(high, low, lane);
+            lng += k * MOVE_LNG[lane];
+            lat += k * MOVE_LAT[lane];
+        }
+        return new LngLat(start.lng() + lng, start.lat() + lat);
+    }
+
+    /**
+     * An open addressing hash map from lattice keys to values, without boxing the keys.
+     *
+     * @param <V> the value type
+     */
+    static final class Map<V> {
+
+        private long[] highs;
+        private long[] lows;
+        private Object[] values;
+        private int size;
+
+        Map(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+            highs = new long[capacity];
+            lows = new long[capacity];
+            values = new Object[capacity];
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return the value for the key, or null if there is none
+         */
+        @SuppressWarnings("unchecked")
+        V get(long high, long low) {
+            int mask = values.length - 1;
+            for (int slot = hash(high, low) & mask; values[slot] != null; slot = (slot + 1) & mask) {
+                if (highs[slot] == high && lows[slot] == low) {
+                    return (V) values[slot];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Sets the value for the key, replacing any previous one.
+         * @param value not null
+         */
+        void put(long high, long low, V value) {
+            int mask = values.length - 1;
+            int slot = hash(high, low) & mask;
+            while (values[slot] != null) {
+                if (highs[slot] == high && lows[slot] == low) {
+                    values[slot] = value;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            highs[slot] = high;
+            lows[slot] = low;
+            values[slot] = value;
+            if (++size * 2 > values.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            long[] oldHighs = highs;
+            long[] oldLows = lows;
+            Object[] oldValues = values;
+            highs = new long[oldValues.length * 2];
+            lows = new long[oldValues.length * 2];
+            values = new Object[oldValues.length * 2];
+            int mask = values.length - 1;
+            for (int i = 0; i < oldValues.length; i++) {
+                if (oldValues[i] != null) {
+                    int slot = hash(oldHighs[i], oldLows[i]) & mask;
+                    while (values[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    highs[slot] = oldHighs[i];
+                    lows[slot] = oldLows[i];
+                    values[slot] = oldValues[i];
+                }
+            }
+        }
+
+        private static int hash(long high, long low) {
+            long h = (high * 0x9E3779B97F4A7C15L) ^ (low * 0xC2B2AE3D27D4EB4FL);
+            return (int) (h ^ (h >>> 29) ^ (h >>> 47));
+        }
+    }
+}
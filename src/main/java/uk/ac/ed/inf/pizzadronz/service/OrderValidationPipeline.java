@@ -0,0 +1,111 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.data.ValidationRuleStatistics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs order validation rules cheapest cost class first (keeping the declared order within a class)
+ * and stops at the first rejection, so orders failing a local check never fetch the catalog.
+ * Every rule keeps invocation, rejection and latency counters.
+ */
+public class OrderValidationPipeline {
+
+    private final List<Stage> stages;
+
+    /**
+     * @param rules the rules, in the order they should run within their cost class
+     */
+    public OrderValidationPipeline(List<OrderValidationRule> rules) {
+        List<Stage> ordered = new ArrayList<>(rules.size());
+        for (OrderValidationRule rule : rules) {
+            ordered.add(new Stage(rule));
+        }
+        ordered.sort(Comparator.comparing(stage -> stage.rule.costClass())); // stable sort
+        this.stages = List.copyOf(ordered);
+    }
+
+    /**
+     * Validates an order.
+     * @param order   the order to validate
+     * @param catalog supplies the restaurants, called at most once
+     * @return {@link OrderValidationCode#NO_ERROR}, the first rejection's reason code, or
+     *         {@link OrderValidationCode#UNDEFINED} if the order is invalid without a specific reason
+     */
+    public OrderValidationCode validate(Order order, Supplier<List<Restaurant>> catalog) {
+        return validate(order, catalog, true);
+    }
+
+    /**
+     * Validates an order.
+     * @param order   the order to validate
+     * @param catalog supplies the restaurants, called at most once
+     * @param counted whether to update the rule counters; synthetic orders are not counted
+     * @return as {@link #validate(Order, Supplier)}
+     */
+    public OrderValidationCode validate(Order order, Supplier<List<Restaurant>> catalog, boolean counted) {
+        Supplier<List<Restaurant>> fetchOnce = new Supplier<>() {
+            private List<Restaurant> restaurants;
+
+            @Override
+            public List<Restaurant> get() {
+                if (restaurants == null) {
+                    restaurants = catalog.get();
+                }
+                return restaurants;
+            }
+        };
+
+        for (Stage stage : stages) {
+            if (!counted) {
+                OrderValidationCode code = stage.rule.check(order, fetchOnce);
+                if (code != OrderValidationCode.NO_ERROR) {
+                    return code;
+                }
+                continue;
+            }
+            long start = System.nanoTime();
+            OrderValidationCode code = stage.rule.check(order, fetchOnce);
+            stage.nanos.add(System.nanoTime() - start);
+            stage.invocations.increment();
+            if (code != OrderValidationCode.NO_ERROR) {
+                stage.rejections.increment();
+                return code;
+            }
+        }
+        return OrderValidationCode.NO_ERROR;
+    }
+
+    /**
+     * @return the counters of every rule, in the order the rules run
+     */
+    public List<ValidationRuleStatistics> getStatistics() {
+        List<ValidationRuleStatistics> statistics = new ArrayList<>(stages.size());
+        for (Stage stage : stages) {
+            long invocations = stage.invocations.sum();
+            long nanos = stage.nanos.sum();
+            statistics.add(new ValidationRuleStatistics(stage.rule.name(), stage.rule.costClass().name(),
+                    invocations, stage.rejections.sum(), nanos,
+                    invocations == 0 ? 0 : nanos / 1000.0 / invocations));
+        }
+        return statistics;
+    }
+
+    private static final class Stage {
+        final OrderValidationRule rule;
+        final LongAdder invocations = new LongAdder();
+        final LongAdder rejections = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+
+        Stage(OrderValidationRule rule) {
+            this.rule = rule;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * One independent check in the order validation pipeline.
+ */
+public interface OrderValidationRule {
+
+    /**
+     * how expensive a rule is; the pipeline runs cheaper classes first
+     */
+    enum CostClass {
+        /**
+         * only looks at the order itself
+         */
+        LOCAL,
+
+        /**
+         * needs the restaurant catalog, which may have to be fetched
+         */
+        CATALOG
+    }
+
+    /**
+     * @return a short name for the rule, used in statistics
+     */
+    String name();
+
+    /**
+     * @return how expensive the rule is
+     */
+    CostClass costClass();
+
+    /**
+     * Checks the order.
+     * @param order   the order to check
+     * @param catalog supplies the restaurants; only fetched (once per order) when a rule asks for it
+     * @return {@link OrderValidationCode#NO_ERROR} if the order passes, the reason code if it does not,
+     *         or {@link OrderValidationCode#UNDEFINED} if it is invalid without a specific reason
+     */
+    OrderValidationCode check(Order order, Supplier<List<Restaurant>> catalog);
+}
@@ -0,0 +1,107 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.OrderValidationResult;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validates orders through {@link InputValidator}, remembering the results of recently seen orders.
+ *
+ * Every validation takes the current {@link GeoSnapshot} once and checks the order against that
+ * snapshot's restaurants, which the reference data refresher and every fetch keep current. Results are
+ * cached by the order's content together with that snapshot's version and the credit card expiry
+ * cut-off, so a retried or revalidated order is answered without running the rules again, and nothing
+ * stale survives a catalog change or the day the expiry check depends on.
+ */
+@Service
+public class OrderValidationService {
+
+    /**
+     * everything the validation result depends on
+     */
+    record CacheKey(String orderNo, LocalDate orderDate, int priceTotalInPence, List<Pizza> pizzas,
+                    String creditCardNumber, String creditCardExpiry, String cvv,
+                    long referenceDataVersion, int firstValidExpiryMonth) {
+
+        static CacheKey of(Order order, long referenceDataVersion, int firstValidExpiryMonth) {
+            CreditCardInformation card = order.getCreditCardInformation();
+            return new CacheKey(order.getOrderNo(), order.getOrderDate(), order.getPriceTotalInPence(),
+                    order.getPizzasInOrder() == null ? null : Arrays.asList(order.getPizzasInOrder().clone()),
+                    card == null ? null : card.getCreditCardNumber(),
+                    card == null ? null : card.getCreditCardExpiry(),
+                    card == null ? null : card.getCvv(),
+                    referenceDataVersion, firstValidExpiryMonth);
+        }
+    }
+
+    private final ReferenceDataService referenceDataService;
+    private final StripedLruCache<CacheKey, OrderValidationResult> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public OrderValidationService(ReferenceDataService referenceDataService,
+                                  @Value("${pizzadronz.validation-cache.size:10000}") int cacheSize) {
+        this.referenceDataService = referenceDataService;
+        this.cache = new StripedLruCache<>(cacheSize);
+    }
+
+    /**
+     * Validates an order against the current snapshot's restaurants, as
+     * {@link InputValidator#validateOrder(Order, List)} does; the order is not modified.
+     * @param order the order to validate
+     * @return the validation result
+     */
+    public OrderValidationResult validate(Order order) {
+        return validate(order, currentSnapshot());
+    }
+
+    /**
+     * @return the snapshot orders are validated against now, with the restaurants fetched if none are known yet
+     */
+    GeoSnapshot currentSnapshot() {
+        GeoSnapshot snapshot = referenceDataService.getGeoSnapshot();
+        if (snapshot.restaurants().isEmpty()) {
+            // No catalog known yet: fetching it records it in a new snapshot
+            PizzaService.fetchRestaurants();
+            snapshot = referenceDataService.getGeoSnapshot();
+        }
+        return snapshot;
+    }
+
+    /**
+     * Validates an order against the given snapshot's restaurants, e.g. one taken for a whole batch,
+     * sharing the cache with {@link #validate(Order)}.
+     * @param order    the order to validate
+     * @param snapshot from {@link #currentSnapshot()}
+     * @return the validation result
+     */
+    OrderValidationResult validate(Order order, GeoSnapshot snapshot) {
+        CacheKey key = CacheKey.of(order, snapshot.version(), CreditCardValidator.firstValidExpiryMonth());
+        OrderValidationResult cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        OrderValidationResult result = InputValidator.validateOrder(order, snapshot.restaurants());
+        cache.put(key, result);
+        return result;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+}
@@ -1,20 +1,95 @@
 package uk.ac.ed.inf.pizzadronz.service;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest;
 import uk.ac.ed.inf.pizzadronz.constant.SystemConstants;
 import uk.ac.ed.inf.pizzadronz.data.*;
+import uk.ac.ed.inf.pizzadronz.monitoring.PizzaDronzMetrics;
+import uk.ac.ed.inf.pizzadronz.monitoring.ServerTiming;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class PathCalculationService {
 
     private final PathDataService pathDataService;
+    private final ReferenceDataService referenceDataService;
+    private final Executor referenceDataExecutor;
+    private final Executor pathPlanningExecutor;
+    private final int progressInterval;
+    private final PathCalculator.Mode plannerMode;
 
-    public PathCalculationService(PathDataService pathDataService) {
+    public PathCalculationService(PathDataService pathDataService, ReferenceDataService referenceDataService,
+                                  @Qualifier("referenceDataExecutor") Executor referenceDataExecutor,
+                                  @Qualifier("pathPlanningExecutor") Executor pathPlanningExecutor,
+                                  @Value("${pizzadronz.planner.progress-interval:200}") int progressInterval,
+                                  @Value("${pizzadronz.planner.mode:direct}") PathCalculator.Mode plannerMode) {
         this.pathDataService = pathDataService;
+        this.referenceDataService = referenceDataService;
+        this.referenceDataExecutor = referenceDataExecutor;
+        this.pathPlanningExecutor = pathPlanningExecutor;
+        this.progressInterval = progressInterval;
+        this.plannerMode = plannerMode;
+    }
+
+    /**
+     * Plans the delivery path for the given order on the path planning executor.
+     *
+     * The search always runs to completion on the executor, even if the caller stops waiting for it
+     * (e.g. the request timed out).
+     *
+     * @param order The order for which the path is being calculated.
+     * @return the path, completed on a planner thread
+     * @throws RejectedExecutionException if the planner queue is full
+     */
+    public CompletableFuture<DeliveryPath> planDeliveryPathAsync(Order order) {
+        return planDeliveryPathAsync(order, new ServerTiming());
+    }
+
+    /**
+     * Plans the delivery path as {@link #planDeliveryPathAsync(Order)} does, recording how long it waited
+     * for a planner thread, fetched and searched.
+     *
+     * @param order  The order for which the path is being calculated.
+     * @param timing receives the queue, fetch and plan phases; read it once the future has completed
+     * @return the path, completed on a planner thread
+     * @throws RejectedExecutionException if the planner queue is full
+     */
+    public CompletableFuture<DeliveryPath> planDeliveryPathAsync(Order order, ServerTiming timing) {
+        long submitted = System.nanoTime();
+        return CompletableFuture.supplyAsync(() -> {
+            timing.recordSince(ServerTiming.Phase.QUEUE, submitted);
+            return planDeliveryPath(order, new PathCalculator(plannerMode), timing);
+        }, pathPlanningExecutor);
+    }
+
+    /**
+     * Plans the delivery path for the given order on the path planning executor, reporting progress
+     * to the listener every few hundred expanded nodes. Unlike {@link #planDeliveryPathAsync(Order)}
+     * the search stops as soon as the listener cancels it, and the future completes with a
+     * {@link java.util.concurrent.CancellationException}.
+     *
+     * @param order    The order for which the path is being calculated.
+     * @param listener follows and may cancel the search
+     * @return the path, completed on a planner thread
+     * @throws RejectedExecutionException if the planner queue is full
+     */
+    public CompletableFuture<DeliveryPath> planDeliveryPathAsync(Order order, PathSearchListener listener) {
+        return CompletableFuture.supplyAsync(
+                () -> planDeliveryPath(order, new PathCalculator(listener, progressInterval, plannerMode), new ServerTiming()), pathPlanningExecutor);
     }
 
     /**
@@ -22,20 +97,160 @@ public class PathCalculationService {
      *
      * The path is computed from the restaurant location to the "AT" location,
      * avoiding no-fly zones and ensuring compliance with central area constraints.
+     * The restaurant, no-fly zones and central area are fetched concurrently.
      *
      * @param order The order for which the path is being calculated.
      * @return A list of LngLat points representing the calculated delivery path.
      */
     public List<LngLat> calcDeliveryPath(Order order) {
+        return planDeliveryPath(order).path();
+    }
+
+    /**
+     * Calculates the delivery path for the given order, as {@link #calcDeliveryPath(Order)} does.
+     *
+     * @param order The order for which the path is being calculated.
+     * @return the path and the version of the geometry snapshot it was planned against
+     */
+    public DeliveryPath planDeliveryPath(Order order) {
+        return planDeliveryPath(order, new ServerTiming());
+    }
+
+    /**
+     * Calculates the delivery path for the given order, recording how long it fetched and searched.
+     *
+     * @param order  The order for which the path is being calculated.
+     * @param timing receives the fetch and plan phases
+     * @return the path and the version of the geometry snapshot it was planned against
+     */
+    public DeliveryPath planDeliveryPath(Order order, ServerTiming timing) {
+        return planDeliveryPath(order, new PathCalculator(plannerMode), timing);
+    }
+
+    private DeliveryPath planDeliveryPath(Order order, PathCalculator pathCalculator, ServerTiming timing) {
         // Extract required details from the Order
-        LngLat restaurantLocation = getRestaurantLocation(order);
+        long fetchStart = System.nanoTime();
+        BlockingQueue<Fetch<?>> completed = new LinkedBlockingQueue<>();
+        Fetch<LngLat> restaurantLocation = fetch(() -> getRestaurantLocation(order), completed);
+        Fetch<List<IsInRegionRequest.Region>> noFlyZones = fetch(pathDataService::getNoFlyZones, completed);
+        Fetch<IsInRegionRequest.Region> centralArea = fetch(pathDataService::getCentralArea, completed);
+        awaitAll(completed, List.of(restaurantLocation, noFlyZones, centralArea));
+        long fetchNanos = System.nanoTime() - fetchStart;
+        PizzaDronzMetrics.recordPhase(PizzaDronzMetrics.PlanningPhase.FETCH, fetchNanos);
+        timing.record(ServerTiming.Phase.FETCH, fetchNanos);
+
         LngLat atLocation = getATLocation();
-        List<IsInRegionRequest.Region> noFlyZones = pathDataService.getNoFlyZones();
-        IsInRegionRequest.Region centralArea = pathDataService.getCentralArea();
+
+        // The fetches record what they got in the reference data service, so this is normally the
+        // shared compiled geometry
+        GeoSnapshot geometry = referenceDataService.getGeoSnapshot(centralArea.result(), noFlyZones.result());
 
         // Perform path calculation using A*
-        PathCalculator pathCalculator = new PathCalculator();
-        return pathCalculator.calculatePath(restaurantLocation, atLocation, noFlyZones, centralArea);
+        long searchStart = System.nanoTime();
+        try {
+            return new DeliveryPath(geometry.version(), pathCalculator.calculatePath(restaurantLocation.result(), atLocation, geometry));
+        } finally {
+            long searchNanos = System.nanoTime() - searchStart;
+            PizzaDronzMetrics.recordPhase(PizzaDronzMetrics.PlanningPhase.SEARCH, searchNanos);
+            timing.record(ServerTiming.Phase.PLAN, searchNanos);
+        }
+    }
+
+    /**
+     * The route the order would be planned for with the current geometry, without fetching anything.
+     *
+     * @param order the order
+     * @return the route key, or null if the restaurant is not known yet
+     */
+    public RouteKey currentRouteKey(Order order) {
+        Pizza[] pizzas = order.getPizzasInOrder();
+        if (pizzas == null || pizzas.length == 0) return null;
+        GeoSnapshot geometry = referenceDataService.getGeoSnapshot();
+        LngLat start = geometry.restaurantLocationForPizza(pizzas[0].name());
+        return start == null ? null : new RouteKey(geometry.version(), start, getATLocation());
+    }
+
+    /**
+     * The route a planned path was calculated for.
+     *
+     * @param deliveryPath a path from {@link #planDeliveryPath(Order)}
+     * @return the route key, or null if no path was found
+     */
+    public RouteKey routeKey(DeliveryPath deliveryPath) {
+        List<LngLat> path = deliveryPath.path();
+        // A path starts at the restaurant
+        return path.isEmpty() ? null : new RouteKey(deliveryPath.snapshotVersion(), path.get(0), getATLocation());
+    }
+
+    private <T> Fetch<T> fetch(Callable<T> task, BlockingQueue<Fetch<?>> completed) {
+        Fetch<T> fetch = new Fetch<>(task, completed);
+        referenceDataExecutor.execute(fetch);
+        return fetch;
+    }
+
+    /**
+     * Waits for all fetches to finish, in the order they finish. As soon as one of them fails the
+     * others are cancelled, which interrupts those already running and keeps queued ones from
+     * starting, and the original exception is rethrown.
+     */
+    private static void awaitAll(BlockingQueue<Fetch<?>> completed, List<Fetch<?>> fetches) {
+        try {
+            for (int remaining = fetches.size(); remaining > 0; remaining--) {
+                Fetch<?> fetch = completed.take();
+                try {
+                    fetch.get();
+                } catch (ExecutionException e) {
+                    cancelAll(fetches);
+                    if (e.getCause() instanceof RuntimeException cause) {
+                        throw cause;
+                    }
+                    throw new CompletionException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            cancelAll(fetches);
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while fetching reference data");
+        }
+    }
+
+    /**
+     * Cancels the fetches, last submitted first: those still queued are cancelled before interrupting
+     * the running ones frees a thread that could pick them up.
+     */
+    private static void cancelAll(List<Fetch<?>> fetches) {
+        for (int i = fetches.size() - 1; i >= 0; i--) {
+            fetches.get(i).cancel(true);
+        }
+    }
+
+    /**
+     * A reference data fetch that reports itself to a queue when it is done.
+     */
+    private static final class Fetch<T> extends FutureTask<T> {
+
+        private final BlockingQueue<Fetch<?>> completed;
+
+        Fetch(Callable<T> task, BlockingQueue<Fetch<?>> completed) {
+            super(task);
+            this.completed = completed;
+        }
+
+        @Override
+        protected void done() {
+            completed.add(this);
+        }
+
+        /**
+         * @return the result of a fetch that has completed normally
+         */
+        T result() {
+            try {
+                return get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new IllegalStateException("Fetch has not completed normally", e);
+            }
+        }
     }
 
     /**
@@ -1,15 +1,91 @@
 package uk.ac.ed.inf.pizzadronz.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import uk.ac.ed.inf.pizzadronz.constant.SystemConstants;
 import uk.ac.ed.inf.pizzadronz.data.LngLat;
 import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
-import uk.ac.ed.inf.pizzadronz.data.Position;
-import uk.ac.ed.inf.pizzadronz.gsonUtils.FileUtils;
-import uk.ac.ed.inf.pizzadronz.gsonUtils.GeoJsonExporter;
+import uk.ac.ed.inf.pizzadronz.monitoring.PathSearchEvent;
+import uk.ac.ed.inf.pizzadronz.monitoring.PizzaDronzMetrics;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
 
 public class PathCalculator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PathCalculator.class);
+
+    /**
+     * How the search covers the area between the start and the goal.
+     */
+    public enum Mode {
+        /**
+         * one A* search at full lattice resolution
+         */
+        DIRECT,
+        /**
+         * on routes longer than a few grid cells, first plan on a coarse grid (see {@link Corridor}),
+         * then search at full resolution only within a corridor around that plan; if that finds no
+         * path, again in a wider corridor, and finally without one
+         */
+        HIERARCHICAL
+    }
+
+    // Corridor radii (in grid cells) tried in turn before searching without a corridor
+    private static final int[] CORRIDOR_RADII = {1, 3};
+    // Routes shorter than this many grid cells are always searched directly
+    private static final int MIN_HIERARCHICAL_CELLS = 8;
+    // The geometry checks of one expansion in every 16 (starting with the first) are timed
+    private static final int GEOMETRY_SAMPLE_MASK = 15;
+
+    private final PathSearchListener listener;
+    private final int progressInterval;
+    private final Mode mode;
+    private final boolean recorded;
+
+    public PathCalculator() {
+        this(PathSearchListener.NONE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param mode how to search
+     */
+    public PathCalculator(Mode mode) {
+        this(PathSearchListener.NONE, Integer.MAX_VALUE, mode);
+    }
+
+    /**
+     * @param listener         told about the progress of every search, and asked whether to stop it
+     * @param progressInterval report progress every this many expanded nodes
+     */
+    public PathCalculator(PathSearchListener listener, int progressInterval) {
+        this(listener, progressInterval, Mode.DIRECT);
+    }
+
+    /**
+     * @param listener         told about the progress of every search, and asked whether to stop it
+     * @param progressInterval report progress every this many expanded nodes
+     * @param mode             how to search
+     */
+    public PathCalculator(PathSearchListener listener, int progressInterval, Mode mode) {
+        this(listener, progressInterval, mode, true);
+    }
+
+    private PathCalculator(PathSearchListener listener, int progressInterval, Mode mode, boolean recorded) {
+        this.listener = listener;
+        this.progressInterval = Math.max(1, progressInterval);
+        this.mode = mode;
+        this.recorded = recorded;
+    }
+
+    /**
+     * @param mode how to search
+     * @return a calculator whose searches are not recorded in the metrics, for synthetic searches
+     */
+    static PathCalculator unrecorded(Mode mode) {
+        return new PathCalculator(PathSearchListener.NONE, Integer.MAX_VALUE, mode, false);
+    }
+
     /**
      * Calculates the optimal delivery path using the A* algorithm.
      *
@@ -20,122 +96,229 @@ public class PathCalculator {
      * @return A list of LngLat positions representing the path.
      */
     public List<LngLat> calculatePath(LngLat start, LngLat goal, List<Region> noFlyZones, Region centralArea) {
+        return calculatePath(start, goal, GeoSnapshot.of(noFlyZones, centralArea));
+    }
+
+    /**
+     * Calculates the optimal delivery path using the A* algorithm.
+     *
+     * @param start    The starting position (restaurant location).
+     * @param goal     The goal position ("AT" location).
+     * @param geometry The compiled no-fly zones and central area to respect.
+     * @return A list of LngLat positions representing the path.
+     * @throws CancellationException if the listener cancelled the search
+     */
+    public List<LngLat> calculatePath(LngLat start, LngLat goal, GeoSnapshot geometry) {
+        SearchStatistics statistics = new SearchStatistics();
+        PathSearchEvent event = new PathSearchEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        List<LngLat> path = null;
+        try {
+            path = mode == Mode.HIERARCHICAL
+                    ? hierarchicalSearch(start, goal, geometry, statistics)
+                    : search(start, goal, geometry, statistics, null);
+            return path;
+        } finally {
+            if (recorded) {
+                PizzaDronzMetrics.recordSearch(statistics.outcome, System.nanoTime() - startTime, statistics.expansions,
+                        statistics.polygonTests, statistics.geometryNanos(), statistics.openSetPeak);
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.startLng = start.lng();
+                event.startLat = start.lat();
+                event.goalLng = goal.lng();
+                event.goalLat = goal.lat();
+                event.snapshotVersion = geometry.version();
+                event.iterations = statistics.expansions;
+                event.nodesExpanded = statistics.nodesExpanded;
+                event.nodesGenerated = statistics.nodesGenerated;
+                event.openSetPeak = statistics.openSetPeak;
+                event.polygonTests = statistics.polygonTests;
+                event.setOutcome(statistics.outcome);
+                event.pathLength = path == null ? 0 : path.size();
+                event.commit();
+            }
+        }
+    }
+
+    private List<LngLat> hierarchicalSearch(LngLat start, LngLat goal, GeoSnapshot geometry, SearchStatistics statistics) {
+        double routeLength = Calculations.calculateEuclideanDistance(start.lng(), start.lat(), goal.lng(), goal.lat());
+        if (routeLength < MIN_HIERARCHICAL_CELLS * Corridor.CELL_SIZE) {
+            return search(start, goal, geometry, statistics, null);
+        }
+
+        Corridor.Grid grid = new Corridor.Grid(start, goal, geometry);
+        List<int[]> cells = grid.plan(listener);
+        if (cells == null) {
+            logger.debug("No coarse path from {} to {}, searching without a corridor", start, goal);
+            return search(start, goal, geometry, statistics, null);
+        }
+        for (int radius : CORRIDOR_RADII) {
+            List<LngLat> path = search(start, goal, geometry, statistics, new Corridor(grid, cells, radius));
+            if (!path.isEmpty()) {
+                return path;
+            }
+            logger.debug("No path from {} to {} within {} cells of the coarse path", start, goal, radius);
+        }
+        return search(start, goal, geometry, statistics, null);
+    }
+
+    /**
+     * A* search on the lattice of drone moves from the start.
+     *
+     * @param corridor if not null, positions outside it are not visited and the distance to the goal
+     *                 is estimated through it
+     */
+    private List<LngLat> search(LngLat start, LngLat goal, GeoSnapshot geometry, SearchStatistics statistics, Corridor corridor) {
         PriorityQueue<Node> openSet = new PriorityQueue<>(Comparator.comparingDouble(Node::getFCost));
-        Set<LngLat> closedSet = new HashSet<>();
+        // Every position reached so far, open or closed, by its exact lattice key, with the cheapest way there
+        Lattice.Map<Node> nodes = new Lattice.Map<>(1024);
 
-        Node startNode = new Node(start, 0, heuristic(start, goal), null);
+        Node startNode = new Node(Lattice.ORIGIN, Lattice.ORIGIN, start, 0, heuristic(start, goal, corridor), null);
         openSet.add(startNode);
+        nodes.put(startNode.high, startNode.low, startNode);
+        Node closestNode = startNode;
 
-        System.out.println("Starting path calculation:");
-        System.out.println("Start: " + start + ", Goal: " + goal);
+        logger.debug("Starting path calculation from {} to {}", start, goal);
 
         int maxIterations = 10000;
         int iterationCount = 0;
 
         while (!openSet.isEmpty()) {
+            statistics.openSetPeak = Math.max(statistics.openSetPeak, openSet.size());
+            Node current = openSet.poll();
+            if (current.superseded) {
+                continue; // a cheaper way to its position was queued after it
+            }
+
             iterationCount++;
             if (iterationCount > maxIterations) {
-                System.out.println("Too many iterations, possible infinite loop.");
+                logger.warn("Path search from {} to {} gave up after {} iterations", start, goal, maxIterations);
+                statistics.outcome = PizzaDronzMetrics.SearchOutcome.ITERATION_CAP;
                 return new ArrayList<>();
             }
 
-            Node current = openSet.poll();
-            System.out.println("Current Node: " + current.position);
+            if (listener.isCancelled()) {
+                statistics.outcome = PizzaDronzMetrics.SearchOutcome.CANCELLED;
+                throw new CancellationException("Path search cancelled after " + (iterationCount - 1) + " expansions");
+            }
 
-            Double distance = Calculations.calculateEuclideanDistance(
-                    current.position.getLng(), current.position.getLat(),
-                    goal.getLng(), goal.getLat()
-            );
+            statistics.expansions++;
 
-            if (distance < SystemConstants.DRONE_IS_CLOSE_DISTANCE) {
-                System.out.println("Goal reached. Distance to goal: " + distance);
-                List<LngLat> path = reconstructPath(current);
+            if (current.hCost < closestNode.hCost) {
+                closestNode = current;
+            }
+            if (iterationCount % progressInterval == 0) {
+                listener.onProgress(new PathSearchListener.Progress(iterationCount, current.getFCost(), reconstructPath(closestNode)));
+            }
 
-                // Generate GeoJSON for visualization
-                String geoJson = GeoJsonExporter.generateGeoJson(path);
-                FileUtils.saveToFile(geoJson, "flightpath.geojson");
-                System.out.println("GeoJSON saved to flightpath.geojson");
+            double distance = Calculations.calculateEuclideanDistance(
+                    current.position.lng(), current.position.lat(),
+                    goal.lng(), goal.lat()
+            );
 
-                return path;
+            if (distance < SystemConstants.DRONE_IS_CLOSE_DISTANCE) {
+                logger.debug("Goal reached after {} expansions. Distance to goal: {}", iterationCount, distance);
+                statistics.outcome = PizzaDronzMetrics.SearchOutcome.FOUND;
+                return reconstructPath(current);
             }
 
-            closedSet.add(current.position);
-
-            for (LngLat neighbor : getNeighbors(current.position)) {
-                if (closedSet.contains(neighbor) || isInvalidNode(neighbor, noFlyZones, centralArea, current)) {
+            current.closed = true;
+            statistics.nodesExpanded++;
+            // Geometry checks are timed on a sample of expansions, two clock reads per check would cost
+            // about as much as a raster lookup
+            boolean timed = (iterationCount & GEOMETRY_SAMPLE_MASK) == 1;
+
+            for (int direction = 0; direction < Lattice.DIRECTIONS; direction++) {
+                long high = Lattice.moveHigh(current.high, direction);
+                long low = Lattice.moveLow(current.low, direction);
+                Node existingNode = nodes.get(high, low);
+                if (existingNode != null && existingNode.closed) {
                     continue;
                 }
 
+                LngLat neighbor = existingNode != null ? existingNode.position : Lattice.toLngLat(start, high, low);
+                if (corridor != null && !corridor.contains(neighbor.lng(), neighbor.lat())) {
+                    continue;
+                }
                 double tentativeGCost = current.gCost + stepCost(current.position, neighbor);
-
-                Optional<Node> existingNeighbor = openSet.stream()
-                        .filter(n -> n.position.equals(neighbor))
-                        .findFirst();
-
-                if (existingNeighbor.isPresent()) {
-                    Node existingNode = existingNeighbor.get();
-                    if (tentativeGCost < existingNode.gCost) {
-                        openSet.remove(existingNode);
-                        Node updatedNode = new Node(neighbor, tentativeGCost, heuristic(neighbor, goal), current);
-                        openSet.add(updatedNode);
-                    }
+                if (existingNode != null && tentativeGCost >= existingNode.gCost) {
+                    continue;
+                }
+                if (isInvalidNode(neighbor, geometry, current, statistics, timed)) {
                     continue;
                 }
 
-                Node neighborNode = new Node(neighbor, tentativeGCost, heuristic(neighbor, goal), current);
+                double hCost;
+                if (existingNode != null) {
+                    existingNode.superseded = true;
+                    hCost = existingNode.hCost;
+                } else {
+                    hCost = heuristic(neighbor, goal, corridor);
+                }
+                Node neighborNode = new Node(high, low, neighbor, tentativeGCost, hCost, current);
+                nodes.put(high, low, neighborNode);
                 openSet.add(neighborNode);
+                statistics.nodesGenerated++;
             }
         }
 
-        System.out.println("No valid path found.");
+        logger.debug("No valid path found from {} to {}", start, goal);
+        statistics.outcome = PizzaDronzMetrics.SearchOutcome.NOT_FOUND;
         return new ArrayList<>(); // No valid path found
     }
 
-    private static double heuristic(LngLat current, LngLat goal) {
-        double euclideanDistance = Math.sqrt(Math.pow(goal.getLng() - current.getLng(), 2) +
-                Math.pow(goal.getLat() - current.getLat(), 2));
-        return euclideanDistance * 1.1; // Add slight weight to prioritize closeness
+    private static double heuristic(LngLat current, LngLat goal, Corridor corridor) {
+        double distance = corridor != null ? corridor.distanceToGoal(current.lng(), current.lat())
+                : Math.sqrt(Math.pow(goal.lng() - current.lng(), 2) + Math.pow(goal.lat() - current.lat(), 2));
+        return distance * 1.1; // Add slight weight to prioritize closeness
     }
 
-    private List<LngLat> getNeighbors(LngLat position) {
-        double stepSize = SystemConstants.DRONE_MOVE_DISTANCE;
-        List<LngLat> neighbors = new ArrayList<>();
-
-        // Define 16 directions (angle in degrees)
-        double[] angles = {0, 22.5, 45, 67.5, 90, 112.5, 135, 157.5, 180, 202.5, 225, 247.5, 270, 292.5, 315, 337.5};
-
-        for (double angle : angles) {
-            double radians = Math.toRadians(angle);
-            double lng = position.getLng() + stepSize * Math.cos(radians);
-            double lat = position.getLat() + stepSize * Math.sin(radians);
-            neighbors.add(new LngLat(lng, lat));
+    private boolean isInvalidNode(LngLat node, GeoSnapshot geometry, Node current, SearchStatistics statistics, boolean timed) {
+        statistics.geometryChecks++;
+        if (!timed) {
+            return isInvalidNode(node, geometry, current.position, statistics);
+        }
+        statistics.timedGeometryChecks++;
+        long startTime = System.nanoTime();
+        try {
+            return isInvalidNode(node, geometry, current.position, statistics);
+        } finally {
+            statistics.timedGeometryNanos += System.nanoTime() - startTime;
         }
-
-        System.out.println("Neighbors for " + position.getLat() + ", " + position.getLng() + ": " + neighbors);
-        return neighbors;
     }
 
-    private boolean isInvalidNode(LngLat node, List<Region> noFlyZones, Region centralArea, Node current) {
-        Position nodePosition = new Position(node.getLng(), node.getLat());
-        LngLat currentPosition = current.position;
+    private static boolean isInvalidNode(LngLat node, GeoSnapshot geometry, LngLat currentPosition, SearchStatistics statistics) {
+        AirspaceRaster airspace = geometry.airspace();
 
-        // Check if the node is inside any no-fly zone
-        for (Region noFlyZone : noFlyZones) {
-            if (Polygon.isPointInPolygon(nodePosition, noFlyZone.getVertices())) {
-                System.out.println("Node in No-Fly Zone: " + node + " in " + noFlyZone.getName());
-                return true; // Node is in a no-fly zone
-            }
+        // The raster settles most checks; only near a zone border are the polygons tested
+        AirspaceRaster.Cell nodeCell = airspace.noFlyZoneCell(node.lng(), node.lat());
+        if (nodeCell == AirspaceRaster.Cell.COVERED) {
+            return true; // Node is in a no-fly zone
+        }
+        if (nodeCell == AirspaceRaster.Cell.BOUNDARY || !airspace.isClearOfNoFlyZones(
+                Math.min(currentPosition.lng(), node.lng()), Math.min(currentPosition.lat(), node.lat()),
+                Math.max(currentPosition.lng(), node.lng()), Math.max(currentPosition.lat(), node.lat()))) {
+            // Check if the node is inside any no-fly zone
+            for (CompiledRegion noFlyZone : geometry.noFlyZones()) {
+                statistics.polygonTests++;
+                if (noFlyZone.contains(node.lng(), node.lat())) {
+                    return true; // Node is in a no-fly zone
+                }
 
-            // Check if the line segment intersects the no-fly zone
-            if (Polygon.doesLineIntersectPolygon(currentPosition, node, noFlyZone.getVertices())) {
-                System.out.println("Line segment intersects No-Fly Zone: " + noFlyZone.getName());
-                return true; // Line segment crosses the polygon
+                // Check if the line segment intersects the no-fly zone
+                statistics.polygonTests++;
+                if (noFlyZone.intersectsSegment(currentPosition.lng(), currentPosition.lat(), node.lng(), node.lat())) {
+                    return true; // Line segment crosses the polygon
+                }
             }
         }
 
         // Check if the node leaves the central area after entering
-        boolean currentInCentralArea = Polygon.isPointInPolygon(new Position(currentPosition.getLng(), currentPosition.getLat()), centralArea.getVertices());
-        boolean nodeInCentralArea = Polygon.isPointInPolygon(nodePosition, centralArea.getVertices());
+        boolean currentInCentralArea = isInCentralArea(currentPosition, geometry, statistics);
+        boolean nodeInCentralArea = isInCentralArea(node, geometry, statistics);
 
         if (currentInCentralArea && !nodeInCentralArea) {
             return true; // Node exits the central area after entering
@@ -144,6 +327,17 @@ public class PathCalculator {
         return false; // Node is valid
     }
 
+    private static boolean isInCentralArea(LngLat position, GeoSnapshot geometry, SearchStatistics statistics) {
+        return switch (geometry.airspace().centralAreaCell(position.lng(), position.lat())) {
+            case COVERED -> true;
+            case CLEAR -> false;
+            case BOUNDARY -> {
+                statistics.polygonTests++;
+                yield geometry.centralArea().contains(position.lng(), position.lat());
+            }
+        };
+    }
+
     private List<LngLat> reconstructPath(Node node) {
         List<LngLat> path = new ArrayList<>();
         while (node != null) {
@@ -154,16 +348,44 @@ public class PathCalculator {
     }
 
     private double stepCost(LngLat from, LngLat to) {
-        return Math.sqrt(Math.pow(to.getLng() - from.getLng(), 2) + Math.pow(to.getLat() - from.getLat(), 2));
+        return Math.sqrt(Math.pow(to.lng() - from.lng(), 2) + Math.pow(to.lat() - from.lat(), 2));
+    }
+
+    /**
+     * counted locally during a search and reported to the metrics once at the end
+     */
+    private static final class SearchStatistics {
+        PizzaDronzMetrics.SearchOutcome outcome = PizzaDronzMetrics.SearchOutcome.CANCELLED; // if the search throws
+        int expansions;
+        int nodesExpanded;
+        long nodesGenerated;
+        long polygonTests;
+        long geometryChecks;
+        long timedGeometryChecks;
+        long timedGeometryNanos;
+        int openSetPeak;
+
+        /**
+         * @return the time spent in geometry checks, extrapolated from the timed ones
+         */
+        long geometryNanos() {
+            return timedGeometryChecks == 0 ? 0 : timedGeometryNanos * geometryChecks / timedGeometryChecks;
+        }
     }
 
     class Node {
+        long high;        // Lattice key of the position (see Lattice)
+        long low;
         LngLat position;  // Current position
         double gCost;     // Cost from the start node
         double hCost;     // Heuristic cost to the goal
         Node parent;      // Parent node (for path reconstruction)
+        boolean closed;     // Expanded
+        boolean superseded; // Replaced by a cheaper node for the same position while still queued
 
-        public Node(LngLat position, double gCost, double hCost, Node parent) {
+        public Node(long high, long low, LngLat position, double gCost, double hCost, Node parent) {
+            this.high = high;
+            this.low = low;
             this.position = position;
             this.gCost = gCost;
             this.hCost = hCost;
@@ -1,13 +1,16 @@
 package uk.ac.ed.inf.pizzadronz.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
 import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.monitoring.ReferenceDataFetchEvent;
 
 import java.util.List;
 
@@ -17,45 +20,114 @@ public class PathDataService {
     @Autowired
     private RestTemplate restTemplate;
 
-    private static final String CENTRAL_AREA_URL = "https://ilp-rest-2024.azurewebsites.net/centralArea";
+    @Autowired
+    private ReferenceDataService referenceDataService;
+
+    @Value("${pizzadronz.ilp.base-url}")
+    private String ilpBaseUrl;
+
+    static String withoutTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private String ilpUrl(String path) {
+        return withoutTrailingSlash(ilpBaseUrl) + path;
+    }
 
     /**
      * Fetches the central area boundaries from the external service.
+     * Falls back to the last good central area if the service cannot be reached or its answer
+     * is incomplete.
      * @return a Region representing the central area.
      */
     public Region getCentralArea() {
-        return restTemplate.getForObject(CENTRAL_AREA_URL, Region.class);
+        if (referenceDataService.isLocalMode()) {
+            return referenceDataService.getCentralArea();
+        }
+        String url = ilpUrl("/centralArea");
+        ReferenceDataFetchEvent event = new ReferenceDataFetchEvent("centralArea", url);
+        event.begin();
+        try {
+            Region centralArea = restTemplate.getForObject(url, Region.class);
+            if (centralArea != null) {
+                referenceDataService.updateCentralArea(centralArea);
+            }
+            event.succeeded = centralArea != null;
+            return centralArea;
+        } catch (RestClientException | IllegalArgumentException e) {
+            Region lastGood = referenceDataService.getCentralArea();
+            if (lastGood == null) {
+                throw e;
+            }
+            event.usedFallback = true;
+            return lastGood;
+        } finally {
+            event.commit();
+        }
     }
 
-    private static final String NO_FLY_ZONES_URL = "https://ilp-rest-2024.azurewebsites.net/noFlyZones";
-
     /**
      * Fetches the no-fly zones from the external service.
+     * Falls back to the last good no-fly zones if the service cannot be reached or its answer
+     * is incomplete.
      * @return a list of regions representing the no-fly zones.
      */
     public List<Region> getNoFlyZones() {
-        ResponseEntity<List<Region>> response = restTemplate.exchange(
-                NO_FLY_ZONES_URL,
-                HttpMethod.GET,
-                null,
-                new ParameterizedTypeReference<>() {} // Correct usage for generic types
-        );
-        List<Region> noFlyZones = response.getBody();
+        if (referenceDataService.isLocalMode()) {
+            return requireNoFlyZones(referenceDataService.getNoFlyZones());
+        }
+        String url = ilpUrl("/noFlyZones");
+        ReferenceDataFetchEvent event = new ReferenceDataFetchEvent("noFlyZones", url);
+        event.begin();
+        try {
+            List<Region> noFlyZones;
+            try {
+                ResponseEntity<List<Region>> response = restTemplate.exchange(
+                        url,
+                        HttpMethod.GET,
+                        null,
+                        new ParameterizedTypeReference<>() {} // Correct usage for generic types
+                );
+                noFlyZones = response.getBody();
+                if (noFlyZones != null && !noFlyZones.isEmpty()) {
+                    referenceDataService.updateNoFlyZones(noFlyZones);
+                }
+            } catch (RestClientException | IllegalArgumentException e) {
+                noFlyZones = null;
+            }
+            if (noFlyZones == null || noFlyZones.isEmpty()) {
+                event.usedFallback = true;
+                return requireNoFlyZones(referenceDataService.getNoFlyZones());
+            }
+            event.succeeded = true;
+            return noFlyZones;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static List<Region> requireNoFlyZones(List<Region> noFlyZones) {
         if (noFlyZones == null || noFlyZones.isEmpty()) {
             throw new IllegalStateException("No-fly zones data is missing or empty.");
         }
         return noFlyZones;
     }
 
-    private static final String RESTAURANT_LOCATION_URL = "https://ilp-rest-2024.azurewebsites.net/restaurants/{name}";
-
     /**
      * Fetches the location of a specific restaurant by its name.
      * @param restaurantName the name of the restaurant.
      * @return the location of the restaurant as a LngLat.
      */
     public LngLat fetchRestaurantLocation(String restaurantName) {
-        return restTemplate.getForObject(RESTAURANT_LOCATION_URL, LngLat.class, restaurantName);
+        ReferenceDataFetchEvent event = new ReferenceDataFetchEvent("restaurantLocation", ilpUrl("/restaurants/" + restaurantName));
+        event.begin();
+        try {
+            LngLat location = restTemplate.getForObject(ilpUrl("/restaurants/{name}"), LngLat.class, restaurantName);
+            event.succeeded = location != null;
+            return location;
+        } finally {
+            event.commit();
+        }
     }
 
 
@@ -0,0 +1,92 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the encoded response bodies of recently requested delivery paths, by ETag, both as is and
+ * gzip compressed, so a repeated request for a hot route is answered without planning, serializing
+ * or compressing again.
+ *
+ * ETags include the geometry snapshot version (see {@link RouteKey}), so entries for old geometry are
+ * simply never asked for again and age out.
+ */
+@Service
+public class PathResponseCache {
+
+    /**
+     * an encoded path response
+     * @param contentType the media type of the body
+     * @param body        the body
+     * @param gzipBody    the body, gzip compressed
+     */
+    public record Entry(String contentType, byte[] body, byte[] gzipBody) {
+    }
+
+    private final Map<String, Entry> entries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PathResponseCache(@Value("${pizzadronz.path-cache.size:256}") int size) {
+        this.entries = new LinkedHashMap<>(Math.min(size, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > size;
+            }
+        };
+    }
+
+    /**
+     * @param etag the ETag of the response
+     * @return the cached response, or null
+     */
+    public Entry get(String etag) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(etag);
+        }
+        (entry == null ? misses : hits).increment();
+        return entry;
+    }
+
+    /**
+     * Compresses and remembers a response body.
+     * @param etag        the ETag of the response
+     * @param contentType the media type of the body
+     * @param body        the body
+     * @return the new entry
+     */
+    public Entry put(String etag, String contentType, byte[] body) {
+        Entry entry = new Entry(contentType, body, gzip(body));
+        synchronized (entries) {
+            entries.put(etag, entry);
+        }
+        return entry;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,41 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+
+import java.util.List;
+
+/**
+ * Follows a running {@link PathCalculator} search and can stop it.
+ */
+public interface PathSearchListener {
+
+    /**
+     * a listener that ignores progress and never cancels
+     */
+    PathSearchListener NONE = progress -> { };
+
+    /**
+     * A snapshot of a running search.
+     *
+     * @param nodesExpanded   how many nodes have been expanded so far
+     * @param bestFCost       the f-cost of the node expanded last (the lowest in the open set)
+     * @param bestPartialPath the path from the start to the node closest to the goal so far
+     */
+    record Progress(int nodesExpanded, double bestFCost, List<LngLat> bestPartialPath) {
+    }
+
+    /**
+     * Called every few expansions, on the thread running the search.
+     * @param progress where the search is
+     */
+    void onProgress(Progress progress);
+
+    /**
+     * Polled while the search runs; once it returns true the search stops with a
+     * {@link java.util.concurrent.CancellationException}.
+     * @return true if the search is no longer needed
+     */
+    default boolean isCancelled() {
+        return false;
+    }
+}
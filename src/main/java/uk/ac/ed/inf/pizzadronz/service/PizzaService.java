@@ -2,35 +2,58 @@ package uk.ac.ed.inf.pizzadronz.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.monitoring.ReferenceDataFetchEvent;
 
 import java.util.List;
 
 @Service
 public class PizzaService {
-    private static final String RESTAURANT_API_URL = "https://ilp-rest-2024.azurewebsites.net/restaurants";
-
+    private static String restaurantApiUrl = null;
 
     private static RestTemplate restTemplate = null;
     private static ObjectMapper objectMapper = null;
+    private static ReferenceDataService referenceDataService = null;
 
-    public PizzaService(RestTemplate restTemplate, ObjectMapper objectMapper) {
+    public PizzaService(RestTemplate restTemplate, ObjectMapper objectMapper, ReferenceDataService referenceDataService,
+                        @Value("${pizzadronz.ilp.base-url}") String ilpBaseUrl) {
+        PizzaService.restaurantApiUrl = PathDataService.withoutTrailingSlash(ilpBaseUrl) + "/restaurants";
         PizzaService.restTemplate = restTemplate;
         PizzaService.objectMapper = objectMapper;
+        PizzaService.referenceDataService = referenceDataService;
     }
 
     /**
-     * Method to fetch restaurant data from external REST service
+     * Method to fetch restaurant data from external REST service.
+     * Falls back to the last good restaurants (from a previous fetch or the on-disk snapshot)
+     * when the service cannot be reached, and reads the local files instead in local mode.
      */
     public static List<Restaurant> fetchRestaurants() {
-        String json = restTemplate.getForObject(RESTAURANT_API_URL, String.class);
+        if (referenceDataService != null && referenceDataService.isLocalMode()) {
+            return referenceDataService.getRestaurants();
+        }
+        ReferenceDataFetchEvent event = new ReferenceDataFetchEvent("restaurants", restaurantApiUrl);
+        event.begin();
         try {
-            return objectMapper.readValue(json, new TypeReference<List<Restaurant>>() {});
+            String json = restTemplate.getForObject(restaurantApiUrl, String.class);
+            List<Restaurant> restaurants = objectMapper.readValue(json, new TypeReference<List<Restaurant>>() {});
+            if (referenceDataService != null) {
+                referenceDataService.updateRestaurants(restaurants);
+            }
+            event.succeeded = true;
+            return restaurants;
         } catch (Exception e) {
             e.printStackTrace();
+            if (referenceDataService != null) {
+                event.usedFallback = true;
+                return referenceDataService.getRestaurants(); // Last good restaurants, empty if none
+            }
             return List.of();  // Return an empty list if there's an error
+        } finally {
+            event.commit();
         }
     }
 }
@@ -1,20 +1,24 @@
 package uk.ac.ed.inf.pizzadronz.service;
 
 import uk.ac.ed.inf.pizzadronz.data.LngLat;
-import uk.ac.ed.inf.pizzadronz.data.Position;
 
 import java.util.List;
 
 public class Polygon {
 
+    /**
+     * points whose cross product with an edge is within this tolerance are considered on the border
+     */
+    static final double BORDER_TOLERANCE = 1e-10;
+
     // Last vertex sometimes is the same as starting vertex, which confuses the algorithm
-    private static List<Position> removeRedundantClosingVertex(List<Position> vertices) {
+    private static List<LngLat> removeRedundantClosingVertex(List<LngLat> vertices) {
         if (vertices.size() > 1) {
-            Position first = vertices.get(0);
-            Position last = vertices.get(vertices.size() - 1);
+            LngLat first = vertices.get(0);
+            LngLat last = vertices.get(vertices.size() - 1);
 
             // Check if the first and last vertices are identical
-            if (first.getLng().equals(last.getLng()) && first.getLat().equals(last.getLat())) {
+            if (first.lng() == last.lng() && first.lat() == last.lat()) {
                 vertices = vertices.subList(0, vertices.size() - 1); // Remove the last vertex
             }
         }
@@ -35,16 +39,16 @@ public class Polygon {
 
 
     // Handles cases where polygon is clipped
-    public static boolean doesLineIntersectPolygon(LngLat pointA, LngLat pointB, List<Position> polygonVertices) {
+    public static boolean doesLineIntersectPolygon(LngLat pointA, LngLat pointB, List<LngLat> polygonVertices) {
         for (int i = 0; i < polygonVertices.size(); i++) {
-            Position vertex1 = polygonVertices.get(i);
-            Position vertex2 = polygonVertices.get((i + 1) % polygonVertices.size()); // Wrap around to close the polygon
+            LngLat vertex1 = polygonVertices.get(i);
+            LngLat vertex2 = polygonVertices.get((i + 1) % polygonVertices.size()); // Wrap around to close the polygon
 
             if (linesIntersect(
-                    pointA.getLng(), pointA.getLat(),
-                    pointB.getLng(), pointB.getLat(),
-                    vertex1.getLng(), vertex1.getLat(),
-                    vertex2.getLng(), vertex2.getLat())) {
+                    pointA.lng(), pointA.lat(),
+                    pointB.lng(), pointB.lat(),
+                    vertex1.lng(), vertex1.lat(),
+                    vertex2.lng(), vertex2.lat())) {
                 return true; // Line intersects polygon edge
             }
         }
@@ -53,8 +57,20 @@ public class Polygon {
 
 
 
+    // Same as above on unboxed vertex arrays (without a closing vertex), as used by CompiledRegion
+    static boolean doesLineIntersectPolygon(double aLng, double aLat, double bLng, double bLat, double[] lngs, double[] lats) {
+        int n = lngs.length;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            if (linesIntersect(aLng, aLat, bLng, bLat, lngs[i], lats[i], lngs[next], lats[next])) {
+                return true; // Line intersects polygon edge
+            }
+        }
+        return false;
+    }
+
     // Ray-Casting Algorithm from https://rosettacode.org/wiki/Ray-casting_algorithm
-    public static boolean isPointInPolygon(Position point, List<Position> polygonVertices) {
+    public static boolean isPointInPolygon(LngLat point, List<LngLat> polygonVertices) {
         // Clean up redundant closing vertex
         polygonVertices = removeRedundantClosingVertex(polygonVertices);
 
@@ -63,17 +79,17 @@ public class Polygon {
 
         // Loop through each edge of the polygon
         for (int i = 0, j = n - 1; i < n; j = i++) {
-            double xi = polygonVertices.get(i).getLng();
-            double yi = polygonVertices.get(i).getLat();
-            double xj = polygonVertices.get(j).getLng();
-            double yj = polygonVertices.get(j).getLat();
+            double xi = polygonVertices.get(i).lng();
+            double yi = polygonVertices.get(i).lat();
+            double xj = polygonVertices.get(j).lng();
+            double yj = polygonVertices.get(j).lat();
 
-            if (isPointOnBorder(point.getLng(), point.getLat(), xi, yi, xj, yj)) {
+            if (isPointOnBorder(point.lng(), point.lat(), xi, yi, xj, yj)) {
                 return true; // Border is considered inside
             }
 
-            boolean intersect = ((yi > point.getLat()) != (yj > point.getLat())) &&
-                    (point.getLng() < (xj - xi) * (point.getLat() - yi) / (yj - yi) + xi);
+            boolean intersect = ((yi > point.lat()) != (yj > point.lat())) &&
+                    (point.lng() < (xj - xi) * (point.lat() - yi) / (yj - yi) + xi);
 
             if (intersect) {
                 inside = !inside;
@@ -81,9 +97,35 @@ public class Polygon {
         }
         return inside;
     }
+
+    // Same as above on unboxed vertex arrays (without a closing vertex), as used by CompiledRegion
+    static boolean isPointInPolygon(double px, double py, double[] lngs, double[] lats) {
+        int n = lngs.length;
+        boolean inside = false;
+
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double xi = lngs[i];
+            double yi = lats[i];
+            double xj = lngs[j];
+            double yj = lats[j];
+
+            if (isPointOnBorder(px, py, xi, yi, xj, yj)) {
+                return true; // Border is considered inside
+            }
+
+            boolean intersect = ((yi > py) != (yj > py)) &&
+                    (px < (xj - xi) * (py - yi) / (yj - yi) + xi);
+
+            if (intersect) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
     private static boolean isPointOnBorder(double px, double py, double x1, double y1, double x2, double y2) {
         double crossProduct = (py - y1) * (x2 - x1) - (px - x1) * (y2 - y1);
-        if (Math.abs(crossProduct) > 1e-10) {
+        if (Math.abs(crossProduct) > BORDER_TOLERANCE) {
             return false;
         }
 
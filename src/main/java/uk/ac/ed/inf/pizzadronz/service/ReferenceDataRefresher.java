@@ -0,0 +1,41 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically refreshes the reference data from the ILP service so the last good copy
+ * (and the on-disk snapshot) stays current even when no requests are coming in.
+ * The first refresh runs right after startup, once the snapshot has been loaded.
+ */
+@Component
+public class ReferenceDataRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataRefresher.class);
+
+    private final ReferenceDataService referenceDataService;
+    private final PathDataService pathDataService;
+
+    // PizzaService is only injected so that its static state is set up before the first refresh
+    public ReferenceDataRefresher(ReferenceDataService referenceDataService, PathDataService pathDataService, PizzaService pizzaService) {
+        this.referenceDataService = referenceDataService;
+        this.pathDataService = pathDataService;
+    }
+
+    @Scheduled(initialDelayString = "${pizzadronz.reference-data.refresh-initial-delay-ms:0}",
+            fixedDelayString = "${pizzadronz.reference-data.refresh-interval-ms:300000}")
+    public void refresh() {
+        if (referenceDataService.isLocalMode()) {
+            return;
+        }
+        try {
+            PizzaService.fetchRestaurants();
+            pathDataService.getCentralArea();
+            pathDataService.getNoFlyZones();
+        } catch (RuntimeException e) {
+            logger.warn("Reference data refresh failed, keeping the last good data: {}", e.getMessage());
+        }
+    }
+}
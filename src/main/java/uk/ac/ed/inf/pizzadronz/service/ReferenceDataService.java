@@ -0,0 +1,316 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.ReferenceData;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.ReferenceDataSnapshotFile;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Keeps the last good reference data (restaurants, central area and no-fly zones).
+ *
+ * In remote mode the data is seeded from the on-disk snapshot at startup and every successful
+ * upstream fetch is recorded here (and persisted), so {@link PizzaService} and {@link PathDataService}
+ * can fall back to it when the ILP service is unreachable.
+ * In local mode (a local directory is configured) the data is read from JSON files in that directory
+ * instead, and reloaded whenever they change.
+ * Every change also swaps in a new {@link GeoSnapshot} for the planner, versioned by a hash of the
+ * data's content, so every process (and every restart) with the same data has the same version.
+ */
+@Service
+public class ReferenceDataService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReferenceDataService.class);
+
+    static final String RESTAURANTS_FILE = "restaurants.json";
+    static final String CENTRAL_AREA_FILE = "centralArea.json";
+    static final String NO_FLY_ZONES_FILE = "noFlyZones.json";
+
+    private final ObjectMapper objectMapper;
+    private final Path snapshotFile;
+    private final Path localDirectory;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.EMPTY);
+    private WatchService watchService;
+
+    /**
+     * The reference data, the content hashes of its parts and the geometry compiled from it, swapped
+     * as a whole.
+     */
+    private record State(ReferenceData data, long restaurantsHash, long centralAreaHash, long noFlyZonesHash,
+                         GeoSnapshot geoSnapshot) {
+
+        static final State EMPTY = new State(ReferenceData.EMPTY,
+                ReferenceDataSnapshotFile.hashRestaurants(List.of()), ReferenceDataSnapshotFile.hashRegion(null),
+                ReferenceDataSnapshotFile.hashRegions(List.of()), GeoSnapshot.EMPTY);
+
+        boolean hasContentOf(State other) {
+            return restaurantsHash == other.restaurantsHash && centralAreaHash == other.centralAreaHash
+                    && noFlyZonesHash == other.noFlyZonesHash;
+        }
+    }
+
+    public ReferenceDataService(ObjectMapper objectMapper,
+                                @Value("${pizzadronz.reference-data.snapshot-file:}") String snapshotFile,
+                                @Value("${pizzadronz.reference-data.local-dir:}") String localDirectory) {
+        this.objectMapper = objectMapper;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.localDirectory = localDirectory.isBlank() ? null : Path.of(localDirectory);
+    }
+
+    @PostConstruct
+    void load() {
+        if (isLocalMode()) {
+            loadLocalFiles();
+            watchLocalFiles();
+        } else {
+            loadSnapshot();
+        }
+    }
+
+    @PreDestroy
+    void stopWatching() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    /**
+     * @return true if the reference data comes from local files rather than the ILP service
+     */
+    public boolean isLocalMode() {
+        return localDirectory != null;
+    }
+
+    /**
+     * @return the current reference data
+     */
+    public ReferenceData getReferenceData() {
+        return state.get().data();
+    }
+
+    /**
+     * @return the last good list of restaurants (empty if none is known)
+     */
+    public List<Restaurant> getRestaurants() {
+        return state.get().data().restaurants();
+    }
+
+    /**
+     * @return the last good central area, or null if none is known
+     */
+    public Region getCentralArea() {
+        return state.get().data().centralArea();
+    }
+
+    /**
+     * @return the last good no-fly zones (empty if none are known)
+     */
+    public List<Region> getNoFlyZones() {
+        return state.get().data().noFlyZones();
+    }
+
+    /**
+     * @return the current geometry snapshot (a single volatile read, never null)
+     */
+    public GeoSnapshot getGeoSnapshot() {
+        return state.get().geoSnapshot();
+    }
+
+    /**
+     * The geometry to plan with for a central area and no-fly zones that were just fetched: the current
+     * snapshot if it was compiled from the same content (the usual case, as every fetch is recorded
+     * here), otherwise one compiled from them and the current restaurants, e.g. when another update
+     * got in between.
+     * @param centralArea the fetched central area
+     * @param noFlyZones  the fetched no-fly zones
+     * @return the snapshot, versioned by its content
+     */
+    public GeoSnapshot getGeoSnapshot(Region centralArea, List<Region> noFlyZones) {
+        State current = state.get();
+        if (current.centralAreaHash() == ReferenceDataSnapshotFile.hashRegion(centralArea)
+                && current.noFlyZonesHash() == ReferenceDataSnapshotFile.hashRegions(noFlyZones)) {
+            return current.geoSnapshot();
+        }
+        ReferenceData data = current.data().withCentralArea(centralArea).withNoFlyZones(List.copyOf(noFlyZones));
+        return GeoSnapshot.compile(ReferenceDataSnapshotFile.contentHash(ReferenceDataSnapshotFile.encode(data)), data);
+    }
+
+    /**
+     * Records freshly fetched restaurants.
+     * @param restaurants the restaurants returned by the ILP service
+     * @throws IllegalArgumentException if a restaurant is incomplete; the last good data is kept
+     */
+    public void updateRestaurants(List<Restaurant> restaurants) {
+        List<Restaurant> copy = List.copyOf(restaurants);
+        long hash = ReferenceDataSnapshotFile.hashRestaurants(copy);
+        update(current -> current.restaurantsHash() == hash ? null : current.data().withRestaurants(copy), true);
+    }
+
+    /**
+     * Records a freshly fetched central area.
+     * @param centralArea the central area returned by the ILP service
+     * @throws IllegalArgumentException if the central area is incomplete; the last good data is kept
+     */
+    public void updateCentralArea(Region centralArea) {
+        long hash = ReferenceDataSnapshotFile.hashRegion(centralArea);
+        update(current -> current.centralAreaHash() == hash ? null : current.data().withCentralArea(centralArea), true);
+    }
+
+    /**
+     * Records freshly fetched no-fly zones.
+     * @param noFlyZones the no-fly zones returned by the ILP service
+     * @throws IllegalArgumentException if a no-fly zone is incomplete; the last good data is kept
+     */
+    public void updateNoFlyZones(List<Region> noFlyZones) {
+        List<Region> copy = List.copyOf(noFlyZones);
+        long hash = ReferenceDataSnapshotFile.hashRegions(copy);
+        update(current -> current.noFlyZonesHash() == hash ? null : current.data().withNoFlyZones(copy), true);
+    }
+
+    /**
+     * Applies a change to the reference data. Unchanged data (the usual case for a fetch) is recognised
+     * by the content hash of the fetched part alone, without taking a lock or encoding anything.
+     * Otherwise new immutable data and a new geometry snapshot are built by the calling thread and swapped
+     * in atomically, so readers never lock and never see a half updated state; if another change got in
+     * first, the change is applied again on top of it.
+     *
+     * @param change the changed data, or null if the current data already has its content
+     */
+    private void update(Function<State, ReferenceData> change, boolean persist) {
+        while (true) {
+            State current = state.get();
+            ReferenceData data = change.apply(current);
+            if (data == null) {
+                return;
+            }
+            State candidate = new State(data, ReferenceDataSnapshotFile.hashRestaurants(data.restaurants()),
+                    ReferenceDataSnapshotFile.hashRegion(data.centralArea()),
+                    ReferenceDataSnapshotFile.hashRegions(data.noFlyZones()), null);
+            if (candidate.hasContentOf(current)) {
+                return;
+            }
+            byte[] encoded = ReferenceDataSnapshotFile.encode(data);
+            State next = new State(data, candidate.restaurantsHash(), candidate.centralAreaHash(), candidate.noFlyZonesHash(),
+                    GeoSnapshot.compile(ReferenceDataSnapshotFile.contentHash(encoded), data));
+            if (state.compareAndSet(current, next)) {
+                if (persist) {
+                    persist(next, encoded);
+                }
+                return;
+            }
+        }
+    }
+
+    // Serialized so that a slower write of older data cannot replace the newest snapshot file
+    private synchronized void persist(State written, byte[] encoded) {
+        if (snapshotFile == null || isLocalMode() || state.get() != written) {
+            return;
+        }
+        try {
+            ReferenceDataSnapshotFile.write(encoded, snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Could not write reference data snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    private void loadSnapshot() {
+        if (snapshotFile == null || !Files.isReadable(snapshotFile)) {
+            return;
+        }
+        try {
+            ReferenceData data = ReferenceDataSnapshotFile.read(snapshotFile);
+            update(ignored -> data, false);
+            logger.info("Loaded reference data snapshot from {} ({} restaurants, {} no-fly zones)",
+                    snapshotFile, data.restaurants().size(), data.noFlyZones().size());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable reference data snapshot {}", snapshotFile, e);
+        }
+    }
+
+    private void loadLocalFiles() {
+        try {
+            List<Restaurant> restaurants = readRestaurants(localDirectory.resolve(RESTAURANTS_FILE));
+            Region centralArea = objectMapper.readValue(localDirectory.resolve(CENTRAL_AREA_FILE).toFile(), Region.class);
+            List<Region> noFlyZones = objectMapper.readValue(localDirectory.resolve(NO_FLY_ZONES_FILE).toFile(),
+                    new TypeReference<List<Region>>() {});
+            ReferenceData data = new ReferenceData(List.copyOf(restaurants), centralArea, List.copyOf(noFlyZones));
+            update(ignored -> data, false);
+            logger.info("Loaded reference data from {}", localDirectory);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Could not load reference data from {}", localDirectory, e);
+        }
+    }
+
+    // Accepts either the array returned by the ILP service or a single restaurant object
+    private List<Restaurant> readRestaurants(Path file) throws IOException {
+        JsonNode json = objectMapper.readTree(file.toFile());
+        if (json.isArray()) {
+            return objectMapper.convertValue(json, new TypeReference<List<Restaurant>>() {});
+        }
+        List<Restaurant> restaurants = new ArrayList<>(1);
+        restaurants.add(objectMapper.convertValue(json, Restaurant.class));
+        return restaurants;
+    }
+
+    private void watchLocalFiles() {
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            localDirectory.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            logger.warn("Could not watch {} for reference data changes", localDirectory, e);
+            return;
+        }
+
+        Thread watcher = new Thread(() -> {
+            try {
+                while (true) {
+                    WatchKey key = watchService.take();
+                    boolean changed = false;
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        Object context = event.context();
+                        if (context instanceof Path changedFile && isReferenceDataFile(changedFile)) {
+                            changed = true;
+                        }
+                    }
+                    if (changed) {
+                        loadLocalFiles();
+                    }
+                    key.reset();
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                // shutting down
+            }
+        }, "reference-data-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private static boolean isReferenceDataFile(Path file) {
+        String name = file.getFileName().toString();
+        return name.equals(RESTAURANTS_FILE) || name.equals(CENTRAL_AREA_FILE) || name.equals(NO_FLY_ZONES_FILE);
+    }
+}
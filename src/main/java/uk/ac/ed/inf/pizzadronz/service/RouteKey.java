@@ -0,0 +1,35 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+
+/**
+ * Everything a delivery path depends on: the geometry snapshot it is planned against and its end points.
+ * Planning is deterministic and the snapshot version is a hash of the reference data, so equal keys
+ * give the same path in every process, which makes the ETags safe to compare across replicas and restarts.
+ *
+ * @param snapshotVersion the {@link GeoSnapshot} version
+ * @param start           the restaurant location
+ * @param goal            the delivery location
+ */
+public record RouteKey(long snapshotVersion, LngLat start, LngLat goal) {
+
+    /**
+     * A strong entity tag for one representation of the path, e.g. JSON or GeoJSON.
+     * @param representation a short name for the response format (must be a valid ETag character sequence)
+     * @return the quoted ETag
+     */
+    public String etag(String representation) {
+        long hash = mix(Double.doubleToLongBits(start.lng()));
+        hash = mix(hash ^ Double.doubleToLongBits(start.lat()));
+        hash = mix(hash ^ Double.doubleToLongBits(goal.lng()));
+        hash = mix(hash ^ Double.doubleToLongBits(goal.lat()));
+        return "\"" + Long.toHexString(snapshotVersion) + "-" + Long.toHexString(hash) + "-" + representation + "\"";
+    }
+
+    // 64 bit finalizer from SplitMix64
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
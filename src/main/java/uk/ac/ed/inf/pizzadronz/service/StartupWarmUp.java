@@ -0,0 +1,136 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import uk.ac.ed.inf.pizzadronz.constant.SystemConstants;
+import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Warms the application up before it reports ready: fetches the reference data (compiling the
+ * planner's geometry), then runs synthetic path searches from every restaurant to Appleton Tower
+ * and synthetic order validations, so the hot code is JIT compiled before the first real request.
+ *
+ * Spring Boot only moves the readiness state to ACCEPTING_TRAFFIC once all application runners
+ * have returned, so while this runs /actuator/health/readiness reports the application as not
+ * ready, and a load balancer keeps traffic away from it. The warm-up searches use the configured
+ * planner mode, so the code real requests run is the code that gets compiled. They and the warm-up
+ * validations are left out of the metrics and the rule statistics, which describe real traffic
+ * only; they still show up as JFR events.
+ */
+@Component
+public class StartupWarmUp implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    /**
+     * what a warm-up did
+     *
+     * @param searches    the path searches run
+     * @param validations the order validations run
+     * @param elapsed     how long the whole warm-up took
+     */
+    public record Summary(int searches, int validations, Duration elapsed) {
+    }
+
+    private final ReferenceDataRefresher referenceDataRefresher;
+    private final ReferenceDataService referenceDataService;
+    private final int searches;
+    private final int validations;
+    private final Duration maxDuration;
+    private final PathCalculator.Mode plannerMode;
+
+    public StartupWarmUp(ReferenceDataRefresher referenceDataRefresher, ReferenceDataService referenceDataService,
+                         @Value("${pizzadronz.warm-up.searches:0}") int searches,
+                         @Value("${pizzadronz.warm-up.validations:0}") int validations,
+                         @Value("${pizzadronz.warm-up.max-duration-ms:60000}") long maxDurationMillis,
+                         @Value("${pizzadronz.planner.mode:direct}") PathCalculator.Mode plannerMode) {
+        this.referenceDataRefresher = referenceDataRefresher;
+        this.referenceDataService = referenceDataService;
+        this.searches = searches;
+        this.validations = validations;
+        this.maxDuration = Duration.ofMillis(maxDurationMillis);
+        this.plannerMode = plannerMode;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (searches <= 0 && validations <= 0) {
+            return;
+        }
+        try {
+            Summary summary = warmUp();
+            logger.info("Warm-up ran {} path searches and {} order validations in {} ms",
+                    summary.searches(), summary.validations(), summary.elapsed().toMillis());
+        } catch (RuntimeException e) {
+            // A failed warm-up only costs latency, it must not keep the application from starting
+            logger.warn("Warm-up failed, starting cold: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Runs the warm-up. Stops early once the maximum duration has passed.
+     *
+     * @return what was run
+     */
+    public Summary warmUp() {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+
+        referenceDataRefresher.refresh();
+        GeoSnapshot geometry = referenceDataService.getGeoSnapshot();
+        List<Restaurant> restaurants = referenceDataService.getRestaurants();
+        if (restaurants.isEmpty()) {
+            logger.warn("No reference data to warm up with");
+            return new Summary(0, 0, Duration.ofNanos(System.nanoTime() - start));
+        }
+
+        LngLat appletonTower = new LngLat(SystemConstants.APPLETON_LNG, SystemConstants.APPLETON_LAT);
+        PathCalculator pathCalculator = PathCalculator.unrecorded(plannerMode);
+        int searchesRun = 0;
+        for (; searchesRun < searches && System.nanoTime() < deadline; searchesRun++) {
+            Restaurant restaurant = restaurants.get(searchesRun % restaurants.size());
+            pathCalculator.calculatePath(restaurant.location(), appletonTower, geometry);
+        }
+
+        // Valid orders run every rule, the odd invalid one also exercises the rejection paths
+        List<Order> orders = restaurants.stream()
+                .filter(restaurant -> restaurant.menu().length > 0 && restaurant.openingDays().length > 0)
+                .flatMap(restaurant -> List.of(order(restaurant, false), order(restaurant, true)).stream())
+                .toList();
+        int validationsRun = 0;
+        for (; !orders.isEmpty() && validationsRun < validations && System.nanoTime() < deadline; validationsRun++) {
+            InputValidator.validateOrderUncounted(orders.get(validationsRun % orders.size()), restaurants);
+        }
+        return new Summary(searchesRun, validationsRun, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * @return an order for the restaurant's first pizza on the next day it is open, with a card
+     * expiring next year; with the wrong total if {@code wrongTotal} is set
+     */
+    private static Order order(Restaurant restaurant, boolean wrongTotal) {
+        LocalDate date = LocalDate.now();
+        while (!Arrays.asList(restaurant.openingDays()).contains(date.getDayOfWeek())) {
+            date = date.plusDays(1);
+        }
+        Pizza pizza = restaurant.menu()[0];
+        int total = pizza.priceInPence() + SystemConstants.ORDER_CHARGE_IN_PENCE + (wrongTotal ? 1 : 0);
+        String expiry = LocalDate.now().plusYears(1).format(DateTimeFormatter.ofPattern("MM/yy"));
+        return new Order(wrongTotal ? "WARMUP02" : "WARMUP01", date, total, new Pizza[]{pizza},
+                new CreditCardInformation("1234567812345670", expiry, "123"));
+    }
+}
@@ -0,0 +1,62 @@
+package uk.ac.ed.inf.pizzadronz.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache that forgets its least recently used entries, split by key hash into stripes that
+ * are locked independently, so concurrent lookups of different keys rarely wait for each other.
+ *
+ * Each stripe is an access ordered {@link LinkedHashMap} holding an equal share of the capacity, so
+ * the eviction order is least recently used within a stripe rather than across the whole cache.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+final class StripedLruCache<K, V> {
+
+    private static final int MAX_STRIPES = 16;
+
+    private final Map<K, V>[] stripes;
+
+    /**
+     * @param capacity how many entries to keep at most (rounded up to a multiple of the stripe count);
+     *                 0 keeps nothing
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // there are no generic arrays
+    StripedLruCache(int capacity) {
+        int stripeCount = Math.max(1, Math.min(MAX_STRIPES, capacity));
+        int stripeCapacity = (capacity + stripeCount - 1) / stripeCount;
+        this.stripes = new Map[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new LinkedHashMap<>(Math.min(stripeCapacity, 1024), 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > stripeCapacity;
+                }
+            };
+        }
+    }
+
+    /**
+     * @return the cached value, or null
+     */
+    V get(K key) {
+        Map<K, V> stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    void put(K key, V value) {
+        Map<K, V> stripe = stripe(key);
+        synchronized (stripe) {
+            stripe.put(key, value);
+        }
+    }
+
+    private Map<K, V> stripe(K key) {
+        int hash = key.hashCode();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+}
@@ -0,0 +1,91 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.service.AirspaceRaster;
+import uk.ac.ed.inf.pizzadronz.service.CompiledRegion;
+import uk.ac.ed.inf.pizzadronz.service.GeoSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AirspaceRasterTest {
+
+    private static Region region(String name, double... lngLats) {
+        List<LngLat> vertices = new ArrayList<>();
+        for (int i = 0; i < lngLats.length; i += 2) {
+            vertices.add(new LngLat(lngLats[i], lngLats[i + 1]));
+        }
+        vertices.add(vertices.get(0));
+        Region region = new Region();
+        region.setName(name);
+        region.setVertices(vertices);
+        return region;
+    }
+
+    private static GeoSnapshot edinburgh() {
+        Region centralArea = region("central", -3.192473, 55.946233, -3.192473, 55.942617, -3.184319, 55.942617, -3.184319, 55.946233);
+        List<Region> noFlyZones = List.of(
+                region("George Square", -3.190578, 55.944494, -3.190463, 55.942872, -3.186972, 55.942975, -3.187161, 55.944558),
+                region("L", -3.1980, 55.9440, -3.1950, 55.9440, -3.1950, 55.9450, -3.1965, 55.9450, -3.1965, 55.9470, -3.1980, 55.9470),
+                region("Triangle", -3.1840, 55.9410, -3.1800, 55.9405, -3.1830, 55.9440));
+        return GeoSnapshot.of(noFlyZones, centralArea);
+    }
+
+    @Test
+    void testClearAndCoveredCellsAgreeWithThePolygons() {
+        GeoSnapshot geometry = edinburgh();
+        AirspaceRaster airspace = geometry.airspace();
+        assertTrue(airspace.isEnabled());
+
+        Random random = new Random(50);
+        int boundary = 0;
+        int samples = 50_000;
+        for (int i = 0; i < samples; i++) {
+            double lng = -3.200 + random.nextDouble() * 0.022;
+            double lat = 55.939 + random.nextDouble() * 0.010;
+
+            boolean inZone = geometry.noFlyZones().stream().anyMatch(zone -> zone.contains(lng, lat));
+            switch (airspace.noFlyZoneCell(lng, lat)) {
+                case CLEAR -> assertFalse(inZone, lng + ", " + lat);
+                case COVERED -> assertTrue(inZone, lng + ", " + lat);
+                case BOUNDARY -> boundary++;
+            }
+            boolean inCentralArea = geometry.centralArea().contains(lng, lat);
+            switch (airspace.centralAreaCell(lng, lat)) {
+                case CLEAR -> assertFalse(inCentralArea, lng + ", " + lat);
+                case COVERED -> assertTrue(inCentralArea, lng + ", " + lat);
+                case BOUNDARY -> { }
+            }
+
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double toLng = lng + 0.00015 * Math.cos(angle);
+            double toLat = lat + 0.00015 * Math.sin(angle);
+            if (airspace.isClearOfNoFlyZones(Math.min(lng, toLng), Math.min(lat, toLat), Math.max(lng, toLng), Math.max(lat, toLat))) {
+                for (CompiledRegion zone : geometry.noFlyZones()) {
+                    assertFalse(zone.intersectsSegment(lng, lat, toLng, toLat), zone.getName());
+                }
+            }
+        }
+        assertTrue(boundary < samples / 10, "boundary cells: " + boundary);
+    }
+
+    @Test
+    void testPointsOnTheBorderAreNotClear() {
+        GeoSnapshot geometry = edinburgh();
+        assertNotEquals(AirspaceRaster.Cell.CLEAR, geometry.airspace().noFlyZoneCell(-3.1965, 55.9460));
+        assertNotEquals(AirspaceRaster.Cell.CLEAR, geometry.airspace().centralAreaCell(-3.184319, 55.944));
+    }
+
+    @Test
+    void testGeometryTooLargeToRasterizeIsTestedExactly() {
+        GeoSnapshot geometry = GeoSnapshot.of(List.of(), region("huge", -10, 50, 10, 50, 10, 60, -10, 60));
+
+        assertFalse(geometry.airspace().isEnabled());
+        assertEquals(AirspaceRaster.Cell.BOUNDARY, geometry.airspace().centralAreaCell(0, 55));
+    }
+}
@@ -0,0 +1,63 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.pizzadronz.data.DeliveryPath;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.BinaryPathDecoder;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.BinaryPathEncoder;
+import uk.ac.ed.inf.pizzadronz.service.Calculations;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryPathFormatTest {
+
+    private static List<LngLat> samplePath() {
+        List<LngLat> path = new ArrayList<>();
+        LngLat position = new LngLat(-3.1869, 55.9445);
+        path.add(position);
+        for (int i = 0; i < 200; i++) {
+            position = Calculations.calculateNextPosition(position.lng(), position.lat(), (i / 10) * 22.5);
+            path.add(position);
+        }
+        return path;
+    }
+
+    @Test
+    void testRoundTrip() {
+        List<LngLat> path = samplePath();
+        DeliveryPath decoded = BinaryPathDecoder.decode(BinaryPathEncoder.encode(new DeliveryPath(42, path)));
+
+        assertEquals(42, decoded.snapshotVersion());
+        assertEquals(path.size(), decoded.path().size());
+        for (int i = 0; i < path.size(); i++) {
+            assertEquals(path.get(i).lng(), decoded.path().get(i).lng(), 1e-7);
+            assertEquals(path.get(i).lat(), decoded.path().get(i).lat(), 1e-7);
+        }
+    }
+
+    @Test
+    void testMovesTakeFewBytes() {
+        List<LngLat> path = samplePath();
+        byte[] encoded = BinaryPathEncoder.encode(new DeliveryPath(1, path));
+
+        // first point: two 5 byte varints; each 0.00015 degree move: at most 3 bytes per coordinate
+        assertTrue(encoded.length <= 3 + 1 + 2 + 10 + (path.size() - 1) * 6, "encoded size " + encoded.length);
+    }
+
+    @Test
+    void testEmptyPath() {
+        DeliveryPath decoded = BinaryPathDecoder.decode(BinaryPathEncoder.encode(new DeliveryPath(0, List.of())));
+        assertTrue(decoded.path().isEmpty());
+    }
+
+    @Test
+    void testRejectsTruncatedInput() {
+        byte[] encoded = BinaryPathEncoder.encode(new DeliveryPath(7, samplePath()));
+        assertThrows(IllegalArgumentException.class, () -> BinaryPathDecoder.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+        assertThrows(IllegalArgumentException.class, () -> BinaryPathDecoder.decode(new byte[]{'{', '}'}));
+    }
+}
@@ -0,0 +1,228 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import uk.ac.ed.inf.pizzadronz.data.DeliveryPath;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.OrderValidationResult;
+import uk.ac.ed.inf.pizzadronz.monitoring.ServerTiming;
+import uk.ac.ed.inf.pizzadronz.service.OrderValidationService;
+import uk.ac.ed.inf.pizzadronz.service.PathCalculationService;
+import uk.ac.ed.inf.pizzadronz.service.PathSearchListener;
+import uk.ac.ed.inf.pizzadronz.service.RouteKey;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CalcDeliveryPathAsyncTest {
+
+    private static final String ORDER = """
+            {"orderNo":"A1","orderDate":"2025-01-06","priceTotalInPence":1100,"pizzasInOrder":[{"name":"R1: Margarita","priceInPence":1000}]}""";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderValidationService orderValidationService;
+
+    @MockBean
+    private PathCalculationService pathCalculationService;
+
+    @Test
+    public void whenPlanned_thenPathIsReturnedAsynchronously() throws Exception {
+        when(orderValidationService.validate(any())).thenReturn(OrderValidationResult.VALID);
+        when(pathCalculationService.planDeliveryPathAsync(any(), any(ServerTiming.class))).thenReturn(CompletableFuture.completedFuture(
+                new DeliveryPath(1, List.of(new LngLat(-3.1869, 55.9445), new LngLat(-3.18675, 55.9445)))));
+
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[{\"lng\":-3.1869,\"lat\":55.9445},{\"lng\":-3.18675,\"lat\":55.9445}]"));
+    }
+
+    @Test
+    public void whenPlanned_thenServerTimingBreaksDownThePhases() throws Exception {
+        when(orderValidationService.validate(any())).thenReturn(OrderValidationResult.VALID);
+        when(pathCalculationService.planDeliveryPathAsync(any(), any(ServerTiming.class))).thenAnswer(invocation -> {
+            ServerTiming timing = invocation.getArgument(1);
+            timing.record(ServerTiming.Phase.FETCH, 2_000_000);
+            timing.record(ServerTiming.Phase.PLAN, 30_000_000);
+            return CompletableFuture.completedFuture(
+                    new DeliveryPath(1, List.of(new LngLat(-3.1869, 55.9445), new LngLat(-3.18675, 55.9445))));
+        });
+
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andReturn();
+
+        String serverTiming = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Server-Timing");
+        assertTrue(serverTiming != null && serverTiming.startsWith("validate;dur="), serverTiming);
+        assertTrue(serverTiming.contains("fetch;dur=2.0, plan;dur=30.0, serialize;dur="), serverTiming);
+        assertFalse(serverTiming.contains("cache"), serverTiming);
+    }
+
+    @Test
+    public void whenPlannerIsSaturated_thenServiceUnavailableWithRetryAfter() throws Exception {
+        when(orderValidationService.validate(any())).thenReturn(OrderValidationResult.VALID);
+        when(pathCalculationService.planDeliveryPathAsync(any(), any(ServerTiming.class))).thenThrow(new RejectedExecutionException("queue full"));
+
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+    }
+
+    @Test
+    public void whenClientHasTheRoute_thenNotModifiedWithoutPlanning() throws Exception {
+        RouteKey route = new RouteKey(3, new LngLat(-3.1869, 55.9445), new LngLat(-3.186874, 55.944494));
+        when(orderValidationService.validate(any())).thenReturn(OrderValidationResult.VALID);
+        when(pathCalculationService.currentRouteKey(any())).thenReturn(route);
+
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("If-None-Match", route.etag("json"))
+                        .content(ORDER))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", route.etag("json")));
+        verify(pathCalculationService, never()).planDeliveryPathAsync(any(), any(ServerTiming.class));
+    }
+
+    @Test
+    public void whenRouteWasServedBefore_thenGzipBodyComesFromMemory() throws Exception {
+        RouteKey route = new RouteKey(4, new LngLat(-3.1869, 55.9445), new LngLat(-3.186874, 55.944494));
+        DeliveryPath path = new DeliveryPath(4, List.of(new LngLat(-3.1869, 55.9445), new LngLat(-3.18675, 55.9445)));
+        when(orderValidationService.validate(any())).thenReturn(OrderValidationResult.VALID);
+        when(pathCalculationService.planDeliveryPathAsync(any(), any(ServerTiming.class))).thenReturn(CompletableFuture.completedFuture(path));
+        when(pathCalculationService.routeKey(path)).thenReturn(route);
+
+        MvcResult first = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(first))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", route.etag("json")));
+
+        when(pathCalculationService.currentRouteKey(any())).thenReturn(route);
+        MvcResult second = mockMvc.perform(post("/calcDeliveryPath")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Accept-Encoding", "gzip, deflate")
+                        .content(ORDER))
+                .andReturn();
+        byte[] gzipped = mockMvc.perform(asyncDispatch(second))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Server-Timing", containsString("cache;desc=hit")))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        verify(pathCalculationService, times(1)).planDeliveryPathAsync(any(), any(ServerTiming.class));
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertEquals("[{\"lng\":-3.1869,\"lat\":55.9445},{\"lng\":-3.18675,\"lat\":55.9445}]",
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void whenPlanningGeoJson_thenItIsStreamedFromThePlannerAndThenServedFromMemory() throws Exception {
+        String validOrder = ORDER.replace("}]}", "}],\"orderStatus\":\"VALID\",\"orderValidationCode\":\"NO_ERROR\"}");
+        RouteKey route = new RouteKey(6, new LngLat(-3.1869, 55.9445), new LngLat(-3.186874, 55.944494));
+        DeliveryPath path = new DeliveryPath(6, List.of(new LngLat(-3.1869, 55.9445), new LngLat(-3.18675, 55.9445)));
+        when(pathCalculationService.planDeliveryPathAsync(any(), any(ServerTiming.class))).thenReturn(CompletableFuture.completedFuture(path));
+        when(pathCalculationService.routeKey(path)).thenReturn(route);
+
+        MvcResult planned = mockMvc.perform(post("/calcDeliveryPathAsGeoJson")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validOrder))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // The planner's answer, then the body written to the response
+        MvcResult streamed = mockMvc.perform(asyncDispatch(planned))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String geoJson = mockMvc.perform(asyncDispatch(streamed))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", route.etag("geojson")))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(geoJson.contains("\"coordinates\":[[-3.1869,55.9445],[-3.18675,55.9445]]"), geoJson);
+
+        when(pathCalculationService.currentRouteKey(any())).thenReturn(route);
+        MvcResult repeated = mockMvc.perform(post("/calcDeliveryPathAsGeoJson")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validOrder))
+                .andReturn();
+        MvcResult fromMemory = mockMvc.perform(asyncDispatch(repeated)).andReturn();
+        mockMvc.perform(asyncDispatch(fromMemory))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", containsString("cache;desc=hit")))
+                .andExpect(content().string(geoJson));
+        verify(pathCalculationService, times(1)).planDeliveryPathAsync(any(), any(ServerTiming.class));
+    }
+
+    @Test
+    public void whenStreamingProgress_thenProgressEventsPrecedeThePath() throws Exception {
+        DeliveryPath path = new DeliveryPath(5, List.of(new LngLat(-3.1869, 55.9445), new LngLat(-3.18675, 55.9445)));
+        when(orderValidationService.validate(any())).thenReturn(OrderValidationResult.VALID);
+        when(pathCalculationService.planDeliveryPathAsync(any(), any(PathSearchListener.class))).thenAnswer(invocation -> {
+            PathSearchListener listener = invocation.getArgument(1);
+            listener.onProgress(new PathSearchListener.Progress(200, 0.002, List.of(new LngLat(-3.1869, 55.9445))));
+            return CompletableFuture.completedFuture(path);
+        });
+
+        MvcResult result = mockMvc.perform(post("/calcDeliveryPathProgress")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ORDER))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        String events = result.getResponse().getContentAsString();
+        int progress = events.indexOf("event:progress");
+        int finalPath = events.indexOf("event:path");
+        assertTrue(progress >= 0 && finalPath > progress, events);
+        assertTrue(events.contains("\"nodesExpanded\":200"), events);
+        assertTrue(events.contains("\"snapshotVersion\":5"), events);
+    }
+}
@@ -0,0 +1,121 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.service.CompiledRegion;
+import uk.ac.ed.inf.pizzadronz.service.Polygon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledRegionTest {
+
+    private static Region region(List<LngLat> vertices) {
+        Region region = new Region();
+        region.setName("zone");
+        region.setVertices(vertices);
+        return region;
+    }
+
+    private static List<LngLat> lShape() {
+        return List.of(
+                new LngLat(0.0, 0.0),
+                new LngLat(0.002, 0.0),
+                new LngLat(0.002, 0.001),
+                new LngLat(0.001, 0.001),
+                new LngLat(0.001, 0.002),
+                new LngLat(0.0, 0.002),
+                new LngLat(0.0, 0.0));
+    }
+
+    // Alternating outer and inner radius, clockwise to check the orientation does not matter
+    private static List<LngLat> star(int points) {
+        List<LngLat> vertices = new ArrayList<>();
+        for (int i = 2 * points; i > 0; i--) {
+            double angle = Math.PI * i / points;
+            double radius = i % 2 == 0 ? 0.001 : 0.0004;
+            vertices.add(new LngLat(radius * Math.cos(angle), radius * Math.sin(angle)));
+        }
+        return vertices;
+    }
+
+    private static List<LngLat> regularPolygon(int vertexCount) {
+        List<LngLat> vertices = new ArrayList<>();
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            vertices.add(new LngLat(0.001 * Math.cos(angle), 0.001 * Math.sin(angle)));
+        }
+        return vertices;
+    }
+
+    @Test
+    void testConvexRegionIsOnePiece() {
+        assertEquals(1, CompiledRegion.compile(region(regularPolygon(64))).getConvexPieceCount());
+    }
+
+    @Test
+    void testConcaveRegionsAreSplitIntoConvexPieces() {
+        assertEquals(2, CompiledRegion.compile(region(lShape())).getConvexPieceCount());
+        int starPieces = CompiledRegion.compile(region(star(8))).getConvexPieceCount();
+        assertTrue(starPieces >= 8 && starPieces < 16, "pieces: " + starPieces);
+    }
+
+    @Test
+    void testSelfIntersectingRegionIsNotSplit() {
+        List<LngLat> bowTie = List.of(
+                new LngLat(-1.0, -1.0),
+                new LngLat(-1.0, -2.0),
+                new LngLat(-2.0, -1.0),
+                new LngLat(-2.0, -2.0),
+                new LngLat(-3.0, -2.0));
+        CompiledRegion region = CompiledRegion.compile(region(bowTie));
+
+        assertEquals(0, region.getConvexPieceCount());
+        assertMatchesPolygon(region, bowTie, -3.5, -2.5, -0.5, -0.5);
+    }
+
+    @Test
+    void testAgreesWithPolygon() {
+        for (List<LngLat> vertices : List.of(lShape(), star(8), star(40), regularPolygon(4), regularPolygon(256))) {
+            CompiledRegion region = CompiledRegion.compile(region(vertices));
+            assertTrue(region.getConvexPieceCount() > 0);
+            assertMatchesPolygon(region, vertices, -0.0012, -0.0012, 0.0022, 0.0022);
+        }
+    }
+
+    @Test
+    void testVerticesAndEdgesAreInside() {
+        List<LngLat> vertices = star(8);
+        CompiledRegion region = CompiledRegion.compile(region(vertices));
+        for (int i = 0; i < vertices.size(); i++) {
+            LngLat vertex = vertices.get(i);
+            LngLat next = vertices.get((i + 1) % vertices.size());
+            assertTrue(region.contains(vertex.lng(), vertex.lat()));
+            assertTrue(region.contains((vertex.lng() + next.lng()) / 2, (vertex.lat() + next.lat()) / 2));
+        }
+    }
+
+    private static void assertMatchesPolygon(CompiledRegion region, List<LngLat> vertices,
+                                             double minLng, double minLat, double maxLng, double maxLat) {
+        Random random = new Random(48);
+        for (int i = 0; i < 20_000; i++) {
+            double lng = minLng + random.nextDouble() * (maxLng - minLng);
+            double lat = minLat + random.nextDouble() * (maxLat - minLat);
+            assertEquals(Polygon.isPointInPolygon(new LngLat(lng, lat), vertices), region.contains(lng, lat),
+                    "point " + lng + ", " + lat);
+
+            // Segments of a few drone moves, as the planner tests them
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double length = 0.00015 * (1 + random.nextInt(4));
+            LngLat a = new LngLat(lng, lat);
+            LngLat b = new LngLat(lng + length * Math.cos(angle), lat + length * Math.sin(angle));
+            assertEquals(Polygon.doesLineIntersectPolygon(a, b, vertices),
+                    region.intersectsSegment(a.lng(), a.lat(), b.lng(), b.lat()),
+                    "segment " + a + " to " + b);
+        }
+    }
+}
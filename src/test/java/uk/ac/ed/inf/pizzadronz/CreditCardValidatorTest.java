@@ -0,0 +1,60 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+import uk.ac.ed.inf.pizzadronz.service.CreditCardValidator;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CreditCardValidatorTest {
+
+    // Cards must not expire before the end of 15 March 2025
+    private static final int CUTOFF = CreditCardValidator.firstValidExpiryMonth(LocalDate.of(2025, 3, 15));
+
+    private static OrderValidationCode validate(String number, String expiry, String cvv) {
+        return CreditCardValidator.validate(new CreditCardInformation(number, expiry, cvv), CUTOFF);
+    }
+
+    @Test
+    void testValidCard() {
+        assertEquals(OrderValidationCode.NO_ERROR, validate("4485959141852684", "10/25", "816"));
+        assertEquals(OrderValidationCode.NO_ERROR, validate("1234567812345670", "03/25", "123"));
+    }
+
+    @Test
+    void testInvalidCardNumber() {
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, validate("1234567812345678", "10/25", "123"), "Luhn checksum should fail.");
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, validate("12345678", "10/25", "123"), "Short number should fail.");
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, validate("1234-5678-1234-5", "10/25", "123"), "Non digits should fail.");
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, validate(null, "10/25", "123"), "Missing number should fail.");
+    }
+
+    @Test
+    void testInvalidExpiry() {
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, validate("1234567812345670", "02/25", "123"), "Expired card should fail.");
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, validate("1234567812345670", "13/25", "123"), "Month 13 should fail.");
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, validate("1234567812345670", "00/26", "123"), "Month 0 should fail.");
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, validate("1234567812345670", "1/26", "123"), "Bad format should fail.");
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, validate("1234567812345670", "1a/26", "123"), "Bad format should fail.");
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, validate("1234567812345670", null, "123"), "Missing expiry should fail.");
+    }
+
+    @Test
+    void testExpiryOnLastDayOfMonth() {
+        // A card expiring this month is no longer valid on the last day of the month
+        int lastDay = CreditCardValidator.firstValidExpiryMonth(LocalDate.of(2025, 3, 31));
+        CreditCardInformation card = new CreditCardInformation("1234567812345670", "03/25", "123");
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, CreditCardValidator.validate(card, lastDay));
+        assertEquals(OrderValidationCode.NO_ERROR, CreditCardValidator.validate(card, CUTOFF));
+    }
+
+    @Test
+    void testInvalidCvv() {
+        assertEquals(OrderValidationCode.CVV_INVALID, validate("1234567812345670", "10/25", "12"));
+        assertEquals(OrderValidationCode.CVV_INVALID, validate("1234567812345670", "10/25", "12a"));
+        assertEquals(OrderValidationCode.CVV_INVALID, validate("1234567812345670", "10/25", null));
+    }
+}
@@ -0,0 +1,74 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.service.PathCalculator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Not on the web by default
+@SpringBootTest(properties = "management.endpoints.web.exposure.include=flightrecording")
+@AutoConfigureMockMvc
+public class FlightRecordingEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void whenRecording_thenDumpContainsPathSearchEvents() throws Exception {
+        mockMvc.perform(post("/actuator/flightrecording")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"settings\":\"default\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("RUNNING"));
+
+        Region centralArea = new Region();
+        centralArea.setName("central");
+        centralArea.setVertices(List.of(new LngLat(-3.2, 55.9), new LngLat(-3.1, 55.9),
+                new LngLat(-3.1, 56.0), new LngLat(-3.2, 56.0)));
+        List<LngLat> path = new PathCalculator().calculatePath(new LngLat(-3.1869, 55.9445),
+                new LngLat(-3.1860, 55.9445), List.of(), centralArea);
+
+        byte[] dump = mockMvc.perform(get("/actuator/flightrecording/dump"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        mockMvc.perform(delete("/actuator/flightrecording"))
+                .andExpect(jsonPath("$.state").value("CLOSED"));
+
+        Path file = Files.createTempFile("recording-", ".jfr");
+        try {
+            Files.write(file, dump);
+            List<RecordedEvent> searches = RecordingFile.readAllEvents(file).stream()
+                    .filter(event -> event.getEventType().getName().equals("uk.ac.ed.inf.pizzadronz.PathSearch"))
+                    .toList();
+            assertTrue(searches.stream().anyMatch(event -> event.getDouble("goalLng") == -3.1860
+                    && event.getString("outcome").equals("found")
+                    && event.getInt("pathLength") == path.size()
+                    && event.getInt("iterations") > 0), searches.toString());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void whenNotRecording_thenThereIsNothingToDump() throws Exception {
+        mockMvc.perform(get("/actuator/flightrecording/dump")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,49 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.GeoJsonExporter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeoJsonExporterTest {
+
+    private static final List<LngLat> PATH = List.of(
+            new LngLat(-3.1869, 55.9445),
+            new LngLat(-3.18676, 55.944500000000005),
+            new LngLat(0.00006, -0.5));
+
+    private static String write(int precision) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GeoJsonExporter.writeGeoJson(PATH, out, precision);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testCompactFullPrecision() throws Exception {
+        assertEquals("{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\","
+                + "\"coordinates\":[[-3.1869,55.9445],[-3.18676,55.944500000000005],[6.0E-5,-0.5]]},"
+                + "\"properties\":{\"pathName\":\"Drone Flight Path\",\"pathLength\":3}}]}", write(GeoJsonExporter.FULL_PRECISION));
+    }
+
+    @Test
+    void testRoundedCoordinates() throws Exception {
+        String json = write(4);
+        assertTrue(json.contains("\"coordinates\":[[-3.1869,55.9445],[-3.1868,55.9445],[0.0001,-0.5]]"), json);
+    }
+
+    @Test
+    void testZeroPrecision() throws Exception {
+        String json = write(0);
+        assertTrue(json.contains("\"coordinates\":[[-3,56],[-3,56],[0,0]]"), json);
+    }
+
+    @Test
+    void testGenerateGeoJsonIsPrettyPrinted() {
+        assertTrue(GeoJsonExporter.generateGeoJson(PATH).contains("\"pathLength\" : 3"));
+    }
+}
@@ -7,6 +7,7 @@ import uk.ac.ed.inf.pizzadronz.data.*;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,6 +17,28 @@ import uk.ac.ed.inf.pizzadronz.service.PizzaService;
 
 class InputValidatorTest {
 
+    // A year from now, so the valid cards do not expire under the tests
+    private static final String VALID_EXPIRY = LocalDate.now().plusYears(1).format(DateTimeFormatter.ofPattern("MM/yy"));
+
+    // Civerinos is closed on Wednesdays
+    private static final List<Restaurant> CATALOG = List.of(
+            new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                    new DayOfWeek[]{DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY},
+                    new Pizza[]{new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400)}),
+            new Restaurant("Sora Lella Vegan Restaurant", new LngLat(-3.202541470527649, 55.943284737579376),
+                    DayOfWeek.values(), new Pizza[]{new Pizza("R2: Meat Lover", 1400)}));
+
+    /**
+     * @return an order of the pizzas, placed on a Monday, with the right total and a valid card
+     */
+    private static Order order(Pizza... pizzas) {
+        int total = 100;
+        for (Pizza pizza : pizzas) {
+            total += pizza.priceInPence();
+        }
+        return new Order("A1B2C3D4", LocalDate.of(2025, 1, 6), total, pizzas,
+                new CreditCardInformation("1234567812345670", VALID_EXPIRY, "123"));
+    }
 
     @Test
     void testInvalidPizza() {
@@ -28,59 +51,46 @@ class InputValidatorTest {
 
     @Test
     void testValidCreditCard() {
-        CreditCardInformation validCard = new CreditCardInformation("1234567812345678", "12/25", "123");
-        Order order = new Order();
-        assertFalse(InputValidator.isNotValidCreditCard(validCard, order), "Valid credit card should pass.");
+        CreditCardInformation validCard = new CreditCardInformation("1234567812345670", VALID_EXPIRY, "123");
+        assertFalse(InputValidator.isNotValidCreditCard(validCard), "Valid credit card should pass.");
     }
 
     @Test
     void testInvalidCreditCardNumber() {
-        CreditCardInformation invalidCard = new CreditCardInformation("12345678", "12/25", "123");
-        Order order = new Order();
-
-        assertTrue(InputValidator.isNotValidCreditCard(invalidCard, order), "Invalid credit card number should fail.");
-        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, order.getOrderValidationCode());
-        assertEquals(OrderStatus.INVALID, order.getOrderStatus());
+        CreditCardInformation invalidCard = new CreditCardInformation("12345678", VALID_EXPIRY, "123");
+        assertTrue(InputValidator.isNotValidCreditCard(invalidCard), "Invalid credit card number should fail.");
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, InputValidator.validateCreditCard(invalidCard));
     }
 
     @Test
     void testExpiredCreditCard() {
-        CreditCardInformation expiredCard = new CreditCardInformation("1234567812345678", "12/19", "123");
-        Order order = new Order();
-
-        assertTrue(InputValidator.isNotValidCreditCard(expiredCard, order), "Expired credit card should fail.");
-        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, order.getOrderValidationCode());
-        assertEquals(OrderStatus.INVALID, order.getOrderStatus());
+        CreditCardInformation expiredCard = new CreditCardInformation("1234567812345670", "12/19", "123");
+        assertTrue(InputValidator.isNotValidCreditCard(expiredCard), "Expired credit card should fail.");
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, InputValidator.validateCreditCard(expiredCard));
     }
 
     @Test
     void testInvalidCreditCardExpiryFormat() {
-        CreditCardInformation invalidFormatCard = new CreditCardInformation("1234567812345678", "25/12", "123");
-        Order order = new Order();
-
-        assertTrue(InputValidator.isNotValidCreditCard(invalidFormatCard, order), "Invalid expiry date format should fail.");
-        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, order.getOrderValidationCode());
-        assertEquals(OrderStatus.INVALID, order.getOrderStatus());
+        CreditCardInformation invalidFormatCard = new CreditCardInformation("1234567812345670", "25/12", "123");
+        assertTrue(InputValidator.isNotValidCreditCard(invalidFormatCard), "Invalid expiry date format should fail.");
+        assertEquals(OrderValidationCode.EXPIRY_DATE_INVALID, InputValidator.validateCreditCard(invalidFormatCard));
     }
 
     @Test
     void testInvalidCreditCardCVV() {
-        CreditCardInformation invalidCvvCard = new CreditCardInformation("1234567812345678", "12/25", "12");
-        Order order = new Order();
-
-        assertTrue(InputValidator.isNotValidCreditCard(invalidCvvCard, order), "Invalid CVV should fail.");
-        assertEquals(OrderValidationCode.CVV_INVALID, order.getOrderValidationCode());
-        assertEquals(OrderStatus.INVALID, order.getOrderStatus());
+        CreditCardInformation invalidCvvCard = new CreditCardInformation("1234567812345670", VALID_EXPIRY, "12");
+        assertTrue(InputValidator.isNotValidCreditCard(invalidCvvCard), "Invalid CVV should fail.");
+        assertEquals(OrderValidationCode.CVV_INVALID, InputValidator.validateCreditCard(invalidCvvCard));
     }
 
     @Test
     void testEmptyOrderFailsValidation() {
-        Order emptyOrder = new Order();
-        emptyOrder.setPizzasInOrder(new Pizza[0]);
+        Order emptyOrder = order();
 
-        assertTrue(InputValidator.isNotValidOrder(emptyOrder), "Empty order should fail validation.");
-        assertEquals(OrderValidationCode.EMPTY_ORDER, emptyOrder.getOrderValidationCode());
-        assertEquals(OrderStatus.INVALID, emptyOrder.getOrderStatus());
+        OrderValidationResult result = InputValidator.validateOrder(emptyOrder, CATALOG);
+        assertFalse(result.isValid(), "Empty order should fail validation.");
+        assertEquals(OrderValidationCode.EMPTY_ORDER, result.orderValidationCode());
+        assertEquals(OrderStatus.INVALID, result.orderStatus());
     }
 
     @Test
@@ -92,35 +102,35 @@ class InputValidatorTest {
                 new Pizza("R1: Margarita", 1000),
                 new Pizza("R1: Margarita", 1000)
         };
-        Order order = new Order();
-        order.setPizzasInOrder(pizzas);
+        Order order = order(pizzas);
 
-        assertTrue(InputValidator.isNotValidOrder(order), "Order with more than 4 pizzas should fail.");
-        assertEquals(OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED, order.getOrderValidationCode());
-        assertEquals(OrderStatus.INVALID, order.getOrderStatus());
+        OrderValidationResult result = InputValidator.validateOrder(order, CATALOG);
+        assertFalse(result.isValid(), "Order with more than 4 pizzas should fail.");
+        assertEquals(OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED, result.orderValidationCode());
+        assertEquals(OrderStatus.INVALID, result.orderStatus());
     }
 
     @Test
     void testOrderWithInvalidPizzaPrice() {
         Pizza[] pizzas = {new Pizza("R1: Margarita", -100)};
-        Order order = new Order();
-        order.setPizzasInOrder(pizzas);
+        Order order = order(pizzas);
 
-        assertTrue(InputValidator.isNotValidOrder(order), "Order with invalid pizza price should fail.");
-        assertEquals(OrderValidationCode.PRICE_FOR_PIZZA_INVALID, order.getOrderValidationCode());
-        assertEquals(OrderStatus.INVALID, order.getOrderStatus());
+        OrderValidationResult result = InputValidator.validateOrder(order, CATALOG);
+        assertFalse(result.isValid(), "Order with invalid pizza price should fail.");
+        assertEquals(OrderValidationCode.PRICE_FOR_PIZZA_INVALID, result.orderValidationCode());
+        assertEquals(OrderStatus.INVALID, result.orderStatus());
     }
 
     @Test
     void testOrderWithIncorrectTotalPrice() {
         Pizza[] pizzas = {new Pizza("R1: Margarita", 1000)};
-        Order order = new Order();
-        order.setPizzasInOrder(pizzas);
+        Order order = order(pizzas);
         order.setPriceTotalInPence(1200); // Incorrect total
 
-        assertTrue(InputValidator.isNotValidOrder(order), "Order with incorrect total price should fail.");
-        assertEquals(OrderValidationCode.TOTAL_INCORRECT, order.getOrderValidationCode());
-        assertEquals(OrderStatus.INVALID, order.getOrderStatus());
+        OrderValidationResult result = InputValidator.validateOrder(order, CATALOG);
+        assertFalse(result.isValid(), "Order with incorrect total price should fail.");
+        assertEquals(OrderValidationCode.TOTAL_INCORRECT, result.orderValidationCode());
+        assertEquals(OrderStatus.INVALID, result.orderStatus());
     }
 
 }
@@ -0,0 +1,43 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.monitoring.PizzaDronzMetrics;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+public class MetricsEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void whenScraped_thenPlannerValidatorAndCacheMetricsAreExposed() throws Exception {
+        PizzaDronzMetrics.recordSearch(PizzaDronzMetrics.SearchOutcome.FOUND, 1_000_000, 10, 40, 200_000, 5);
+        PizzaDronzMetrics.recordValidation(OrderValidationCode.NO_ERROR);
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("pizzadronz_planner_search_seconds_count{outcome=\"found\"")))
+                .andExpect(content().string(containsString("pizzadronz_planner_expansions_total")))
+                .andExpect(content().string(containsString("pizzadronz_validation_results_total{code=\"NO_ERROR\"")))
+                .andExpect(content().string(containsString("pizzadronz_cache_hit_ratio{cache=\"path\"")));
+    }
+
+    @Test
+    public void whenDefaultExposure_thenFlightRecordingIsNotOnTheWeb() throws Exception {
+        mockMvc.perform(get("/actuator/flightrecording")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/actuator/flightrecording/dump")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,40 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import uk.ac.ed.inf.pizzadronz.config.NativeRuntimeHints;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.LocalDateDeserializer;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.LocalDateSerializer;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NativeRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    NativeRuntimeHintsTest() {
+        new NativeRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    void testJacksonTypesCanBeBound() throws Exception {
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(Order.class.getMethod("setOrderNo", String.class)).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(IsInRegionRequest.Region.class.getMethod("setVertices", List.class)).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Restaurant.class).withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(LngLat.class.getMethod("lng")).test(hints));
+    }
+
+    @Test
+    void testGsonAdaptersCanBeInstantiated() throws Exception {
+        assertTrue(RuntimeHintsPredicates.reflection().onConstructor(LocalDateSerializer.class.getConstructor()).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onConstructor(LocalDateDeserializer.class.getConstructor()).test(hints));
+    }
+}
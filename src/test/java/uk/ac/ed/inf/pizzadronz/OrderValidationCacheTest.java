@@ -0,0 +1,85 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.OrderValidationResult;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.service.OrderValidationService;
+import uk.ac.ed.inf.pizzadronz.service.ReferenceDataService;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderValidationCacheTest {
+
+    private final ReferenceDataService referenceDataService = new ReferenceDataService(new ObjectMapper(), "", "");
+    private final OrderValidationService service = new OrderValidationService(referenceDataService, 100);
+
+    private static Order orderWithTotal(int total) {
+        return new Order("ABC123", LocalDate.of(2025, 1, 6), total,
+                new Pizza[]{new Pizza("R1: Margarita", 1000)},
+                new CreditCardInformation("1234567812345670", "12/35", "123"));
+    }
+
+    @Test
+    void testRepeatedOrderIsAnsweredFromCache() {
+        OrderValidationResult first = service.validate(orderWithTotal(1200));
+        OrderValidationResult second = service.validate(orderWithTotal(1200));
+
+        assertEquals(OrderValidationCode.TOTAL_INCORRECT, first.orderValidationCode());
+        assertSame(first, second, "An equal order should be answered from the cache.");
+        assertEquals(1, service.getMisses());
+        assertEquals(1, service.getHits());
+    }
+
+    @Test
+    void testValidationDoesNotModifyTheOrder() {
+        service.validate(orderWithTotal(1300));
+        Order repeated = orderWithTotal(1300);
+        OrderValidationResult result = service.validate(repeated);
+
+        assertEquals(OrderValidationCode.TOTAL_INCORRECT, result.orderValidationCode());
+        assertEquals(OrderValidationCode.UNDEFINED, repeated.getOrderValidationCode());
+    }
+
+    @Test
+    void testDifferentOrdersAreNotConfused() {
+        service.validate(orderWithTotal(1200));
+        Order differentCard = orderWithTotal(1200);
+        differentCard.setCreditCardInformation(new CreditCardInformation("1234567812345670", "12/35", "12"));
+
+        // Still a miss: the card is part of the key even though the total check fails first
+        service.validate(differentCard);
+        assertEquals(2, service.getMisses());
+        assertEquals(0, service.getHits());
+    }
+
+    @Test
+    void testResultsAreKeptPerCatalogVersion() {
+        Order order = orderWithTotal(1100);
+        referenceDataService.updateRestaurants(List.of(restaurantServing("R1: Calzone")));
+        assertEquals(OrderValidationCode.PIZZA_NOT_DEFINED, service.validate(order).orderValidationCode());
+
+        referenceDataService.updateRestaurants(List.of(restaurantServing("R1: Margarita")));
+        assertNotEquals(OrderValidationCode.PIZZA_NOT_DEFINED, service.validate(order).orderValidationCode());
+        assertEquals(2, service.getMisses());
+
+        // The old catalog's result is still filed under the old version only
+        referenceDataService.updateRestaurants(List.of(restaurantServing("R1: Calzone")));
+        assertEquals(OrderValidationCode.PIZZA_NOT_DEFINED, service.validate(order).orderValidationCode());
+        assertEquals(1, service.getHits());
+    }
+
+    private static Restaurant restaurantServing(String pizza) {
+        return new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                DayOfWeek.values(), new Pizza[]{new Pizza(pizza, 1000)});
+    }
+}
@@ -0,0 +1,147 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.data.ValidationRuleStatistics;
+import uk.ac.ed.inf.pizzadronz.service.OrderValidationPipeline;
+import uk.ac.ed.inf.pizzadronz.service.OrderValidationRule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderValidationPipelineTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * A rule that logs its name when it runs and answers a fixed code, fetching the catalog first if it needs it.
+     */
+    private record FixedRule(String name, CostClass costClass, OrderValidationCode code, List<String> log)
+            implements OrderValidationRule {
+        @Override
+        public OrderValidationCode check(Order order, Supplier<List<Restaurant>> catalog) {
+            log.add(name);
+            if (costClass == CostClass.CATALOG) {
+                catalog.get();
+            }
+            return code;
+        }
+    }
+
+    private final List<String> log = new ArrayList<>();
+    private final AtomicInteger catalogFetches = new AtomicInteger();
+    private final Supplier<List<Restaurant>> catalog = () -> {
+        catalogFetches.incrementAndGet();
+        return List.of();
+    };
+
+    private FixedRule rule(String name, OrderValidationRule.CostClass costClass, OrderValidationCode code) {
+        return new FixedRule(name, costClass, code, log);
+    }
+
+    @Test
+    void testLocalRulesRunBeforeCatalogRules() {
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(List.of(
+                rule("catalogFirst", OrderValidationRule.CostClass.CATALOG, OrderValidationCode.NO_ERROR),
+                rule("localA", OrderValidationRule.CostClass.LOCAL, OrderValidationCode.NO_ERROR),
+                rule("catalogSecond", OrderValidationRule.CostClass.CATALOG, OrderValidationCode.NO_ERROR),
+                rule("localB", OrderValidationRule.CostClass.LOCAL, OrderValidationCode.NO_ERROR)));
+
+        assertEquals(OrderValidationCode.NO_ERROR, pipeline.validate(new Order(), catalog));
+        assertEquals(List.of("localA", "localB", "catalogFirst", "catalogSecond"), log,
+                "Local rules should run first, each class in declared order.");
+        assertEquals(1, catalogFetches.get(), "The catalog should be fetched once per order.");
+    }
+
+    @Test
+    void testLocalRejectionSkipsTheCatalog() {
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(List.of(
+                rule("catalog", OrderValidationRule.CostClass.CATALOG, OrderValidationCode.PIZZA_NOT_DEFINED),
+                rule("local", OrderValidationRule.CostClass.LOCAL, OrderValidationCode.EMPTY_ORDER)));
+
+        assertEquals(OrderValidationCode.EMPTY_ORDER, pipeline.validate(new Order(), catalog));
+        assertEquals(List.of("local"), log);
+        assertEquals(0, catalogFetches.get(), "A local rejection should never fetch the catalog.");
+    }
+
+    @Test
+    void testFirstRejectionIsReturned() {
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(List.of(
+                rule("passes", OrderValidationRule.CostClass.LOCAL, OrderValidationCode.NO_ERROR),
+                rule("firstRejection", OrderValidationRule.CostClass.LOCAL, OrderValidationCode.TOTAL_INCORRECT),
+                rule("secondRejection", OrderValidationRule.CostClass.LOCAL, OrderValidationCode.CVV_INVALID)));
+
+        assertEquals(OrderValidationCode.TOTAL_INCORRECT, pipeline.validate(new Order(), catalog));
+        assertEquals(List.of("passes", "firstRejection"), log);
+    }
+
+    @Test
+    void testStatisticsCountInvocationsAndRejections() {
+        OrderValidationPipeline pipeline = new OrderValidationPipeline(List.of(
+                rule("catalog", OrderValidationRule.CostClass.CATALOG, OrderValidationCode.NO_ERROR),
+                rule("local", OrderValidationRule.CostClass.LOCAL, OrderValidationCode.NO_ERROR),
+                rule("rejects", OrderValidationRule.CostClass.LOCAL, OrderValidationCode.CARD_NUMBER_INVALID)));
+        for (int i = 0; i < 3; i++) {
+            pipeline.validate(new Order(), catalog);
+        }
+
+        List<ValidationRuleStatistics> statistics = pipeline.getStatistics();
+        assertEquals(List.of("local", "rejects", "catalog"), statistics.stream().map(ValidationRuleStatistics::rule).toList());
+        assertEquals(3, statistics.get(0).invocations());
+        assertEquals(0, statistics.get(0).rejections());
+        assertEquals(3, statistics.get(1).invocations());
+        assertEquals(3, statistics.get(1).rejections());
+        assertEquals(0, statistics.get(2).invocations());
+        assertEquals(0, statistics.get(2).meanMicros());
+        assertEquals("LOCAL", statistics.get(1).costClass());
+    }
+
+    @Test
+    void testEndpointReportsTheRulesOfOrderValidation() throws Exception {
+        List<ValidationRuleStatistics> before = ruleStatistics();
+        assertEquals("orderNumber", before.get(0).rule());
+
+        // Fails the first rule only
+        mockMvc.perform(post("/validateOrder")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"orderNo":"","orderDate":"2025-01-06","priceTotalInPence":1100,"pizzasInOrder":[{"name":"R1: Margarita","priceInPence":1000}]}"""))
+                .andExpect(status().isBadRequest());
+
+        List<ValidationRuleStatistics> after = ruleStatistics();
+        assertEquals(before.get(0).invocations() + 1, after.get(0).invocations());
+        assertEquals(before.get(0).rejections() + 1, after.get(0).rejections());
+        for (int i = 1; i < after.size(); i++) {
+            assertEquals(before.get(i).invocations(), after.get(i).invocations(), after.get(i).rule() + " should not have run.");
+        }
+    }
+
+    private List<ValidationRuleStatistics> ruleStatistics() throws Exception {
+        String json = mockMvc.perform(get("/validationRuleStats"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(json, new TypeReference<>() {});
+    }
+}
@@ -4,12 +4,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
 import uk.ac.ed.inf.pizzadronz.data.CreditCardInformation;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
 import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.OrderValidationResult;
 import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
 import uk.ac.ed.inf.pizzadronz.service.InputValidator;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static uk.ac.ed.inf.pizzadronz.service.InputValidator.isNotValidCreditCard;
@@ -18,42 +24,62 @@ import static uk.ac.ed.inf.pizzadronz.service.InputValidator.isNotValidCreditCar
 @SpringBootTest
 public class OrderValidationTest {
 
+    // A year from now, so the valid cards do not expire under the tests
+    private static final String VALID_EXPIRY = LocalDate.now().plusYears(1).format(DateTimeFormatter.ofPattern("MM/yy"));
+
+    // Civerinos is closed on Wednesdays
+    private static final List<Restaurant> CATALOG = List.of(
+            new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                    new DayOfWeek[]{DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.FRIDAY, DayOfWeek.SATURDAY, DayOfWeek.SUNDAY},
+                    new Pizza[]{new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400)}),
+            new Restaurant("Sora Lella Vegan Restaurant", new LngLat(-3.202541470527649, 55.943284737579376),
+                    DayOfWeek.values(), new Pizza[]{new Pizza("R2: Meat Lover", 1400)}));
+
+    /**
+     * @return an order of the pizzas, placed on a Monday, with the right total and a valid card
+     */
+    private static Order order(Pizza... pizzas) {
+        int total = 100;
+        for (Pizza pizza : pizzas) {
+            total += pizza.priceInPence();
+        }
+        return new Order("A1B2C3D4", LocalDate.of(2025, 1, 6), total, pizzas,
+                new CreditCardInformation("1234567812345670", VALID_EXPIRY, "123"));
+    }
+
     @Test
     void testCreditCardExpiryValidationWithDateExistence() {
-        CreditCardInformation validCard = new CreditCardInformation("1234567812345678", "12/25", "123");
-        CreditCardInformation expiredCard = new CreditCardInformation("1234567812345678", "12/19", "123");
-        CreditCardInformation invalidMonthCard = new CreditCardInformation("1234567812345678", "13/25", "123");
-        CreditCardInformation invalidDayCard = new CreditCardInformation("1234567812345678", "30/02", "123");
-
-        assertFalse(isNotValidCreditCard(validCard, new Order()), "Valid card should pass.");
-        assertTrue(isNotValidCreditCard(expiredCard, new Order()), "Expired card should fail.");
-        assertTrue(isNotValidCreditCard(invalidMonthCard, new Order()), "Card with invalid month should fail.");
-        assertTrue(isNotValidCreditCard(invalidDayCard, new Order()), "Card with invalid day should fail.");
+        CreditCardInformation validCard = new CreditCardInformation("1234567812345670", VALID_EXPIRY, "123");
+        CreditCardInformation expiredCard = new CreditCardInformation("1234567812345670", "12/19", "123");
+        CreditCardInformation invalidMonthCard = new CreditCardInformation("1234567812345670", "13/25", "123");
+        CreditCardInformation invalidDayCard = new CreditCardInformation("1234567812345670", "30/02", "123");
+
+        assertFalse(isNotValidCreditCard(validCard), "Valid card should pass.");
+        assertTrue(isNotValidCreditCard(expiredCard), "Expired card should fail.");
+        assertTrue(isNotValidCreditCard(invalidMonthCard), "Card with invalid month should fail.");
+        assertTrue(isNotValidCreditCard(invalidDayCard), "Card with invalid day should fail.");
     }
 
     @Test
     void testPizzaCountValidation() {
         // Order with no pizzas
-        Order emptyOrder = new Order();
-        emptyOrder.setPizzasInOrder(new Pizza[0]);
+        Order emptyOrder = order();
 
         // Order with too many pizzas
         Pizza[] manyPizzas = new Pizza[5];
         Arrays.fill(manyPizzas, new Pizza("R1: Margarita", 1000));
-        Order overLimitOrder = new Order();
-        overLimitOrder.setPizzasInOrder(manyPizzas);
+        Order overLimitOrder = order(manyPizzas);
 
         // Valid order with correct pizza count
         Pizza[] validPizzas = {
                 new Pizza("R1: Margarita", 1000),
                 new Pizza("R1: Calzone", 1400)
         };
-        Order validOrder = new Order();
-        validOrder.setPizzasInOrder(validPizzas);
+        Order validOrder = order(validPizzas);
 
-        assertTrue(InputValidator.isNotValidOrder(emptyOrder), "Order with no pizzas should be invalid.");
-        assertTrue(InputValidator.isNotValidOrder(overLimitOrder), "Order with too many pizzas should be invalid.");
-        assertFalse(InputValidator.isNotValidOrder(validOrder), "Order with valid pizza count should pass.");
+        assertEquals(OrderValidationCode.EMPTY_ORDER, InputValidator.validateOrder(emptyOrder, CATALOG).orderValidationCode(), "Order with no pizzas should be invalid.");
+        assertEquals(OrderValidationCode.MAX_PIZZA_COUNT_EXCEEDED, InputValidator.validateOrder(overLimitOrder, CATALOG).orderValidationCode(), "Order with too many pizzas should be invalid.");
+        assertTrue(InputValidator.validateOrder(validOrder, CATALOG).isValid(), "Order with valid pizza count should pass.");
     }
 
     @Test
@@ -62,11 +88,11 @@ public class OrderValidationTest {
         Pizza[] invalidPizzas = {
                 new Pizza("R1: NonExistentPizza", 1000)
         };
-        Order order = new Order();
-        order.setPizzasInOrder(invalidPizzas);
+        Order order = order(invalidPizzas);
 
-        assertTrue(InputValidator.isNotValidOrder(order), "Order with undefined pizza should be invalid.");
-        assertEquals(OrderValidationCode.PIZZA_NOT_DEFINED, order.getOrderValidationCode(), "Validation code should indicate pizza not defined.");
+        OrderValidationResult result = InputValidator.validateOrder(order, CATALOG);
+        assertFalse(result.isValid(), "Order with undefined pizza should be invalid.");
+        assertEquals(OrderValidationCode.PIZZA_NOT_DEFINED, result.orderValidationCode(), "Validation code should indicate pizza not defined.");
     }
 
     @Test
@@ -76,32 +102,30 @@ public class OrderValidationTest {
                 new Pizza("R1: Margarita", 1000),
                 new Pizza("R1: Calzone", 1400)
         };
-        Order order = new Order();
-        order.setPizzasInOrder(pizzas);
-        order.setPriceTotalInPence(2500); // Incorrect total
+        Order order = order(pizzas);
+        order.setPriceTotalInPence(2400); // Incorrect total, the 100 order charge is missing
 
-        assertTrue(InputValidator.isNotValidOrder(order), "Order with incorrect price total should be invalid.");
-        assertEquals(OrderValidationCode.TOTAL_INCORRECT, order.getOrderValidationCode(), "Validation code should indicate incorrect total.");
+        OrderValidationResult result = InputValidator.validateOrder(order, CATALOG);
+        assertFalse(result.isValid(), "Order with incorrect price total should be invalid.");
+        assertEquals(OrderValidationCode.TOTAL_INCORRECT, result.orderValidationCode(), "Validation code should indicate incorrect total.");
     }
 
     @Test
     void testCreditCardValidation() {
         // Valid card
-        CreditCardInformation validCard = new CreditCardInformation("1234567812345678", "12/25", "123");
+        CreditCardInformation validCard = new CreditCardInformation("1234567812345670", VALID_EXPIRY, "123");
 
         // Invalid card number
-        CreditCardInformation invalidCardNumber = new CreditCardInformation("1234", "12/25", "123");
+        CreditCardInformation invalidCardNumber = new CreditCardInformation("1234", VALID_EXPIRY, "123");
 
         // Invalid CVV
-        CreditCardInformation invalidCvv = new CreditCardInformation("1234567812345678", "12/25", "12");
-
-        Order order = new Order();
+        CreditCardInformation invalidCvv = new CreditCardInformation("1234567812345670", VALID_EXPIRY, "12");
 
-        assertFalse(InputValidator.isNotValidCreditCard(validCard, order), "Valid card should pass.");
-        assertTrue(InputValidator.isNotValidCreditCard(invalidCardNumber, order), "Invalid card number should fail.");
-        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, order.getOrderValidationCode(), "Validation code should indicate card number invalid.");
-        assertTrue(InputValidator.isNotValidCreditCard(invalidCvv, order), "Invalid CVV should fail.");
-        assertEquals(OrderValidationCode.CVV_INVALID, order.getOrderValidationCode(), "Validation code should indicate CVV invalid.");
+        assertFalse(InputValidator.isNotValidCreditCard(validCard), "Valid card should pass.");
+        assertTrue(InputValidator.isNotValidCreditCard(invalidCardNumber), "Invalid card number should fail.");
+        assertEquals(OrderValidationCode.CARD_NUMBER_INVALID, InputValidator.validateCreditCard(invalidCardNumber), "Validation code should indicate card number invalid.");
+        assertTrue(InputValidator.isNotValidCreditCard(invalidCvv), "Invalid CVV should fail.");
+        assertEquals(OrderValidationCode.CVV_INVALID, InputValidator.validateCreditCard(invalidCvv), "Validation code should indicate CVV invalid.");
     }
 
     @Test
@@ -111,11 +135,11 @@ public class OrderValidationTest {
                 new Pizza("R1: Margarita", 1000),
                 new Pizza("R2: Meat Lover", 1400)
         };
-        Order order = new Order();
-        order.setPizzasInOrder(pizzas);
+        Order order = order(pizzas);
 
-        assertTrue(InputValidator.isNotValidOrder(order), "Order with pizzas from multiple restaurants should be invalid.");
-        assertEquals(OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS, order.getOrderValidationCode(), "Validation code should indicate multiple restaurant issue.");
+        OrderValidationResult result = InputValidator.validateOrder(order, CATALOG);
+        assertFalse(result.isValid(), "Order with pizzas from multiple restaurants should be invalid.");
+        assertEquals(OrderValidationCode.PIZZA_FROM_MULTIPLE_RESTAURANTS, result.orderValidationCode(), "Validation code should indicate multiple restaurant issue.");
     }
 
     @Test
@@ -124,12 +148,12 @@ public class OrderValidationTest {
         Pizza[] pizzas = {
                 new Pizza("R1: Margarita", 1000)
         };
-        Order order = new Order();
-        order.setPizzasInOrder(pizzas);
-        order.setOrderDate(LocalDate.of(2025, 1, 1)); // Assume this is a day when the restaurant is closed
+        Order order = order(pizzas);
+        order.setOrderDate(LocalDate.of(2025, 1, 1)); // A Wednesday, when the restaurant is closed
 
-        assertTrue(InputValidator.isNotValidOrder(order), "Order placed on a closed restaurant day should be invalid.");
-        assertEquals(OrderValidationCode.RESTAURANT_CLOSED, order.getOrderValidationCode(), "Validation code should indicate restaurant is closed.");
+        OrderValidationResult result = InputValidator.validateOrder(order, CATALOG);
+        assertFalse(result.isValid(), "Order placed on a closed restaurant day should be invalid.");
+        assertEquals(OrderValidationCode.RESTAURANT_CLOSED, result.orderValidationCode(), "Validation code should indicate restaurant is closed.");
     }
 
 }
@@ -5,12 +5,15 @@ import org.springframework.boot.test.context.SpringBootTest;
 import uk.ac.ed.inf.pizzadronz.constant.SystemConstants;
 import uk.ac.ed.inf.pizzadronz.data.LngLat;
 import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
-import uk.ac.ed.inf.pizzadronz.data.Position;
 import uk.ac.ed.inf.pizzadronz.service.Calculations;
 import uk.ac.ed.inf.pizzadronz.service.PathCalculator;
+import uk.ac.ed.inf.pizzadronz.service.PathSearchListener;
+import uk.ac.ed.inf.pizzadronz.service.Polygon;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -29,11 +32,11 @@ public class PathCalculationTest {
 
         // Define the vertices of the central area polygon
         centralArea.setVertices(List.of(
-                new Position(-1.0, -1.0),
-                new Position(-1.0, -2.0),
-                new Position(-2.0, -1.0),
-                new Position(-2.0, -2.0),
-                new Position(-3.0, -2.0)
+                new LngLat(-1.0, -1.0),
+                new LngLat(-1.0, -2.0),
+                new LngLat(-2.0, -1.0),
+                new LngLat(-2.0, -2.0),
+                new LngLat(-3.0, -2.0)
         ));
 
         PathCalculator pathCalculator = new PathCalculator();
@@ -41,7 +44,7 @@ public class PathCalculationTest {
         assertFalse(path.isEmpty(), "Path should not be empty.");
 
         Double distance = Calculations.calculateEuclideanDistance(
-                goal.getLng(), goal.getLat(), path.get(path.size() - 1).getLng(), path.get(path.size() - 1).getLat()
+                goal.lng(), goal.lat(), path.get(path.size() - 1).lng(), path.get(path.size() - 1).lat()
         );
 
 
@@ -57,10 +60,10 @@ public class PathCalculationTest {
         Region centralArea = new Region();
         centralArea.setName("Central Area");
         centralArea.setVertices(List.of(
-                new Position(0.5, 0.5),
-                new Position(1.5, 0.5),
-                new Position(1.5, 1.5),
-                new Position(0.5, 1.5)
+                new LngLat(0.5, 0.5),
+                new LngLat(1.5, 0.5),
+                new LngLat(1.5, 1.5),
+                new LngLat(0.5, 1.5)
         ));
 
         PathCalculator pathCalculator = new PathCalculator();
@@ -68,7 +71,7 @@ public class PathCalculationTest {
         assertFalse(path.isEmpty(), "Path should not be empty.");
 
         Double distance = Calculations.calculateEuclideanDistance(
-                goal.getLng(), goal.getLat(), path.get(path.size() - 1).getLng(), path.get(path.size() - 1).getLat()
+                goal.lng(), goal.lat(), path.get(path.size() - 1).lng(), path.get(path.size() - 1).lat()
         );
 
 
@@ -89,7 +92,7 @@ public class PathCalculationTest {
         assertFalse(path.isEmpty(), "Path should not be empty.");
 
         Double distance = Calculations.calculateEuclideanDistance(
-                goal.getLng(), goal.getLat(), path.get(path.size() - 1).getLng(), path.get(path.size() - 1).getLat()
+                goal.lng(), goal.lat(), path.get(path.size() - 1).lng(), path.get(path.size() - 1).lat()
         );
 
 
@@ -106,22 +109,22 @@ public class PathCalculationTest {
         Region noFlyZone1 = new Region();
         noFlyZone1.setName("Dr Elsie Inglis Quadrangle");
         noFlyZone1.setVertices(List.of(
-                new Position(-3.1907182931900024, 55.94519570234043),
-                new Position(-3.1906163692474365, 55.94498241796357),
-                new Position(-3.1900262832641597, 55.94507554227258),
-                new Position(-3.190133571624756, 55.94529783810495),
-                new Position(-3.1907182931900024, 55.94519570234043)
+                new LngLat(-3.1907182931900024, 55.94519570234043),
+                new LngLat(-3.1906163692474365, 55.94498241796357),
+                new LngLat(-3.1900262832641597, 55.94507554227258),
+                new LngLat(-3.190133571624756, 55.94529783810495),
+                new LngLat(-3.1907182931900024, 55.94519570234043)
         ));
         noFlyZones.add(noFlyZone1);
 
 //        Region noFlyZone2 = new Region();
 //        noFlyZone2.setName("No-Fly Zone 2");
 //        noFlyZone2.setVertices(List.of(
-//                new Position(-3.188, 55.945),
-//                new Position(-3.188, 55.944),
-//                new Position(-3.187, 55.944),
-//                new Position(-3.187, 55.945),
-//                new Position(-3.188, 55.945) // Close the polygon
+//                new LngLat(-3.188, 55.945),
+//                new LngLat(-3.188, 55.944),
+//                new LngLat(-3.187, 55.944),
+//                new LngLat(-3.187, 55.945),
+//                new LngLat(-3.188, 55.945) // Close the polygon
 //        ));
 //        noFlyZones.add(noFlyZone2);
 
@@ -131,11 +134,11 @@ public class PathCalculationTest {
 
         // Define the vertices of the central area polygon
         centralArea.setVertices(List.of(
-                new Position(-3.192473, 55.946233),
-                new Position(-3.192473, 55.942617),
-                new Position(-3.184319, 55.942617),
-                new Position(-3.184319, 55.946233),
-                new Position(-3.192473, 55.946233)
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
         ));
 
         PathCalculator pathCalculator = new PathCalculator();
@@ -143,7 +146,7 @@ public class PathCalculationTest {
         assertFalse(path.isEmpty(), "Path should not be empty.");
 
         Double distance = Calculations.calculateEuclideanDistance(
-                goal.getLng(), goal.getLat(), path.get(path.size() - 1).getLng(), path.get(path.size() - 1).getLat()
+                goal.lng(), goal.lat(), path.get(path.size() - 1).lng(), path.get(path.size() - 1).lat()
         );
 
 
@@ -161,11 +164,11 @@ public class PathCalculationTest {
 
         // Define the vertices of the central area polygon
         centralArea.setVertices(List.of(
-                new Position(-3.192473, 55.946233),
-                new Position(-3.192473, 55.942617),
-                new Position(-3.184319, 55.942617),
-                new Position(-3.184319, 55.946233),
-                new Position(-3.192473, 55.946233)
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)
         ));
 
         PathCalculator pathCalculator = new PathCalculator();
@@ -173,10 +176,101 @@ public class PathCalculationTest {
         assertFalse(path.isEmpty(), "Path should not be empty.");
 
         Double distance = Calculations.calculateEuclideanDistance(
-                goal.getLng(), goal.getLat(), path.get(path.size() - 1).getLng(), path.get(path.size() - 1).getLat()
+                goal.lng(), goal.lat(), path.get(path.size() - 1).lng(), path.get(path.size() - 1).lat()
         );
 
 
         assertTrue(distance < SystemConstants.DRONE_IS_CLOSE_DISTANCE);
     }
+
+    @Test
+    void testSearchReportsProgressAndCanBeCancelled() {
+        List<PathSearchListener.Progress> reports = new ArrayList<>();
+        PathSearchListener listener = new PathSearchListener() {
+            @Override
+            public void onProgress(Progress progress) {
+                reports.add(progress);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return reports.size() >= 2;
+            }
+        };
+
+        PathCalculator pathCalculator = new PathCalculator(listener, 10);
+        assertThrows(CancellationException.class,
+                () -> pathCalculator.calculatePath(new LngLat(0.0, 0.0), new LngLat(1.0, 1.0), new ArrayList<>(), null));
+
+        assertEquals(2, reports.size());
+        assertEquals(10, reports.get(0).nodesExpanded());
+        assertEquals(20, reports.get(1).nodesExpanded());
+        assertEquals(new LngLat(0.0, 0.0), reports.get(1).bestPartialPath().get(0));
+        assertTrue(reports.get(1).bestPartialPath().size() > 1);
+    }
+
+    @Test
+    void testEveryStepIsOneExactMoveAndNoPositionRepeats() {
+        Region noFlyZone = new Region();
+        noFlyZone.setName("Wall");
+        noFlyZone.setVertices(List.of(
+                new LngLat(0.0010, -0.0004),
+                new LngLat(0.0012, -0.0004),
+                new LngLat(0.0012, 0.0004),
+                new LngLat(0.0010, 0.0004),
+                new LngLat(0.0010, -0.0004)
+        ));
+
+        List<LngLat> path = new PathCalculator().calculatePath(new LngLat(0.0, 0.0), new LngLat(0.003, 0.0), List.of(noFlyZone), null);
+
+        assertFalse(path.isEmpty(), "Path should not be empty.");
+        for (int i = 1; i < path.size(); i++) {
+            double step = Calculations.calculateEuclideanDistance(
+                    path.get(i - 1).lng(), path.get(i - 1).lat(), path.get(i).lng(), path.get(i).lat());
+            assertEquals(SystemConstants.DRONE_MOVE_DISTANCE, step, 1e-12, "step " + i);
+        }
+        assertEquals(path.size(), new HashSet<>(path).size(), "a position is visited twice");
+    }
+
+    @Test
+    void testHierarchicalModeFollowsACorridorAroundALongWall() {
+        Region noFlyZone = new Region();
+        noFlyZone.setName("Long wall");
+        noFlyZone.setVertices(List.of(
+                new LngLat(0.0070, -0.0045),
+                new LngLat(0.0075, -0.0045),
+                new LngLat(0.0075, 0.0025),
+                new LngLat(0.0070, 0.0025),
+                new LngLat(0.0070, -0.0045)
+        ));
+        LngLat start = new LngLat(0.0, 0.0);
+        LngLat goal = new LngLat(0.016, -0.0005);
+        int[] expansions = {0};
+
+        List<LngLat> path = new PathCalculator(progress -> expansions[0]++, 1, PathCalculator.Mode.HIERARCHICAL)
+                .calculatePath(start, goal, List.of(noFlyZone), null);
+
+        assertFalse(path.isEmpty(), "Path should not be empty.");
+        LngLat last = path.get(path.size() - 1);
+        assertTrue(Calculations.calculateEuclideanDistance(last.lng(), last.lat(), goal.lng(), goal.lat()) < SystemConstants.DRONE_IS_CLOSE_DISTANCE);
+        for (int i = 1; i < path.size(); i++) {
+            LngLat from = path.get(i - 1);
+            LngLat to = path.get(i);
+            assertEquals(SystemConstants.DRONE_MOVE_DISTANCE, Calculations.calculateEuclideanDistance(from.lng(), from.lat(), to.lng(), to.lat()), 1e-12);
+            assertFalse(Polygon.isPointInPolygon(to, noFlyZone.getVertices()), "step " + i);
+            assertFalse(Polygon.doesLineIntersectPolygon(from, to, noFlyZone.getVertices()), "step " + i);
+        }
+        // Going round the top of the wall is at most about 140 moves; the corridor keeps the search close to that
+        assertTrue(path.size() < 150, "moves: " + path.size());
+        assertTrue(expansions[0] < 3 * path.size(), "expansions: " + expansions[0]);
+    }
+
+    @Test
+    void testHierarchicalModeFindsTheSamePathAsDirectOnShortRoutes() {
+        LngLat start = new LngLat(0.0, 0.0);
+        LngLat goal = new LngLat(0.002, 0.001);
+
+        assertEquals(new PathCalculator().calculatePath(start, goal, new ArrayList<>(), null),
+                new PathCalculator(PathCalculator.Mode.HIERARCHICAL).calculatePath(start, goal, new ArrayList<>(), null));
+    }
 }
@@ -0,0 +1,96 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.service.PathCalculator;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProgressEventStreamTest {
+
+    private final ExecutorService sender = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void stopSender() {
+        sender.shutdownNow();
+    }
+
+    @Test
+    void whenTheClientDisconnects_thenTheSearchIsCancelled() {
+        CountDownLatch sendFailed = new CountDownLatch(1);
+        SseEmitter disconnected = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder event) throws IOException {
+                sendFailed.countDown();
+                throw new IOException("Broken pipe");
+            }
+        };
+        ProgressEventStream events = new ProgressEventStream(disconnected, sender);
+
+        // Too far for the search to reach the goal, it would run into its iteration cap
+        PathCalculator search = new PathCalculator(events, 1);
+        assertThrows(CancellationException.class,
+                () -> search.calculatePath(new LngLat(0.0, 0.0), new LngLat(2.0, 2.0), List.of(), centralArea()));
+        assertEquals(0, sendFailed.getCount());
+        assertTrue(events.isCancelled());
+    }
+
+    @Test
+    void whenTheClientIsSlow_thenTheSearchDoesNotWaitAndOnlyTheLatestProgressIsSent() throws Exception {
+        CountDownLatch clientReads = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        List<String> sent = new CopyOnWriteArrayList<>();
+        SseEmitter slow = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder event) throws IOException {
+                try {
+                    clientReads.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                sent.add(event.build().iterator().next().getData().toString());
+            }
+
+            @Override
+            public void complete() {
+                completed.countDown();
+            }
+        };
+        ProgressEventStream events = new ProgressEventStream(slow, sender);
+
+        // Every expansion reports progress, while the client has not read the first event yet
+        List<LngLat> path = new PathCalculator(events, 1)
+                .calculatePath(new LngLat(0.0, 0.0), new LngLat(0.01, 0.01), List.of(), centralArea());
+        assertFalse(path.isEmpty());
+        events.finish("path", path);
+
+        clientReads.countDown();
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        // At most the progress being sent when the client stalled and the latest one, then the path
+        assertTrue(sent.size() == 2 || sent.size() == 3, sent::toString);
+        assertTrue(sent.stream().limit(sent.size() - 1).allMatch(event -> event.startsWith("event:progress")), sent::toString);
+        assertTrue(sent.get(sent.size() - 1).startsWith("event:path"), sent::toString);
+    }
+
+    private static Region centralArea() {
+        Region region = new Region();
+        region.setName("central");
+        region.setVertices(List.of(new LngLat(-1.0, -1.0), new LngLat(-1.0, -2.0), new LngLat(-2.0, -2.0), new LngLat(-2.0, -1.0)));
+        return region;
+    }
+}
@@ -0,0 +1,71 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.service.PathCalculationService;
+import uk.ac.ed.inf.pizzadronz.service.PathCalculator;
+import uk.ac.ed.inf.pizzadronz.service.PathDataService;
+import uk.ac.ed.inf.pizzadronz.service.ReferenceDataService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReferenceDataFetchTest {
+
+    @Test
+    void whenOneFetchFails_thenTheOthersAreCancelled() throws Exception {
+        CountDownLatch zonesFetchStarted = new CountDownLatch(1);
+        PathDataService pathDataService = mock(PathDataService.class);
+        when(pathDataService.getNoFlyZones()).thenAnswer(invocation -> {
+            zonesFetchStarted.countDown();
+            Thread.sleep(60_000); // until interrupted
+            return List.of();
+        });
+        // The restaurant fetch (submitted first) fails on a thread of its own once the no-fly zone fetch
+        // is running; the central area fetch is queued behind that on the other thread
+        ExecutorService restaurantThread = Executors.newSingleThreadExecutor();
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        AtomicInteger submitted = new AtomicInteger();
+        Executor referenceDataExecutor = task -> {
+            if (submitted.getAndIncrement() > 0) {
+                threads.execute(task);
+                return;
+            }
+            restaurantThread.execute(() -> {
+                try {
+                    zonesFetchStarted.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                task.run();
+            });
+        };
+        PathCalculationService service = new PathCalculationService(pathDataService,
+                new ReferenceDataService(new ObjectMapper(), "", ""), referenceDataExecutor, Runnable::run, 200, PathCalculator.Mode.DIRECT);
+        Order order = new Order("A1", LocalDate.now(), 1100, new Pizza[]{new Pizza("No such pizza", 1000)}, null);
+
+        assertThrows(IllegalArgumentException.class, () -> service.planDeliveryPath(order));
+
+        // The running fetch was interrupted and the queued one never ran
+        restaurantThread.shutdown();
+        threads.shutdown();
+        assertTrue(threads.awaitTermination(5, TimeUnit.SECONDS));
+        assertTrue(restaurantThread.awaitTermination(5, TimeUnit.SECONDS));
+        verify(pathDataService, never()).getCentralArea();
+    }
+}
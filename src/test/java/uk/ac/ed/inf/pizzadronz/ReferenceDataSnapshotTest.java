@@ -0,0 +1,140 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.*;
+import uk.ac.ed.inf.pizzadronz.gsonUtils.ReferenceDataSnapshotFile;
+import uk.ac.ed.inf.pizzadronz.service.GeoSnapshot;
+import uk.ac.ed.inf.pizzadronz.service.ReferenceDataService;
+
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceDataSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSnapshotRoundTrip() throws Exception {
+        Restaurant restaurant = new Restaurant("Civerinos Slice",
+                new LngLat(-3.1912869215011597, 55.945535152517735),
+                new DayOfWeek[]{DayOfWeek.MONDAY, DayOfWeek.FRIDAY, DayOfWeek.SUNDAY},
+                new Pizza[]{new Pizza("R1: Margarita", 1000), new Pizza("R1: Calzone", 1400)});
+
+        Region centralArea = new Region();
+        centralArea.setName("central");
+        centralArea.setVertices(List.of(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233)
+        ));
+
+        ReferenceData data = new ReferenceData(List.of(restaurant), centralArea, List.of(centralArea));
+        Path file = tempDir.resolve("reference-data.snapshot");
+        ReferenceDataSnapshotFile.write(ReferenceDataSnapshotFile.encode(data), file);
+
+        ReferenceData loaded = ReferenceDataSnapshotFile.read(file);
+        assertEquals(1, loaded.restaurants().size());
+        Restaurant loadedRestaurant = loaded.restaurants().get(0);
+        assertEquals("Civerinos Slice", loadedRestaurant.name());
+        assertEquals(-3.1912869215011597, loadedRestaurant.location().lng());
+        assertArrayEquals(restaurant.openingDays(), loadedRestaurant.openingDays());
+        assertArrayEquals(restaurant.menu(), loadedRestaurant.menu());
+        assertEquals("central", loaded.centralArea().getName());
+        assertEquals(4, loaded.centralArea().getVertices().size());
+        assertEquals(1, loaded.noFlyZones().size());
+
+        // Re-encoding the loaded data gives identical bytes
+        assertArrayEquals(ReferenceDataSnapshotFile.encode(data), ReferenceDataSnapshotFile.encode(loaded));
+    }
+
+    @Test
+    void testEmptySnapshotRoundTrip() throws Exception {
+        Path file = tempDir.resolve("empty.snapshot");
+        ReferenceDataSnapshotFile.write(ReferenceDataSnapshotFile.encode(ReferenceData.EMPTY), file);
+
+        ReferenceData loaded = ReferenceDataSnapshotFile.read(file);
+        assertTrue(loaded.restaurants().isEmpty());
+        assertNull(loaded.centralArea());
+        assertTrue(loaded.noFlyZones().isEmpty());
+    }
+
+    @Test
+    void testSnapshotVersionDependsOnlyOnTheContent() {
+        ReferenceDataService replicaA = new ReferenceDataService(new ObjectMapper(), "", "");
+        ReferenceDataService replicaB = new ReferenceDataService(new ObjectMapper(), "", "");
+
+        // Different histories, same data
+        replicaA.updateNoFlyZones(List.of(square("George Square", 0.001)));
+        replicaA.updateCentralArea(square("central", 0.01));
+        replicaB.updateCentralArea(square("central", 0.01));
+        replicaB.updateNoFlyZones(List.of(square("George Square", 0.002)));
+        replicaB.updateNoFlyZones(List.of(square("George Square", 0.001)));
+
+        long version = replicaA.getGeoSnapshot().version();
+        assertNotEquals(0, version);
+        assertEquals(version, replicaB.getGeoSnapshot().version());
+
+        replicaB.updateNoFlyZones(List.of(square("George Square", 0.002)));
+        assertNotEquals(version, replicaB.getGeoSnapshot().version());
+    }
+
+    @Test
+    void testUnchangedDataKeepsTheCompiledSnapshot() {
+        ReferenceDataService service = new ReferenceDataService(new ObjectMapper(), "", "");
+        service.updateNoFlyZones(List.of(square("George Square", 0.001)));
+        GeoSnapshot compiled = service.getGeoSnapshot();
+
+        // Equal content in new objects, as every fetch returns
+        service.updateNoFlyZones(List.of(square("George Square", 0.001)));
+        assertSame(compiled, service.getGeoSnapshot());
+    }
+
+    @Test
+    void testIncompleteDataIsRejectedAndTheLastGoodDataKept() {
+        ReferenceDataService service = new ReferenceDataService(new ObjectMapper(), "", "");
+        Region centralArea = square("central", 0.01);
+        service.updateCentralArea(centralArea);
+        GeoSnapshot lastGood = service.getGeoSnapshot();
+
+        Region withoutVertex = new Region();
+        withoutVertex.setName("broken");
+        withoutVertex.setVertices(Arrays.asList(new LngLat(0, 0), null, new LngLat(1, 1)));
+        Restaurant withoutMenu = new Restaurant("No menu", new LngLat(0, 0), new DayOfWeek[]{DayOfWeek.MONDAY}, null);
+
+        assertThrows(IllegalArgumentException.class, () -> service.updateCentralArea(withoutVertex));
+        assertThrows(IllegalArgumentException.class, () -> service.updateRestaurants(List.of(withoutMenu)));
+        assertSame(centralArea, service.getCentralArea());
+        assertSame(lastGood, service.getGeoSnapshot());
+    }
+
+    @Test
+    void testPlanningGeometryIsCompiledFromTheFetchedZones() {
+        ReferenceDataService service = new ReferenceDataService(new ObjectMapper(), "", "");
+        Region centralArea = square("central", 0.01);
+        service.updateCentralArea(centralArea);
+        service.updateNoFlyZones(List.of(square("George Square", 0.001)));
+
+        assertSame(service.getGeoSnapshot(), service.getGeoSnapshot(square("central", 0.01), List.of(square("George Square", 0.001))));
+
+        // Zones the service has not recorded (yet)
+        GeoSnapshot fetched = service.getGeoSnapshot(centralArea, List.of(square("George Square", 0.002)));
+        assertNotEquals(service.getGeoSnapshot().version(), fetched.version());
+        assertTrue(fetched.noFlyZones().get(0).contains(0.0015, 0.0005));
+    }
+
+    private static Region square(String name, double size) {
+        Region region = new Region();
+        region.setName(name);
+        region.setVertices(List.of(new LngLat(0, 0), new LngLat(size, 0), new LngLat(size, size), new LngLat(0, size)));
+        return region;
+    }
+}
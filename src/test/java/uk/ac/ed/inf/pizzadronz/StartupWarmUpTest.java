@@ -0,0 +1,100 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import uk.ac.ed.inf.pizzadronz.data.IsInRegionRequest.Region;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.data.ValidationRuleStatistics;
+import uk.ac.ed.inf.pizzadronz.service.InputValidator;
+import uk.ac.ed.inf.pizzadronz.service.PathCalculator;
+import uk.ac.ed.inf.pizzadronz.service.ReferenceDataRefresher;
+import uk.ac.ed.inf.pizzadronz.service.ReferenceDataService;
+import uk.ac.ed.inf.pizzadronz.service.StartupWarmUp;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class StartupWarmUpTest {
+
+    private final ReferenceDataRefresher refresher = mock(ReferenceDataRefresher.class);
+    private final ReferenceDataService referenceDataService = new ReferenceDataService(new ObjectMapper(), "", "");
+
+    private void loadReferenceData() {
+        Region centralArea = new Region();
+        centralArea.setName("central");
+        centralArea.setVertices(List.of(
+                new LngLat(-3.192473, 55.946233),
+                new LngLat(-3.192473, 55.942617),
+                new LngLat(-3.184319, 55.942617),
+                new LngLat(-3.184319, 55.946233),
+                new LngLat(-3.192473, 55.946233)));
+        referenceDataService.updateCentralArea(centralArea);
+        referenceDataService.updateNoFlyZones(List.of());
+        referenceDataService.updateRestaurants(List.of(new Restaurant("Civerinos Slice",
+                new LngLat(-3.1912869215011597, 55.945535152517735),
+                new DayOfWeek[]{DayOfWeek.MONDAY, DayOfWeek.FRIDAY},
+                new Pizza[]{new Pizza("R1: Margarita", 1000)})));
+    }
+
+    @Test
+    void testRunsTheConfiguredSearchesAndValidations() {
+        loadReferenceData();
+
+        StartupWarmUp.Summary summary = new StartupWarmUp(refresher, referenceDataService, 3, 50, 60_000, PathCalculator.Mode.DIRECT).warmUp();
+
+        verify(refresher).refresh();
+        assertEquals(3, summary.searches());
+        assertEquals(50, summary.validations());
+    }
+
+    @Test
+    void testWarmUpIsNotCountedInTheMetricsOrRuleStatistics() {
+        loadReferenceData();
+        // A real validation, so the meters exist
+        InputValidator.validateOrder(new Order(), referenceDataService.getRestaurants());
+        assertFalse(Metrics.globalRegistry.find("pizzadronz.planner.search").timers().isEmpty());
+        long invocations = ruleInvocations();
+        long searches = Metrics.globalRegistry.find("pizzadronz.planner.search").timers().stream().mapToLong(Timer::count).sum();
+        double validations = Metrics.globalRegistry.find("pizzadronz.validation.results").counters().stream().mapToDouble(Counter::count).sum();
+
+        StartupWarmUp.Summary summary = new StartupWarmUp(refresher, referenceDataService, 3, 50, 60_000, PathCalculator.Mode.HIERARCHICAL).warmUp();
+
+        assertEquals(3, summary.searches());
+        assertEquals(50, summary.validations());
+        assertEquals(invocations, ruleInvocations());
+        assertEquals(searches, Metrics.globalRegistry.find("pizzadronz.planner.search").timers().stream().mapToLong(Timer::count).sum());
+        assertEquals(validations, Metrics.globalRegistry.find("pizzadronz.validation.results").counters().stream().mapToDouble(Counter::count).sum());
+    }
+
+    private static long ruleInvocations() {
+        return InputValidator.getOrderRuleStatistics().stream().mapToLong(ValidationRuleStatistics::invocations).sum();
+    }
+
+    @Test
+    void testWithoutReferenceDataNothingRuns() {
+        StartupWarmUp.Summary summary = new StartupWarmUp(refresher, referenceDataService, 3, 50, 60_000, PathCalculator.Mode.DIRECT).warmUp();
+
+        assertEquals(0, summary.searches());
+        assertEquals(0, summary.validations());
+    }
+
+    @Test
+    void testStopsAtTheMaximumDuration() {
+        loadReferenceData();
+
+        StartupWarmUp.Summary summary = new StartupWarmUp(refresher, referenceDataService, 1000, 1_000_000, 0, PathCalculator.Mode.DIRECT).warmUp();
+
+        assertEquals(0, summary.searches());
+        assertEquals(0, summary.validations());
+    }
+}
@@ -70,11 +70,11 @@ public class ValidateOrderMockMvcTest {
                 );
 
                 // Compare order status
-                assertEquals(originalOrder.getOrderStatus().toString(), validationResult.getOrderStatus().toString(),
+                assertEquals(originalOrder.getOrderStatus().toString(), validationResult.orderStatus().toString(),
                         "Mismatch in order status for order: " + originalOrder.getOrderNo());
 
                 // Compare validation code
-                assertEquals(originalOrder.getOrderValidationCode().toString(), validationResult.getOrderValidationCode().toString(),
+                assertEquals(originalOrder.getOrderValidationCode().toString(), validationResult.orderValidationCode().toString(),
                         "Mismatch in validation code for order: " + originalOrder.getOrderNo());
             });
 
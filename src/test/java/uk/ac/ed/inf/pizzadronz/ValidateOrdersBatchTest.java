@@ -0,0 +1,160 @@
+package uk.ac.ed.inf.pizzadronz;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import uk.ac.ed.inf.pizzadronz.constant.OrderValidationCode;
+import uk.ac.ed.inf.pizzadronz.data.LngLat;
+import uk.ac.ed.inf.pizzadronz.data.Order;
+import uk.ac.ed.inf.pizzadronz.data.Pizza;
+import uk.ac.ed.inf.pizzadronz.data.Restaurant;
+import uk.ac.ed.inf.pizzadronz.service.BatchOrderValidationService;
+import uk.ac.ed.inf.pizzadronz.service.OrderValidationService;
+import uk.ac.ed.inf.pizzadronz.service.ReferenceDataService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ValidateOrdersBatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void whenBatchOfOrders_thenResultsAreStreamedInInputOrder() throws Exception {
+        String tooManyPizzas = """
+                {"orderNo":"A1","orderDate":"2025-01-01","priceTotalInPence":5100,"pizzasInOrder":[{"name":"R1: Margarita","priceInPence":1000},{"name":"R1: Margarita","priceInPence":1000},{"name":"R1: Margarita","priceInPence":1000},{"name":"R1: Margarita","priceInPence":1000},{"name":"R1: Margarita","priceInPence":1000}]}""";
+        String noPizzas = """
+                {"orderNo":"A2","orderDate":"2025-01-01","priceTotalInPence":100,"pizzasInOrder":[]}""";
+        String notJson = "this is not an order";
+
+        String body = tooManyPizzas + "\n" + noPizzas + "\n\n" + notJson + "\n";
+
+        MvcResult result = mockMvc.perform(post("/validateOrders")
+                        .contentType(RestController.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"MAX_PIZZA_COUNT_EXCEEDED\"}", lines[0]);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"EMPTY_ORDER\"}", lines[1]);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"UNDEFINED\"}", lines[2]);
+    }
+
+    @Test
+    public void whenSomeOrdersCannotBeValidated_thenTheyAreInvalidAndTheRestOfTheBatchGoesOn() throws Exception {
+        String nullPizzaList = """
+                {"orderNo":"A3","orderDate":"2025-01-01","priceTotalInPence":100,"pizzasInOrder":null}""";
+        String nullPizza = """
+                {"orderNo":"A4","orderDate":"2025-01-01","priceTotalInPence":100,"pizzasInOrder":[null]}""";
+        String noPizzas = """
+                {"orderNo":"A2","orderDate":"2025-01-01","priceTotalInPence":100,"pizzasInOrder":[]}""";
+        String body = nullPizzaList + "\n" + noPizzas + "\n" + nullPizza + "\n" + noPizzas + "\n";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchOrderValidationService service = batchService(2, 65536);
+
+        assertEquals(4, service.validate(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out));
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"UNDEFINED\"}", lines[0]);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"EMPTY_ORDER\"}", lines[1]);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"UNDEFINED\"}", lines[2]);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"EMPTY_ORDER\"}", lines[3]);
+    }
+
+    @Test
+    public void whenBatchIsLargerThanTheWindow_thenTheResponseStaysOpenUntilTheEnd() throws Exception {
+        String noPizzas = """
+                {"orderNo":"A2","orderDate":"2025-01-01","priceTotalInPence":100,"pizzasInOrder":[]}""";
+        String body = (noPizzas + "\n").repeat(5);
+
+        // A servlet response closed early also closes the request, so nothing more could be read
+        class ClosableOutput extends ByteArrayOutputStream {
+            boolean closed;
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) {
+                if (closed) {
+                    throw new IllegalStateException("Written after close");
+                }
+                super.write(bytes, offset, length);
+            }
+
+            @Override
+            public void close() throws IOException {
+                closed = true;
+            }
+        }
+        ClosableOutput out = new ClosableOutput();
+        BatchOrderValidationService service = batchService(1, 65536);
+
+        assertEquals(5, service.validate(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out));
+        assertFalse(out.closed);
+        assertEquals(5, out.toString(StandardCharsets.UTF_8).split("\n").length);
+    }
+
+    @Test
+    public void whenAnOrderLineIsTooLong_thenItIsInvalidWithoutBeingRead() throws Exception {
+        String noPizzas = """
+                {"orderNo":"A2","orderDate":"2025-01-01","priceTotalInPence":100,"pizzasInOrder":[]}""";
+        String huge = "{\"orderNo\":\"" + "A".repeat(10_000) + "\"}";
+        // The last line has no newline
+        String body = noPizzas + "\n" + huge + "\n" + noPizzas;
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BatchOrderValidationService service = batchService(2, 1024);
+
+        assertEquals(3, service.validate(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out));
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"EMPTY_ORDER\"}", lines[0]);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"UNDEFINED\"}", lines[1]);
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"EMPTY_ORDER\"}", lines[2]);
+    }
+
+    @Test
+    public void whenBatchValidated_thenTheSnapshotCatalogAndTheSingleOrderCacheAreUsed() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        ReferenceDataService referenceDataService = new ReferenceDataService(objectMapper, "", "");
+        referenceDataService.updateRestaurants(List.of(new Restaurant("Civerinos Slice", new LngLat(-3.1912869215011597, 55.945535152517735),
+                DayOfWeek.values(), new Pizza[]{new Pizza("R1: Calzone", 1000)})));
+        OrderValidationService orderValidationService = new OrderValidationService(referenceDataService, 100);
+        BatchOrderValidationService service = new BatchOrderValidationService(objectMapper, orderValidationService, Runnable::run, 2, 65536);
+        String order = """
+                {"orderNo":"A5","orderDate":"2025-01-06","priceTotalInPence":1100,"pizzasInOrder":[{"name":"R1: Margarita","priceInPence":1000}],\
+                "creditCardInformation":{"creditCardNumber":"1234567812345670","creditCardExpiry":"12/35","cvv":"123"}}""";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, service.validate(new ByteArrayInputStream((order + "\n").getBytes(StandardCharsets.UTF_8)), out));
+
+        assertEquals("{\"orderStatus\":\"INVALID\",\"orderValidationCode\":\"PIZZA_NOT_DEFINED\"}\n", out.toString(StandardCharsets.UTF_8));
+        // /validateOrder answers the same order from the result the batch left in the cache
+        assertEquals(OrderValidationCode.PIZZA_NOT_DEFINED,
+                orderValidationService.validate(objectMapper.readValue(order, Order.class)).orderValidationCode());
+        assertEquals(1, orderValidationService.getHits());
+    }
+
+    private static BatchOrderValidationService batchService(int window, int maxOrderBytes) {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        OrderValidationService orderValidationService = new OrderValidationService(new ReferenceDataService(objectMapper, "", ""), 100);
+        return new BatchOrderValidationService(objectMapper, orderValidationService, Runnable::run, window, maxOrderBytes);
+    }
+}